@@ -0,0 +1,65 @@
+package com.example.quiz.benchmark;
+
+import com.example.quiz.QuizApplication;
+import com.example.quiz.service.QuizService;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+
+/**
+ * ベンチマーク用の環境。
+ * 組み込みPostgreSQLに指定件数のクイズを登録し、そのDBに接続したアプリケーションコンテキストを起動します。
+ */
+@State(Scope.Benchmark)
+public class QuizBenchmarkState {
+    /** 登録するクイズの件数 */
+    @Param({"1000", "100000", "1000000"})
+    public int rows;
+
+    /** 組み込みPostgreSQL */
+    private EmbeddedPostgres postgres;
+    /** アプリケーションコンテキスト */
+    private ConfigurableApplicationContext context;
+    /** 計測対象のService */
+    public QuizService quizService;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        postgres = EmbeddedPostgres.start();
+        DataSource dataSource = postgres.getPostgresDatabase();
+        // テーブル作成・データ登録
+        new ResourceDatabasePopulator(new ClassPathResource("benchmark/schema.sql")).execute(dataSource);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.update("INSERT INTO quiz (question, answer, author)"
+                + " SELECT 'クイズ' || g, g % 2 = 0, '作成者' || (g % 100) FROM generate_series(1, ?) g", rows);
+        jdbcTemplate.execute("ANALYZE quiz");
+
+        context = new SpringApplicationBuilder(QuizApplication.class)
+                .web(WebApplicationType.NONE)
+                // application.propertiesより優先させるためコマンドライン引数として指定する
+                .run("--spring.datasource.url=" + postgres.getJdbcUrl("postgres", "postgres"),
+                        "--spring.datasource.username=postgres",
+                        "--spring.main.banner-mode=off",
+                        "--logging.level.root=WARN");
+        quizService = context.getBean(QuizService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        context.close();
+        postgres.close();
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.quiz.benchmark;
+
+import com.example.quiz.controller.QuizController;
+import com.example.quiz.entity.Quiz;
+import com.example.quiz.form.QuizForm;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.TimeUnit;
+
+/** QuizControllerのQuiz⇔QuizFormの詰め替え処理の1回あたりの処理時間 */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class QuizControllerMappingBenchmark {
+    /** 詰め替え処理はフィールドを使用しないため、DIなしのインスタンスで計測する */
+    private final QuizController quizController = new QuizController();
+    /** QuizController#makeQuiz */
+    private MethodHandle makeQuiz;
+    /** QuizController#makeQuizForm */
+    private MethodHandle makeQuizForm;
+    /** 入力データ */
+    private QuizForm quizForm;
+    /** 入力データ */
+    private Quiz quiz;
+
+    @Setup
+    public void setUp() throws ReflectiveOperationException {
+        MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(QuizController.class, MethodHandles.lookup());
+        makeQuiz = lookup.findVirtual(QuizController.class, "makeQuiz", MethodType.methodType(Quiz.class, QuizForm.class));
+        makeQuizForm = lookup.findVirtual(QuizController.class, "makeQuizForm", MethodType.methodType(QuizForm.class, Quiz.class));
+        quizForm = new QuizForm(100, "クイズの内容", true, "作成者", false);
+        quiz = new Quiz(100, "クイズの内容", true, "作成者");
+    }
+
+    @Benchmark
+    public Quiz makeQuiz() throws Throwable {
+        return (Quiz) makeQuiz.invokeExact(quizController, quizForm);
+    }
+
+    @Benchmark
+    public QuizForm makeQuizForm() throws Throwable {
+        return (QuizForm) makeQuizForm.invokeExact(quizController, quiz);
+    }
+}
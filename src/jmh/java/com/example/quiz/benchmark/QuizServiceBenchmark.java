@@ -0,0 +1,58 @@
+package com.example.quiz.benchmark;
+
+import com.example.quiz.entity.Quiz;
+import com.example.quiz.service.QuizSearchResult;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/** QuizServiceの主要な処理の1回あたりの処理時間 */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class QuizServiceBenchmark {
+
+    @Benchmark
+    public Optional<Quiz> selectOneRandomQuiz(QuizBenchmarkState state) {
+        return state.quizService.selectOneRandomQuiz();
+    }
+
+    @Benchmark
+    public Boolean checkQuiz(QuizBenchmarkState state) {
+        int id = ThreadLocalRandom.current().nextInt(state.rows) + 1;
+        return state.quizService.checkQuiz(id, true);
+    }
+
+    /** 一致が少ない検索（内容の部分一致） */
+    @Benchmark
+    public QuizSearchResult searchQuizzesSelective(QuizBenchmarkState state) {
+        int id = ThreadLocalRandom.current().nextInt(state.rows) + 1;
+        return state.quizService.searchQuizzes("クイズ" + id, 0, 20);
+    }
+
+    /** 一致が多い検索（作成者：全体の1%） */
+    @Benchmark
+    public QuizSearchResult searchQuizzesCommon(QuizBenchmarkState state) {
+        int author = ThreadLocalRandom.current().nextInt(100);
+        return state.quizService.searchQuizzes("作成者" + author, 0, 20);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public void selectAll(QuizBenchmarkState state, Blackhole blackhole) {
+        for (Quiz quiz : state.quizService.selectAll()) {
+            blackhole.consume(quiz);
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.example.quiz.benchmark;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import javax.sql.DataSource;
+import java.io.File;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * 起動してから最初に /quiz/play が成功する（200を返却する）までの時間。1回の計測ごとにアプリケーションを別プロセスで起動します。
+ * prod：通常の起動（本番用の設定）
+ * faststart：faststartプロファイル（遅延初期化・出題の準備）
+ * faststart-cds：faststartプロファイル＋CDSアーカイブ
+ * 事前に mvn -Pfaststart -DskipTests package で target/faststart を作成しておくこと（プロジェクトのルートで実行すること）。
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class QuizStartupBenchmark {
+    /** 起動方法 */
+    @Param({"prod", "faststart", "faststart-cds"})
+    public String mode;
+
+    /** 起動用のjar・CDSアーカイブのディレクトリ */
+    private static final Path FASTSTART = Paths.get("target", "faststart");
+    /** 起動を待つ時間の上限 */
+    private static final Duration TIMEOUT = Duration.ofMinutes(2);
+
+    /** 組み込みPostgreSQL */
+    private EmbeddedPostgres postgres;
+    /** 起動用のjar */
+    private Path jar;
+    private final HttpClient httpClient = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(1)).build();
+    /** 起動したアプリケーション */
+    private Process process;
+    private int port;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        try (Stream<Path> files = Files.list(FASTSTART)) {
+            jar = files.filter(file -> file.getFileName().toString().endsWith("-faststart.jar")).findFirst()
+                    .orElseThrow(() -> new IllegalStateException("mvn -Pfaststart -DskipTests package を先に実行してください"));
+        }
+        if ("faststart-cds".equals(mode) && !Files.exists(FASTSTART.resolve("quiz.jsa"))) {
+            throw new IllegalStateException("CDSアーカイブがありません。mvn -Pfaststart -DskipTests package を先に実行してください");
+        }
+        postgres = EmbeddedPostgres.start();
+        DataSource dataSource = postgres.getPostgresDatabase();
+        new ResourceDatabasePopulator(new ClassPathResource("benchmark/schema.sql")).execute(dataSource);
+        new JdbcTemplate(dataSource).update("INSERT INTO quiz (question, answer, author)"
+                + " SELECT 'クイズ' || g, g % 2 = 0, '作成者' || (g % 100) FROM generate_series(1, 1000) g");
+    }
+
+    @Setup(Level.Invocation)
+    public void choosePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+    }
+
+    @Benchmark
+    public int firstPlay() throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        if ("faststart-cds".equals(mode)) {
+            command.add("-XX:SharedArchiveFile=" + FASTSTART.resolve("quiz.jsa"));
+        }
+        command.add("-jar");
+        command.add(jar.toString());
+        command.add("--spring.profiles.active=" + ("prod".equals(mode) ? "prod" : "faststart"));
+        command.add("--server.port=" + port);
+        command.add("--spring.datasource.url=" + postgres.getJdbcUrl("postgres", "postgres"));
+        command.add("--spring.datasource.username=postgres");
+        command.add("--logging.level.root=WARN");
+        long deadline = System.nanoTime() + TIMEOUT.toNanos();
+        process = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(new File("target/startup-" + mode + ".log"))
+                .start();
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/quiz/play")).GET().build();
+        while (true) {
+            try {
+                int status = httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                if (status == 200) {
+                    return status;
+                }
+            } catch (IOException e) {
+                // 起動中（接続できない）
+            }
+            if (!process.isAlive() || System.nanoTime() > deadline) {
+                throw new IllegalStateException("起動できませんでした（target/startup-" + mode + ".log を参照）");
+            }
+            Thread.sleep(5);
+        }
+    }
+
+    @TearDown(Level.Invocation)
+    public void stop() throws InterruptedException {
+        if (process != null) {
+            process.destroy();
+            if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                process.destroyForcibly().waitFor();
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        postgres.close();
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.quiz.benchmark;
+
+import com.example.quiz.form.QuizForm;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.stereotype.Controller;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.ui.Model;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.thymeleaf.spring5.SpringTemplateEngine;
+import org.thymeleaf.spring5.templateresolver.SpringResourceTemplateResolver;
+import org.thymeleaf.spring5.view.ThymeleafViewResolver;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * play.html・answer.html の1リクエストあたりの描画時間。
+ * dev：ソースのテンプレートをリクエストごとに読み込み・解析する（開発用の設定）
+ * prod：クラスパスのテンプレートを解析済みの状態でキャッシュする（本番用の設定）
+ * DBアクセスを含めないよう、固定のモデルを返却するコントローラで描画します（プロジェクトのルートで実行すること）。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class QuizTemplateRenderBenchmark {
+    /** テンプレートの設定 */
+    @Param({"dev", "prod"})
+    public String mode;
+
+    private MockMvc mockMvc;
+
+    @Setup
+    public void setUp() {
+        GenericApplicationContext context = new GenericApplicationContext();
+        context.refresh();
+
+        // application.properties・application-dev.properties と同じ設定
+        SpringResourceTemplateResolver templateResolver = new SpringResourceTemplateResolver();
+        templateResolver.setApplicationContext(context);
+        templateResolver.setPrefix("dev".equals(mode) ? "file:src/main/resources/templates/" : "classpath:/templates/");
+        templateResolver.setSuffix(".html");
+        templateResolver.setCharacterEncoding("UTF-8");
+        templateResolver.setCacheable(!"dev".equals(mode));
+
+        SpringTemplateEngine templateEngine = new SpringTemplateEngine();
+        templateEngine.setTemplateResolver(templateResolver);
+        ThymeleafViewResolver viewResolver = new ThymeleafViewResolver();
+        viewResolver.setTemplateEngine(templateEngine);
+        viewResolver.setCharacterEncoding("UTF-8");
+
+        mockMvc = MockMvcBuilders.standaloneSetup(new RenderController()).setViewResolvers(viewResolver).build();
+    }
+
+    @Benchmark
+    public String renderPlay() throws Exception {
+        return mockMvc.perform(get("/play")).andReturn().getResponse().getContentAsString();
+    }
+
+    @Benchmark
+    public String renderAnswer() throws Exception {
+        return mockMvc.perform(get("/answer")).andReturn().getResponse().getContentAsString();
+    }
+
+    /** 固定のモデルで描画するコントローラ */
+    @Controller
+    public static class RenderController {
+
+        @GetMapping("/play")
+        public String play(QuizForm quizForm) {
+            quizForm.setId(5);
+            quizForm.setQuestion("「Spring」はフレームワークである。");
+            return "play";
+        }
+
+        @GetMapping("/answer")
+        public String answer(Model model) {
+            model.addAttribute("msg", "正解です！！！");
+            return "answer";
+        }
+    }
+}
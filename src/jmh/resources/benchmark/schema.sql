@@ -0,0 +1,21 @@
+-- ベンチマーク用のテーブル定義（組み込みPostgreSQLに作成する）
+CREATE TABLE quiz (
+    id SERIAL PRIMARY KEY,
+    question TEXT NOT NULL,
+    answer BOOLEAN NOT NULL,
+    author VARCHAR(20) NOT NULL,
+    version INTEGER NOT NULL DEFAULT 0
+);
+
+-- 解答の統計（クイズごとの解答数・正解数）
+CREATE TABLE quiz_stats (
+    quiz_id INTEGER PRIMARY KEY,
+    attempts BIGINT NOT NULL DEFAULT 0,
+    correct BIGINT NOT NULL DEFAULT 0
+);
+
+-- ランキング（プレイヤーごとのスコア）
+CREATE TABLE quiz_player_score (
+    player VARCHAR(50) PRIMARY KEY,
+    score BIGINT NOT NULL DEFAULT 0
+);
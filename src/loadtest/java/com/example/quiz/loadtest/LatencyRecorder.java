@@ -0,0 +1,77 @@
+package com.example.quiz.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 操作ごとの応答時間（HdrHistogram、マイクロ秒・有効数字3桁）とエラーの件数。複数のスレッドから記録できます。
+ * 応答時間は実際に送信した時刻ではなく開始予定時刻から計測するため、対象が遅れて送信が遅れた分も応答時間に含まれます（coordinated omissionの回避）。
+ */
+class LatencyRecorder {
+    /** 操作名 → 記録（作成後は変更しない） */
+    private final Map<String, Operation> operations = new LinkedHashMap<>();
+
+    LatencyRecorder(String... names) {
+        for (String name : names) {
+            operations.put(name, new Operation());
+        }
+    }
+
+    /** 開始予定時刻（System.nanoTime）から現在までの時間を記録します */
+    void record(String name, long startNanos, boolean success) {
+        Operation operation = operations.get(name);
+        operation.histogram.recordValue(Math.max(0, (System.nanoTime() - startNanos) / 1000));
+        if (!success) {
+            operation.errors.increment();
+        }
+    }
+
+    /** 記録した件数（エラーを含む） */
+    long count(String name) {
+        return operations.get(name).histogram.getTotalCount();
+    }
+
+    /** 操作ごとの結果（1件も記録していない操作は除く） */
+    Map<String, LoadOperationResult> results() {
+        Map<String, LoadOperationResult> results = new LinkedHashMap<>();
+        operations.forEach((name, operation) -> {
+            Histogram histogram = operation.histogram.copy();
+            if (histogram.getTotalCount() == 0) {
+                return;
+            }
+            LoadOperationResult result = new LoadOperationResult();
+            result.setCount(histogram.getTotalCount());
+            result.setErrors(operation.errors.sum());
+            result.setMean(histogram.getMean() / 1000);
+            result.setP50(histogram.getValueAtPercentile(50) / 1000.0);
+            result.setP90(histogram.getValueAtPercentile(90) / 1000.0);
+            result.setP99(histogram.getValueAtPercentile(99) / 1000.0);
+            result.setP999(histogram.getValueAtPercentile(99.9) / 1000.0);
+            result.setMax(histogram.getMaxValue() / 1000.0);
+            result.setHistogram(encode(histogram));
+            results.put(name, result);
+        });
+        return results;
+    }
+
+    /** 圧縮してBase64にします */
+    private static String encode(Histogram histogram) {
+        ByteBuffer buffer = ByteBuffer.allocate(histogram.getNeededByteBufferCapacity());
+        int length = histogram.encodeIntoCompressedByteBuffer(buffer);
+        return Base64.getEncoder().encodeToString(Arrays.copyOf(buffer.array(), length));
+    }
+
+    /** 1つの操作の記録 */
+    private static class Operation {
+        /** 応答時間（範囲は自動で拡張する） */
+        final ConcurrentHistogram histogram = new ConcurrentHistogram(3);
+        final LongAdder errors = new LongAdder();
+    }
+}
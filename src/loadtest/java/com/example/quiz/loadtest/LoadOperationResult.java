@@ -0,0 +1,20 @@
+package com.example.quiz.loadtest;
+
+import lombok.Data;
+
+/** 1つの操作（リクエストの種類・セッション全体）の計測結果。時間の単位はミリ秒 */
+@Data
+public class LoadOperationResult {
+    /** 件数（エラーを含む） */
+    private long count;
+    /** エラー（想定外のステータス・タイムアウトなど）の件数 */
+    private long errors;
+    private double mean;
+    private double p50;
+    private double p90;
+    private double p99;
+    private double p999;
+    private double max;
+    /** HdrHistogram（マイクロ秒）を圧縮してBase64にしたもの（Histogram.fromString で復元できる） */
+    private String histogram;
+}
@@ -0,0 +1,127 @@
+package com.example.quiz.loadtest;
+
+import org.springframework.boot.convert.DurationStyle;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 負荷試験の設定（コマンドライン引数 --名前=値 で指定）。
+ * 負荷試験の設定以外の引数は、起動するアプリケーションにそのまま渡します（例：--spring.profiles.active=vthreads）。
+ */
+class LoadOptions {
+    /** 到着率（1秒あたりに開始するセッション数）。段階ごとに計測する。0は到着率を指定しない（closed-loop） */
+    List<Integer> rates = List.of(50, 100, 200);
+    /** 同時に実行するセッション数の上限（仮想ユーザー数） */
+    int concurrency = 64;
+    /** 段階ごとの計測時間 */
+    Duration duration = Duration.ofSeconds(30);
+    /** 計測前に最初の到着率で実行する時間（結果は破棄） */
+    Duration warmup = Duration.ofSeconds(10);
+    /** 計測時間の終了後、実行中・待機中のセッションの完了を待つ時間 */
+    Duration drain = Duration.ofSeconds(30);
+    /** 1リクエストのタイムアウト */
+    Duration timeout = Duration.ofSeconds(10);
+    /** プレイヤーの1セッションで出題・解答する回数 */
+    int rounds = 5;
+    /** 解答してから次の出題までの待ち時間 */
+    Duration thinkTime = Duration.ZERO;
+    /** プレイヤーのセッションの比率 */
+    int playerWeight = 9;
+    /** 作成者のセッション（登録・取得・更新・削除）の比率 */
+    int authorWeight = 1;
+    /** 組み込みDBに登録するクイズの件数 */
+    int rows = 1000;
+    /** プレイヤー名の種類 */
+    int players = 1000;
+    /** 試験対象のURL（指定した場合はDB・アプリケーションを起動しない） */
+    String url;
+    /** 結果の出力先 */
+    Path out = Path.of("target", "loadtest-result.json");
+    /** アプリケーションに渡す引数 */
+    List<String> appArgs = new ArrayList<>();
+
+    static LoadOptions parse(String... args) {
+        LoadOptions options = new LoadOptions();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            String name = arg.startsWith("--") && eq > 2 ? arg.substring(2, eq) : "";
+            String value = eq > 0 ? arg.substring(eq + 1) : "";
+            switch (name) {
+                case "rates":
+                    options.rates = Arrays.stream(value.split(","))
+                            .map(String::strip).map(Integer::valueOf).collect(Collectors.toList());
+                    break;
+                case "concurrency":
+                    options.concurrency = Integer.parseInt(value);
+                    break;
+                case "duration":
+                    options.duration = DurationStyle.detectAndParse(value);
+                    break;
+                case "warmup":
+                    options.warmup = DurationStyle.detectAndParse(value);
+                    break;
+                case "drain":
+                    options.drain = DurationStyle.detectAndParse(value);
+                    break;
+                case "timeout":
+                    options.timeout = DurationStyle.detectAndParse(value);
+                    break;
+                case "rounds":
+                    options.rounds = Integer.parseInt(value);
+                    break;
+                case "think-time":
+                    options.thinkTime = DurationStyle.detectAndParse(value);
+                    break;
+                case "mix":
+                    options.parseMix(value);
+                    break;
+                case "rows":
+                    options.rows = Integer.parseInt(value);
+                    break;
+                case "players":
+                    options.players = Integer.parseInt(value);
+                    break;
+                case "url":
+                    options.url = value.endsWith("/") ? value.substring(0, value.length() - 1) : value;
+                    break;
+                case "out":
+                    options.out = Path.of(value);
+                    break;
+                default:
+                    options.appArgs.add(arg);
+                    break;
+            }
+        }
+        if (options.rates.isEmpty() || options.rates.stream().anyMatch(rate -> rate < 0)) {
+            throw new IllegalArgumentException("--rates には0以上の整数をカンマ区切りで指定してください");
+        }
+        if (options.concurrency <= 0 || options.rounds <= 0 || options.players <= 0
+                || options.playerWeight + options.authorWeight <= 0) {
+            throw new IllegalArgumentException("--concurrency・--rounds・--players・--mix には正の値を指定してください");
+        }
+        return options;
+    }
+
+    /** --mix=player:9,author:1 */
+    private void parseMix(String value) {
+        playerWeight = 0;
+        authorWeight = 0;
+        for (String entry : value.split(",")) {
+            String[] pair = entry.strip().split(":");
+            int weight = pair.length == 2 ? Integer.parseInt(pair[1]) : -1;
+            if (weight < 0 || !(pair[0].equals("player") || pair[0].equals("author"))) {
+                throw new IllegalArgumentException("--mix は player:比率,author:比率 の形式で指定してください：" + value);
+            }
+            if (pair[0].equals("player")) {
+                playerWeight = weight;
+            } else {
+                authorWeight = weight;
+            }
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.quiz.loadtest;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/** 負荷試験の結果（JSONで出力する） */
+@Data
+public class LoadResult {
+    /** 開始日時 */
+    private String startedAt;
+    /** 試験対象のURL */
+    private String target;
+    /** 同時に実行するセッション数の上限 */
+    private int concurrency;
+    /** 段階ごとの計測時間（秒） */
+    private long duration;
+    /** プレイヤーの1セッションで出題・解答する回数 */
+    private int rounds;
+    /** 解答してから次の出題までの待ち時間（ミリ秒） */
+    private long thinkTime;
+    /** プレイヤー・作成者のセッションの比率 */
+    private int playerWeight;
+    private int authorWeight;
+    /** 組み込みDBに登録したクイズの件数（URLを指定した場合は0） */
+    private int rows;
+    /** 段階ごとの結果 */
+    private List<LoadStepResult> steps = new ArrayList<>();
+}
@@ -0,0 +1,31 @@
+package com.example.quiz.loadtest;
+
+import lombok.Data;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/** 1段階（1つの到着率）の計測結果 */
+@Data
+public class LoadStepResult {
+    /** 目標の到着率（セッション/秒。0はclosed-loop） */
+    private int targetRate;
+    /** 計測時間（最初のセッションの開始予定時刻から、全セッションが完了するまで。秒） */
+    private double elapsed;
+    /** 開始予定だったセッション数 */
+    private long sessions;
+    /** 完了したセッション数 */
+    private long completedSessions;
+    /** 待ち時間内に完了しなかったセッション数 */
+    private long unfinishedSessions;
+    /** 計測時間の終了時点で、同時実行数の上限に達していたため開始を待っていたセッション数 */
+    private int backlog;
+    /** 完了したセッション数 / 計測時間（セッション/秒） */
+    private double sessionThroughput;
+    /** 完了したリクエスト数 / 計測時間（リクエスト/秒） */
+    private double throughput;
+    /** 目標の到着率に追いついていない（開始を待っていたセッション、または完了しなかったセッションがある） */
+    private boolean saturated;
+    /** 操作ごとの結果 */
+    private Map<String, LoadOperationResult> operations = new LinkedHashMap<>();
+}
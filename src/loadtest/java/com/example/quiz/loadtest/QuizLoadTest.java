@@ -0,0 +1,225 @@
+package com.example.quiz.loadtest;
+
+import com.example.quiz.QuizApplication;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 出題・解答（/quiz/play → /quiz/check）とクイズの作成（REST API）の負荷試験。
+ * 組み込みPostgreSQLに指定件数のクイズを登録し、そのDBに接続したアプリケーションを空いているポートで起動して
+ * （--url を指定した場合は起動済みのアプリケーションに対して）、到着率を段階的に上げながら計測します。
+ * <p>
+ * 到着率を指定した場合（open-loop）、セッションは前のセッションの応答を待たずに一定間隔で開始予定時刻を決め、
+ * 同時実行数の上限に達している間は待機します。応答時間は開始予定時刻から計測するため、
+ * アプリケーションが遅くなって送信が遅れた分も結果に含まれます（coordinated omissionの回避）。
+ * 到着率0（closed-loop）では、同時実行数分のセッションを応答を待って繰り返し実行します。
+ */
+public class QuizLoadTest {
+    private final LoadOptions options;
+    private final QuizSessions sessions;
+
+    QuizLoadTest(LoadOptions options, QuizSessions sessions) {
+        this.options = options;
+        this.sessions = sessions;
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadOptions options = LoadOptions.parse(args);
+        EmbeddedPostgres postgres = null;
+        ConfigurableApplicationContext context = null;
+        try {
+            String baseUrl = options.url;
+            if (baseUrl == null) {
+                postgres = startDatabase(options.rows);
+                context = startApplication(postgres, options.appArgs);
+                baseUrl = "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort();
+            }
+            HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1)
+                    .connectTimeout(options.timeout).build();
+            LoadResult result = new QuizLoadTest(options, new QuizSessions(client, baseUrl, options)).run();
+            result.setTarget(baseUrl);
+            result.setRows(options.url == null ? options.rows : 0);
+            if (options.out.getParent() != null) {
+                Files.createDirectories(options.out.getParent());
+            }
+            new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(options.out.toFile(), result);
+            System.out.println("結果を出力しました：" + options.out.toAbsolutePath());
+        } finally {
+            if (context != null) {
+                context.close();
+            }
+            if (postgres != null) {
+                postgres.close();
+            }
+        }
+    }
+
+    /** 組み込みPostgreSQLを起動し、テーブル作成（ベンチマークと共用）・クイズの登録を行います */
+    private static EmbeddedPostgres startDatabase(int rows) throws IOException {
+        EmbeddedPostgres postgres = EmbeddedPostgres.start();
+        DataSource dataSource = postgres.getPostgresDatabase();
+        new ResourceDatabasePopulator(new ClassPathResource("benchmark/schema.sql")).execute(dataSource);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.update("INSERT INTO quiz (question, answer, author)"
+                + " SELECT 'クイズ' || g, g % 2 = 0, '作成者' || (g % 100) FROM generate_series(1, ?) g", rows);
+        jdbcTemplate.execute("ANALYZE quiz");
+        return postgres;
+    }
+
+    /** 組み込みPostgreSQLに接続したアプリケーションを空いているポートで起動します（プロファイルの既定値はprod） */
+    private static ConfigurableApplicationContext startApplication(EmbeddedPostgres postgres, List<String> appArgs) {
+        // application.propertiesより優先させるためコマンドライン引数として指定する
+        List<String> args = new ArrayList<>(List.of(
+                "--spring.datasource.url=" + postgres.getJdbcUrl("postgres", "postgres"),
+                "--spring.datasource.username=postgres",
+                "--spring.r2dbc.url=r2dbc:postgresql://localhost:" + postgres.getPort() + "/postgres",
+                "--spring.r2dbc.username=postgres",
+                "--server.port=0",
+                "--spring.main.banner-mode=off",
+                "--logging.level.root=WARN"));
+        if (appArgs.stream().noneMatch(arg -> arg.startsWith("--spring.profiles.active="))) {
+            args.add("--spring.profiles.active=prod");
+        }
+        args.addAll(appArgs);
+        // devtoolsの再起動はmainメソッド（負荷試験）ごと実行し直すため無効にする（システムプロパティでのみ指定できる）
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        return new SpringApplicationBuilder(QuizApplication.class).run(args.toArray(String[]::new));
+    }
+
+    /** ウォームアップの後、到着率ごとに計測します */
+    LoadResult run() throws InterruptedException {
+        LoadResult result = new LoadResult();
+        result.setStartedAt(OffsetDateTime.now().toString());
+        result.setConcurrency(options.concurrency);
+        result.setDuration(options.duration.toSeconds());
+        result.setRounds(options.rounds);
+        result.setThinkTime(options.thinkTime.toMillis());
+        result.setPlayerWeight(options.playerWeight);
+        result.setAuthorWeight(options.authorWeight);
+        if (!options.warmup.isZero()) {
+            System.out.printf("ウォームアップ：%s（%.1f秒）%n", label(options.rates.get(0)), options.warmup.toMillis() / 1000.0);
+            runStep(options.rates.get(0), options.warmup);
+        }
+        for (int rate : options.rates) {
+            LoadStepResult step = runStep(rate, options.duration);
+            print(step);
+            result.getSteps().add(step);
+        }
+        return result;
+    }
+
+    /** 1つの到着率で指定時間セッションを開始し、完了を待って集計します */
+    private LoadStepResult runStep(int rate, Duration duration) throws InterruptedException {
+        LatencyRecorder recorder = new LatencyRecorder(QuizSessions.OPERATIONS);
+        AtomicInteger threads = new AtomicInteger();
+        ThreadPoolExecutor workers = new ThreadPoolExecutor(options.concurrency, options.concurrency,
+                0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), task -> {
+            Thread thread = new Thread(task, "loadtest-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        AtomicLong scheduled = new AtomicLong();
+        int backlog = 0;
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+        if (rate > 0) {
+            // open-loop：開始予定時刻は応答に関係なく一定間隔で決まる（遅れても詰めて送信し、遅れは応答時間に含める）
+            for (long i = 0; ; i++) {
+                long intendedStart = start + i * 1_000_000_000L / rate;
+                if (intendedStart >= end) {
+                    break;
+                }
+                long wait;
+                while ((wait = intendedStart - System.nanoTime()) > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+                scheduled.incrementAndGet();
+                workers.execute(() -> runSession(intendedStart, recorder));
+            }
+            backlog = workers.getQueue().size();
+        } else {
+            // closed-loop：前のセッションが完了してから次のセッションを開始する
+            for (int i = 0; i < options.concurrency; i++) {
+                workers.execute(() -> {
+                    while (System.nanoTime() < end && !Thread.currentThread().isInterrupted()) {
+                        scheduled.incrementAndGet();
+                        runSession(System.nanoTime(), recorder);
+                    }
+                });
+            }
+        }
+        workers.shutdown();
+        long remaining = end - System.nanoTime() + options.drain.toNanos();
+        if (!workers.awaitTermination(Math.max(0, remaining), TimeUnit.NANOSECONDS)) {
+            // 待機中のセッションは開始せず、実行中のセッションは中断する
+            workers.shutdownNow();
+            workers.awaitTermination(options.timeout.toNanos(), TimeUnit.NANOSECONDS);
+        }
+        double elapsed = (System.nanoTime() - start) / 1e9;
+
+        LoadStepResult step = new LoadStepResult();
+        step.setTargetRate(rate);
+        step.setElapsed(elapsed);
+        step.setSessions(scheduled.get());
+        step.setCompletedSessions(recorder.count(QuizSessions.PLAYER_SESSION) + recorder.count(QuizSessions.AUTHOR_SESSION));
+        step.setUnfinishedSessions(step.getSessions() - step.getCompletedSessions());
+        step.setBacklog(backlog);
+        step.setSessionThroughput(step.getCompletedSessions() / elapsed);
+        long requests = 0;
+        for (String name : QuizSessions.REQUESTS) {
+            requests += recorder.count(name);
+        }
+        step.setThroughput(requests / elapsed);
+        step.setSaturated(backlog > 0 || step.getUnfinishedSessions() > 0);
+        step.setOperations(recorder.results());
+        return step;
+    }
+
+    /** セッションを実行します（中断された場合は記録しない） */
+    private void runSession(long intendedStart, LatencyRecorder recorder) {
+        try {
+            sessions.run(intendedStart, recorder);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private String label(int rate) {
+        return rate > 0 ? "到着率 " + rate + "セッション/秒（同時実行数の上限 " + options.concurrency + "）"
+                : "closed-loop（同時実行数 " + options.concurrency + "）";
+    }
+
+    private void print(LoadStepResult step) {
+        System.out.printf("%n%s%s%n", label(step.getTargetRate()), step.isSaturated() ? "：飽和" : "");
+        System.out.printf("セッション：%d（完了 %d・未完了 %d・終了時点の開始待ち %d）、%.1fセッション/秒、%.1fリクエスト/秒（%.1f秒）%n",
+                step.getSessions(), step.getCompletedSessions(), step.getUnfinishedSessions(), step.getBacklog(),
+                step.getSessionThroughput(), step.getThroughput(), step.getElapsed());
+        System.out.printf("%-16s %9s %7s %9s %9s %9s %9s %9s %9s  (ms)%n",
+                "operation", "count", "errors", "mean", "p50", "p90", "p99", "p99.9", "max");
+        step.getOperations().forEach((name, o) -> System.out.printf(
+                "%-16s %9d %7d %9.2f %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+                name, o.getCount(), o.getErrors(), o.getMean(), o.getP50(), o.getP90(), o.getP99(), o.getP999(), o.getMax()));
+    }
+}
@@ -0,0 +1,164 @@
+package com.example.quiz.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 負荷試験で実行するセッション。
+ * プレイヤー：出題画面（/quiz/play）を表示して解答（/quiz/check）を指定回数繰り返す（セッションのCookieを引き継ぐ）。
+ * 作成者：REST APIでクイズを登録・取得・更新・削除する（クイズの件数は変わらない）。
+ */
+class QuizSessions {
+    static final String PLAY = "play";
+    static final String CHECK = "check";
+    static final String PLAYER_SESSION = "player-session";
+    static final String INSERT = "insert";
+    static final String SELECT = "select";
+    static final String UPDATE = "update";
+    static final String DELETE = "delete";
+    static final String AUTHOR_SESSION = "author-session";
+    /** 記録する操作（出力順） */
+    static final String[] OPERATIONS = {PLAY, CHECK, INSERT, SELECT, UPDATE, DELETE, PLAYER_SESSION, AUTHOR_SESSION};
+    /** リクエスト1件の操作 */
+    static final String[] REQUESTS = {PLAY, CHECK, INSERT, SELECT, UPDATE, DELETE};
+
+    /** 出題画面のクイズのid */
+    private static final Pattern QUIZ_ID = Pattern.compile("name=\"id\" value=\"(\\d+)\"");
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final HttpClient client;
+    private final String baseUrl;
+    private final LoadOptions options;
+
+    QuizSessions(HttpClient client, String baseUrl, LoadOptions options) {
+        this.client = client;
+        this.baseUrl = baseUrl;
+        this.options = options;
+    }
+
+    /** 開始予定時刻（System.nanoTime）のセッションを、比率に応じてプレイヤー・作成者のいずれかで実行します */
+    void run(long intendedStart, LatencyRecorder recorder) throws InterruptedException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        if (random.nextInt(options.playerWeight + options.authorWeight) < options.playerWeight) {
+            player(intendedStart, recorder, random);
+        } else {
+            author(intendedStart, recorder);
+        }
+    }
+
+    /** 出題・解答を繰り返します（最初の出題は開始予定時刻から、以降は送信時刻から計測） */
+    private void player(long intendedStart, LatencyRecorder recorder, ThreadLocalRandom random) throws InterruptedException {
+        String player = "player" + random.nextInt(options.players);
+        String cookie = null;
+        boolean success = true;
+        long start = intendedStart;
+        for (int round = 0; round < options.rounds && success; round++) {
+            if (round > 0) {
+                if (!options.thinkTime.isZero()) {
+                    Thread.sleep(options.thinkTime.toMillis());
+                }
+                start = System.nanoTime();
+            }
+            HttpResponse<String> play = send(request("/quiz/play", cookie).GET(), HttpResponse.BodyHandlers.ofString());
+            Matcher id = play != null && play.statusCode() == 200 ? QUIZ_ID.matcher(play.body()) : null;
+            success = id != null && id.find();
+            recorder.record(PLAY, start, success);
+            if (!success) {
+                break;
+            }
+            start = System.nanoTime();
+            String form = "id=" + id.group(1) + "&answer=" + random.nextBoolean()
+                    + "&player=" + URLEncoder.encode(player, StandardCharsets.UTF_8);
+            HttpResponse<Void> check = send(request("/quiz/check", cookie)
+                    .header("Content-Type", "application/x-www-form-urlencoded")
+                    .POST(HttpRequest.BodyPublishers.ofString(form)), HttpResponse.BodyHandlers.discarding());
+            success = check != null && check.statusCode() == 200;
+            recorder.record(CHECK, start, success);
+            if (check != null) {
+                cookie = check.headers().firstValue("Set-Cookie").map(c -> c.split(";", 2)[0]).orElse(cookie);
+            }
+        }
+        recorder.record(PLAYER_SESSION, intendedStart, success);
+    }
+
+    /** 登録・取得・更新・削除を行います（登録は開始予定時刻から、以降は送信時刻から計測） */
+    private void author(long intendedStart, LatencyRecorder recorder) throws InterruptedException {
+        HttpResponse<String> insert = send(json("/api/quizzes", false, true, null), HttpResponse.BodyHandlers.ofString());
+        JsonNode inserted = insert != null && insert.statusCode() == 201 ? parse(insert.body()) : null;
+        boolean success = inserted != null && inserted.hasNonNull("id");
+        recorder.record(INSERT, intendedStart, success);
+        if (success) {
+            int id = inserted.get("id").asInt();
+            long start = System.nanoTime();
+            HttpResponse<String> select = send(request("/api/quizzes/" + id, null).GET(), HttpResponse.BodyHandlers.ofString());
+            JsonNode selected = select != null && select.statusCode() == 200 ? parse(select.body()) : null;
+            success = selected != null;
+            recorder.record(SELECT, start, success);
+            if (success) {
+                start = System.nanoTime();
+                HttpResponse<Void> update = send(json("/api/quizzes/" + id, true, false, selected.path("version").asInt()),
+                        HttpResponse.BodyHandlers.discarding());
+                success = update != null && update.statusCode() == 200;
+                recorder.record(UPDATE, start, success);
+            }
+            // 取得・更新に失敗した場合も、クイズの件数を変えないために削除する
+            start = System.nanoTime();
+            HttpResponse<Void> delete = send(request("/api/quizzes/" + id, null).DELETE(), HttpResponse.BodyHandlers.discarding());
+            boolean deleted = delete != null && delete.statusCode() == 204;
+            recorder.record(DELETE, start, deleted);
+            success &= deleted;
+        }
+        recorder.record(AUTHOR_SESSION, intendedStart, success);
+    }
+
+    private HttpRequest.Builder request(String path, String cookie) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + path)).timeout(options.timeout);
+        return cookie == null ? builder : builder.header("Cookie", cookie);
+    }
+
+    /** 登録（POST）・更新（PUT、版数を指定）のリクエスト */
+    private HttpRequest.Builder json(String path, boolean put, boolean answer, Integer version) {
+        Map<String, Object> quiz = version == null
+                ? Map.of("question", "負荷試験のクイズ", "answer", answer, "author", "loadtest")
+                : Map.of("question", "負荷試験のクイズ（更新）", "answer", answer, "author", "loadtest", "version", version);
+        HttpRequest.BodyPublisher body;
+        try {
+            body = HttpRequest.BodyPublishers.ofString(MAPPER.writeValueAsString(quiz));
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        HttpRequest.Builder builder = request(path, null).header("Content-Type", "application/json");
+        return put ? builder.PUT(body) : builder.POST(body);
+    }
+
+    /** 送信します。接続できない・タイムアウトなどの場合はnullを返却します */
+    private <T> HttpResponse<T> send(HttpRequest.Builder request, HttpResponse.BodyHandler<T> handler)
+            throws InterruptedException {
+        try {
+            return client.send(request.build(), handler);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /** JSONを解析します。解析できない場合はnullを返却します */
+    private static JsonNode parse(String body) {
+        try {
+            return MAPPER.readTree(body);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.quiz.config;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 同時に使用する接続数を制限するDataSource（接続プールの最大接続数に合わせて指定）。
+ * 仮想スレッドのようにリクエストの同時実行数がスレッド数で制限されない場合に、接続プールの前で到着順に待たせ、
+ * 待っているリクエストが上限を超えた場合や待ち時間が長引いた場合は、プールで接続待ちのまま滞留させずに503を返却します。
+ * 接続はトランザクションで最初にSQLを実行するときに取得するため、DBを使用しない処理（解答キャッシュのヒット等）は制限されません。
+ * 接続を使用中のスレッドが別のトランザクション（コミット後のイベント処理のREQUIRES_NEW等）で取得する接続は数えません。
+ * 上限を最大接続数の半分以下にすると、同時に2つの接続を使用する処理がプールで互いに待ち合うことがなくなります。
+ */
+public class ConcurrencyLimitedDataSource extends DelegatingDataSource {
+    /** 同時に使用できる接続数（到着順） */
+    private final Semaphore permits;
+    /** 接続を待つリクエスト数の上限 */
+    private final int maxWaiting;
+    /** 接続を待つ時間の上限 */
+    private final long timeoutNanos;
+    /** スレッドごとの使用中の接続数（1以上の場合は上限に数えずに取得する） */
+    private final ThreadLocal<int[]> held = ThreadLocal.withInitial(() -> new int[1]);
+
+    public ConcurrencyLimitedDataSource(DataSource target, int maxConcurrency, int maxWaiting, Duration timeout) {
+        super(target);
+        this.permits = new Semaphore(maxConcurrency, true);
+        this.maxWaiting = maxWaiting;
+        this.timeoutNanos = timeout.toNanos();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        int[] count = held.get();
+        boolean permitted = acquire(count);
+        try {
+            return track(super.getConnection(), count, permitted);
+        } catch (SQLException | RuntimeException e) {
+            release(count, permitted);
+            throw e;
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        int[] count = held.get();
+        boolean permitted = acquire(count);
+        try {
+            return track(super.getConnection(username, password), count, permitted);
+        } catch (SQLException | RuntimeException e) {
+            release(count, permitted);
+            throw e;
+        }
+    }
+
+    /** 接続を待っているリクエスト数 */
+    public int getWaiting() {
+        return permits.getQueueLength();
+    }
+
+    /** 使用できる接続数 */
+    public int getAvailable() {
+        return permits.availablePermits();
+    }
+
+    /** 上限に数える場合はtrueを返却します（このスレッドで使用中の接続がある場合は待たずにfalse） */
+    private boolean acquire(int[] count) throws SQLException {
+        if (count[0] > 0) {
+            count[0]++;
+            return false;
+        }
+        if (!permits.tryAcquire()) {
+            await();
+        }
+        count[0]++;
+        return true;
+    }
+
+    /** 取得したスレッドの使用中の接続数を減らし、上限に数えていた場合は返却します */
+    private void release(int[] count, boolean permitted) {
+        count[0]--;
+        if (permitted) {
+            permits.release();
+        }
+    }
+
+    private void await() throws SQLException {
+        if (permits.getQueueLength() >= maxWaiting) {
+            throw new DataSourceBusyException("接続を待っているリクエストが上限（" + maxWaiting + "）に達しています");
+        }
+        try {
+            if (!permits.tryAcquire(timeoutNanos, TimeUnit.NANOSECONDS)) {
+                throw new DataSourceBusyException("接続を" + timeoutNanos / 1_000_000 + "ms以内に取得できませんでした");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DataSourceBusyException("接続の待機中に割り込まれました");
+        }
+    }
+
+    /** 接続を閉じたときに使用中の接続数を減らすよう包みます */
+    private Connection track(Connection connection, int[] count, boolean permitted) {
+        AtomicBoolean closed = new AtomicBoolean();
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[] {Connection.class},
+                (proxy, method, args) -> {
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getTargetException();
+                    } finally {
+                        if ("close".equals(method.getName()) && closed.compareAndSet(false, true)) {
+                            release(count, permitted);
+                        }
+                    }
+                });
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.quiz.config;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+import java.sql.SQLTransientConnectionException;
+
+/** 同時に使用する接続数の上限に達していて、接続を取得できなかった（503。しばらく待てば成功する可能性がある） */
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class DataSourceBusyException extends SQLTransientConnectionException {
+
+    public DataSourceBusyException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.quiz.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.support.JdbcTransactionManager;
+
+import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * JDBC接続の設定。
+ * R2DBC（ConnectionFactory・ReactiveTransactionManager）があると、自動設定ではJDBC用のDataSourceと
+ * トランザクション管理が作成されないため、spring.datasource.* の設定から明示的に定義します。
+ */
+@Configuration
+@EnableConfigurationProperties(DataSourceProperties.class)
+public class DataSourceConfig {
+
+    /** レプリカへの振り分け（quiz.datasource.replica-urls を指定しない場合はnull） */
+    private ReplicaRoutingDataSource replicaRoutingDataSource;
+
+    /** プライマリ（書き込み用）のDataSource（接続プールの設定は spring.datasource.hikari.*） */
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    /**
+     * JDBC用のDataSource。接続はトランザクションで最初にSQLを実行するときに取得します。
+     * quiz.datasource.replica-urls を指定した場合、読み取り専用トランザクションはレプリカで処理します
+     * （ユーザー名・パスワード・最大接続数はプライマリの設定を使用）。
+     * レプリカの接続プールはBeanではないため、メトリクス（hikaricp.connections.*、tag：pool=replica-N）の登録と
+     * 終了時のクローズはここで行います。
+     * quiz.datasource.max-concurrency を指定した場合、プライマリで同時に使用する接続数を制限します（ConcurrencyLimitedDataSource）。
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource primaryDataSource,
+                                 @Value("${quiz.datasource.replica-urls:}") List<String> replicaUrls,
+                                 @Value("${quiz.datasource.replica-connection-timeout:1s}") Duration connectionTimeout,
+                                 @Value("${quiz.datasource.replica-retry-interval:10s}") Duration retryInterval,
+                                 @Value("${quiz.datasource.max-concurrency:0}") int maxConcurrency,
+                                 @Value("${quiz.datasource.max-waiting:1000}") int maxWaiting,
+                                 @Value("${quiz.datasource.acquire-timeout:5s}") Duration acquireTimeout,
+                                 ObjectProvider<MeterRegistry> meterRegistry) {
+        DataSource primary = maxConcurrency > 0
+                ? new ConcurrencyLimitedDataSource(primaryDataSource, maxConcurrency, maxWaiting, acquireTimeout)
+                : primaryDataSource;
+        if (replicaUrls.isEmpty()) {
+            return new LazyConnectionDataSourceProxy(primary);
+        }
+        List<DataSource> replicas = new ArrayList<>();
+        for (String url : replicaUrls) {
+            HikariDataSource replica = DataSourceBuilder.create().type(HikariDataSource.class)
+                    .driverClassName(primaryDataSource.getDriverClassName())
+                    .url(url)
+                    .username(primaryDataSource.getUsername())
+                    .password(primaryDataSource.getPassword())
+                    .build();
+            replica.setPoolName("replica-" + replicas.size());
+            if (primaryDataSource.getMaximumPoolSize() > 0) {
+                replica.setMaximumPoolSize(primaryDataSource.getMaximumPoolSize());
+            }
+            replica.setConnectionTimeout(connectionTimeout.toMillis());
+            replica.setReadOnly(true);
+            meterRegistry.ifAvailable(registry -> replica.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry)));
+            replicas.add(replica);
+        }
+        replicaRoutingDataSource = new ReplicaRoutingDataSource(primary, replicas, retryInterval);
+        return new LazyConnectionDataSourceProxy(replicaRoutingDataSource);
+    }
+
+    /** 終了時にレプリカの接続プールを閉じます（DataSourceを使用するBeanの終了後に呼ばれる） */
+    @PreDestroy
+    public void closeReplicas() throws Exception {
+        if (replicaRoutingDataSource != null) {
+            replicaRoutingDataSource.destroy();
+        }
+    }
+
+    /** JDBC用のトランザクション管理（@Transactionalの既定） */
+    @Bean
+    @Primary
+    public JdbcTransactionManager transactionManager(DataSource dataSource) {
+        return new JdbcTransactionManager(dataSource);
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.quiz.config;
+
+import com.example.quiz.controller.QuizController;
+import com.example.quiz.service.QuizAnswerCache;
+import com.example.quiz.service.QuizAnswerStats;
+import com.example.quiz.service.QuizLeaderboard;
+import com.example.quiz.service.QuizMetrics;
+import com.example.quiz.service.QuizSelectionStrategy;
+import com.example.quiz.service.QuizService;
+import com.example.quiz.service.QuizSnapshot;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+import org.thymeleaf.ITemplateEngine;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 高速起動モードの設定（quiz.fast-start.enabled=true の場合のみ有効。faststartプロファイルで指定）。
+ * spring.main.lazy-initialization=true で一覧・登録・出力などのBeanは最初に使用するまで作成せず、
+ * 出題・解答チェックで使用するBeanのみ起動時に作成します。
+ * 起動後、受付可能（readiness）になる前に /quiz/play を1回処理して、接続プール・テンプレートなどを準備します。
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(name = "quiz.fast-start.enabled", havingValue = "true")
+public class FastStartConfig {
+
+    /** 準備後に終了する（CDSアーカイブを作成するための学習用の起動） */
+    @Value("${quiz.fast-start.exit-after-warmup:false}")
+    boolean exitAfterWarmup;
+    /** 準備のリクエストのタイムアウト */
+    @Value("${quiz.fast-start.warmup-timeout:30s}")
+    Duration warmupTimeout;
+
+    /** 準備のリクエストが成功した回数 */
+    private final AtomicInteger warmups = new AtomicInteger();
+
+    /** 出題・解答チェックで使用するBeanは遅延させない */
+    @Bean
+    public static LazyInitializationExcludeFilter playPathLazyInitializationExcludeFilter() {
+        return LazyInitializationExcludeFilter.forBeanTypes(QuizController.class, QuizService.class,
+                QuizAnswerCache.class, QuizAnswerStats.class, QuizLeaderboard.class, QuizSnapshot.class,
+                QuizSelectionStrategy.class, QuizMetrics.class, ITemplateEngine.class);
+    }
+
+    /** /quiz/play を1回処理します（ApplicationReadyEventの処理中のため、完了するまで受付可能にならない） */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp(ApplicationReadyEvent event) {
+        ConfigurableApplicationContext context = event.getApplicationContext();
+        if (context instanceof WebServerApplicationContext) {
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            long start = System.nanoTime();
+            try {
+                HttpResponse<Void> response = HttpClient.newBuilder().connectTimeout(warmupTimeout).build().send(
+                        HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/quiz/play"))
+                                .timeout(warmupTimeout).GET().build(),
+                        HttpResponse.BodyHandlers.discarding());
+                if (response.statusCode() == 200) {
+                    warmups.incrementAndGet();
+                    log.info("/quiz/play の準備が完了しました（{}ms）", (System.nanoTime() - start) / 1_000_000);
+                } else {
+                    log.warn("/quiz/play の準備に失敗しました（ステータス：{}）", response.statusCode());
+                }
+            } catch (IOException e) {
+                log.warn("/quiz/play の準備に失敗しました：{}", e.getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (exitAfterWarmup) {
+            log.info("準備が完了したため終了します（quiz.fast-start.exit-after-warmup=true）");
+            System.exit(SpringApplication.exit(context));
+        }
+    }
+
+    /** 準備のリクエストが成功した回数 */
+    public int warmupCount() {
+        return warmups.get();
+    }
+}
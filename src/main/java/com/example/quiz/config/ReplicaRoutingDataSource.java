@@ -0,0 +1,124 @@
+package com.example.quiz.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 読み取り専用トランザクションの接続をレプリカから取得するDataSource。
+ * レプリカは使用中の接続が最も少ないものを選び（同数の場合は順番に）、接続できなかったレプリカは
+ * 一定時間使用しません。使用できるレプリカがない場合や、読み取り専用でない場合はプライマリから取得します。
+ * 接続の取得時にトランザクションが読み取り専用かを判定するため、LazyConnectionDataSourceProxyで包んで使用すること。
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractDataSource implements DisposableBean {
+    /** 書き込み用 */
+    private final DataSource primary;
+    /** 読み取り専用 */
+    private final List<DataSource> replicas;
+    /** レプリカごとの使用中の接続数 */
+    private final AtomicIntegerArray active;
+    /** レプリカごとの再び使用する時刻（System.nanoTime()、0：使用可能） */
+    private final AtomicLongArray downUntil;
+    /** 使用中の接続数が同じレプリカを順番に選ぶためのカウンタ */
+    private final AtomicInteger next = new AtomicInteger();
+    /** 接続できなかったレプリカを再び使用するまでの間隔 */
+    private final long retryIntervalNanos;
+
+    public ReplicaRoutingDataSource(DataSource primary, List<DataSource> replicas, Duration retryInterval) {
+        this.primary = primary;
+        this.replicas = List.copyOf(replicas);
+        this.active = new AtomicIntegerArray(replicas.size());
+        this.downUntil = new AtomicLongArray(replicas.size());
+        this.retryIntervalNanos = retryInterval.toNanos();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            Connection connection = replicaConnection();
+            if (connection != null) {
+                return connection;
+            }
+        }
+        return primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return primary.getConnection(username, password);
+    }
+
+    /** 使用中の接続が最も少ないレプリカから接続を取得します。取得できない場合はnullを返却します */
+    private Connection replicaConnection() {
+        int size = replicas.size();
+        int offset = Math.floorMod(next.getAndIncrement(), size);
+        for (int attempt = 0; attempt < size; attempt++) {
+            long now = System.nanoTime();
+            int chosen = -1;
+            for (int i = 0; i < size; i++) {
+                int index = (offset + i) % size;
+                long until = downUntil.get(index);
+                if (until != 0 && now - until < 0) {
+                    continue;
+                }
+                if (chosen < 0 || active.get(index) < active.get(chosen)) {
+                    chosen = index;
+                }
+            }
+            if (chosen < 0) {
+                return null;
+            }
+            try {
+                Connection connection = replicas.get(chosen).getConnection();
+                downUntil.set(chosen, 0);
+                return track(connection, chosen);
+            } catch (SQLException | RuntimeException e) {
+                // 接続できないレプリカは一定時間使用しない
+                downUntil.set(chosen, (now + retryIntervalNanos) | 1);
+                log.warn("レプリカ{}に接続できないため、{}秒間使用しません：{}", chosen, retryIntervalNanos / 1_000_000_000, e.getMessage());
+            }
+        }
+        return null;
+    }
+
+    /** 接続を閉じたときに使用中の接続数を減らすよう包みます */
+    private Connection track(Connection connection, int index) {
+        active.incrementAndGet(index);
+        AtomicBoolean closed = new AtomicBoolean();
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[] {Connection.class},
+                (proxy, method, args) -> {
+                    if ("close".equals(method.getName()) && closed.compareAndSet(false, true)) {
+                        active.decrementAndGet(index);
+                    }
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getTargetException();
+                    }
+                });
+    }
+
+    /** レプリカの接続プールを閉じます（プライマリはBeanとして閉じられる） */
+    @Override
+    public void destroy() throws Exception {
+        for (DataSource replica : replicas) {
+            if (replica instanceof AutoCloseable) {
+                ((AutoCloseable) replica).close();
+            }
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.quiz.config;
+
+import java.util.Optional;
+
+import com.example.quiz.repository.QuizRepository;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.context.annotation.Primary;
+import org.springframework.data.jdbc.core.convert.JdbcCustomConversions;
+import org.springframework.data.jdbc.core.mapping.JdbcMappingContext;
+import org.springframework.data.jdbc.repository.config.AbstractJdbcConfiguration;
+import org.springframework.data.jdbc.repository.config.EnableJdbcRepositories;
+import org.springframework.data.r2dbc.repository.config.EnableR2dbcRepositories;
+import org.springframework.data.relational.core.mapping.NamingStrategy;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+
+/**
+ * Repositoryの設定。
+ * JDBCとR2DBCを併用するため、ReactiveCrudRepositoryを継承するものだけをR2DBC、それ以外をJDBCに割り当てます。
+ * reactiveプロファイルではMappingContextも2つ登録されるため、JDBC側を@Primaryにします。
+ */
+@Configuration
+@EnableJdbcRepositories(basePackageClasses = QuizRepository.class,
+        excludeFilters = @ComponentScan.Filter(type = FilterType.ASSIGNABLE_TYPE, classes = ReactiveCrudRepository.class))
+public class RepositoryConfig extends AbstractJdbcConfiguration {
+
+    /** R2DBCのRepositoryはreactiveプロファイルで起動した場合のみ登録する */
+    @Configuration
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+    @EnableR2dbcRepositories(basePackageClasses = QuizRepository.class,
+            includeFilters = @ComponentScan.Filter(type = FilterType.ASSIGNABLE_TYPE, classes = ReactiveCrudRepository.class))
+    static class ReactiveRepositoryConfig {
+    }
+
+    @Bean
+    @Primary
+    @Override
+    public JdbcMappingContext jdbcMappingContext(Optional<NamingStrategy> namingStrategy,
+            JdbcCustomConversions customConversions) {
+        return super.jdbcMappingContext(namingStrategy, customConversions);
+    }
+}
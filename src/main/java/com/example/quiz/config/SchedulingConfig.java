@@ -0,0 +1,10 @@
+package com.example.quiz.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/** 定期処理（解答の統計の書き込みなど）を有効にする設定 */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
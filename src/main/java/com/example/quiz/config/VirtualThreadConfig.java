@@ -0,0 +1,50 @@
+package com.example.quiz.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * リクエスト処理を仮想スレッドで行う設定（quiz.virtual-threads.enabled=true の場合のみ有効）。
+ * Controllerから呼び出す@Transactionalのサービス処理も、リクエストと同じ仮想スレッドで実行されます。
+ * 仮想スレッドはJava 21以上で使用できるため、Java 17でもビルドできるようリフレクションで生成します。
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(name = "quiz.virtual-threads.enabled", havingValue = "true")
+public class VirtualThreadConfig {
+
+    /** タスクごとに仮想スレッドを生成するExecutor */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService virtualThreadExecutor() {
+        try {
+            ExecutorService executor = (ExecutorService) Executors.class
+                    .getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            log.info("リクエストを仮想スレッドで処理します");
+            return executor;
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException("仮想スレッドを使用するにはJava 21以上で起動してください", e);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("仮想スレッドのExecutorを生成できませんでした", e);
+        }
+    }
+
+    /** Tomcatのリクエスト処理を仮想スレッドで行う */
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer(ExecutorService virtualThreadExecutor) {
+        return protocolHandler -> protocolHandler.setExecutor(virtualThreadExecutor);
+    }
+
+    /** 非同期処理（一括出力のStreamingResponseBody等）も仮想スレッドで行う */
+    @Bean(name = {"applicationTaskExecutor", "taskExecutor"})
+    public AsyncTaskExecutor applicationTaskExecutor(ExecutorService virtualThreadExecutor) {
+        return new TaskExecutorAdapter(virtualThreadExecutor);
+    }
+}
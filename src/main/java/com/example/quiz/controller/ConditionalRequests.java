@@ -0,0 +1,29 @@
+package com.example.quiz.controller;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.support.RequestContextUtils;
+
+import java.util.Map;
+
+/** 画面・REST APIで共通の条件付きGET（ETag・Last-Modified） */
+final class ConditionalRequests {
+
+    private ConditionalRequests() {
+    }
+
+    /**
+     * ETag・Last-Modifiedを設定し、リクエストのIf-None-Match（ない場合はIf-Modified-Since）と一致すれば304を設定してtrueを返却します。
+     * ブラウザ・クライアントには毎回確認させます（Cache-Control: no-cache, private）。
+     * リダイレクト後のメッセージ（フラッシュスコープ）がある場合は、キャッシュと異なる内容になるため常にfalseを返却します。
+     */
+    static boolean isNotModified(ServletWebRequest webRequest, String etag, long lastModified) {
+        webRequest.getResponse().setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noCache().cachePrivate().getHeaderValue());
+        Map<String, ?> flash = RequestContextUtils.getInputFlashMap(webRequest.getRequest());
+        if (flash != null && !flash.isEmpty()) {
+            return false;
+        }
+        return webRequest.checkNotModified(etag, lastModified);
+    }
+}
@@ -1,30 +1,75 @@
 package com.example.quiz.controller;
 
 import com.example.quiz.entity.Quiz;
+import com.example.quiz.entity.QuizPlayerScore;
+import com.example.quiz.entity.QuizStats;
 import com.example.quiz.form.QuizForm;
+import com.example.quiz.service.QuizBulkResult;
+import com.example.quiz.service.QuizExportService;
+import com.example.quiz.service.QuizImportResult;
+import com.example.quiz.service.QuizImportService;
+import com.example.quiz.service.QuizLeaderboard;
+import com.example.quiz.service.QuizSearchResult;
 import com.example.quiz.service.QuizService;
+import com.example.quiz.service.QuizVersionTracker;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.context.MessageSource;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
+import org.springframework.util.StringUtils;
 import org.springframework.validation.BindingResult;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
+import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Locale;
 import java.util.Optional;
+import java.util.zip.GZIPOutputStream;
 
 /** Quizコントローラ */
 @Controller
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @RequestMapping("/quiz")
 public class QuizController {
+    /** 一括登録の結果画面に表示するエラーの上限 */
+    private static final int MAX_IMPORT_ERRORS = 20;
+    /** プレイヤー名を保持するセッション属性 */
+    static final String PLAYER_ATTRIBUTE = "player";
+
     /** DI対象 */
     @Autowired
     QuizService quizService;
+    /** DI対象 */
+    @Autowired
+    QuizImportService quizImportService;
+    /** DI対象 */
+    @Autowired
+    QuizExportService quizExportService;
+    /** 一覧・クイズごとの版数（ETag用） */
+    @Autowired
+    QuizVersionTracker quizVersionTracker;
     /** メッセージ管理 */
     @Autowired
     private MessageSource messageSource;
+    /** 一覧の1ページあたりの件数 */
+    @Value("${quiz.list.page-size:20}")
+    private int pageSize;
 
     /** 「form-backing bean」の初期化 */
     @ModelAttribute
@@ -35,20 +80,90 @@ public class QuizController {
         return form;
     }
 
-    /** クイズの一覧を表示 */
+    /** クイズの一覧を表示（一覧が変更されていなければ、DBから取得せず304を返却） */
     @GetMapping
-    public String showList(QuizForm quizForm, Model model) {
+    public String showList(QuizForm quizForm, @RequestParam(required = false) Integer after,
+                           @RequestParam(defaultValue = "false") boolean all,
+                           ServletWebRequest webRequest, Model model) {
+        if (ConditionalRequests.isNotModified(webRequest, quizVersionTracker.catalogueETag(), quizVersionTracker.catalogueLastModified())) {
+            return null;
+        }
+        return renderList(quizForm, after, all, model);
+    }
+
+    /** クイズの一覧を表示 */
+    private String renderList(QuizForm quizForm, Integer after, boolean all, Model model) {
         // 新規登録設定
         quizForm.setNewQuiz(true);
-        // 一覧を取得
-        Iterable<Quiz> list = quizService.selectAll();
+        if (all) {
+            // 全件表示：チャンク単位で取得しながら描画する
+            model.addAttribute("list", quizService.selectAllInChunks(pageSize));
+            model.addAttribute("paged", true);
+        } else {
+            // 1ページ分を取得（次ページの有無判定のため1件多く取得する）
+            List<Quiz> list = quizService.selectPage(after, pageSize + 1);
+            if (list.size() > pageSize) {
+                list = list.subList(0, pageSize);
+                model.addAttribute("nextCursor", list.get(pageSize - 1).getId());
+            }
+            model.addAttribute("list", list);
+            model.addAttribute("paged", after != null);
+        }
         // 表示用「Model」への格納
-        model.addAttribute("list", list);
         model.addAttribute("title", messageSource.getMessage("title.input", new String[] {}, Locale.getDefault()));
         model.addAttribute("noListMsg", messageSource.getMessage("no.list.msg", new String[] {}, Locale.getDefault()));
         return "crud";
     }
 
+    /** クイズを検索し、一覧に表示 */
+    @GetMapping("/search")
+    public String search(QuizForm quizForm, @RequestParam(defaultValue = "") String q,
+                         @RequestParam(defaultValue = "0") int page, Model model) {
+        // 新規登録設定
+        quizForm.setNewQuiz(true);
+        page = Math.max(page, 0);
+        QuizSearchResult result = quizService.searchQuizzes(q, page, pageSize);
+        model.addAttribute("list", result.getQuizzes());
+        model.addAttribute("query", q);
+        model.addAttribute("searchMsg", messageSource.getMessage(result.isTruncated() ? "search.truncated.msg" : "search.result.msg",
+                new Object[] {q, result.getTotal()}, Locale.getDefault()));
+        // ページ移動
+        if (page > 0) {
+            model.addAttribute("prevPage", page - 1);
+        }
+        if ((long) (page + 1) * pageSize < result.getTotal()) {
+            model.addAttribute("nextPage", page + 1);
+        }
+        // 表示用「Model」への格納
+        model.addAttribute("title", messageSource.getMessage("title.input", new String[] {}, Locale.getDefault()));
+        model.addAttribute("noListMsg", messageSource.getMessage(result.isReady() ? "no.search.msg" : "search.indexing.msg",
+                new String[] {}, Locale.getDefault()));
+        return "crud";
+    }
+
+    /** 解答の統計を難易度順（order=hard：難しい順、easy：易しい順）に表示 */
+    @GetMapping("/stats")
+    public String stats(@RequestParam(defaultValue = "hard") String order,
+                        @RequestParam(defaultValue = "0") int page, Model model) {
+        boolean hardestFirst = !"easy".equals(order);
+        page = Math.max(page, 0);
+        // 次のページの有無を判定するため1件多く取得する
+        List<QuizStats> stats = quizService.selectStats(hardestFirst, page, pageSize + 1);
+        if (stats.size() > pageSize) {
+            model.addAttribute("nextPage", page + 1);
+            stats = stats.subList(0, pageSize);
+        }
+        if (page > 0) {
+            model.addAttribute("prevPage", page - 1);
+        }
+        model.addAttribute("list", stats);
+        model.addAttribute("order", hardestFirst ? "hard" : "easy");
+        model.addAttribute("title", messageSource.getMessage(hardestFirst ? "title.stats.hard" : "title.stats.easy",
+                new String[] {}, Locale.getDefault()));
+        model.addAttribute("noListMsg", messageSource.getMessage("no.stats.msg", new String[] {}, Locale.getDefault()));
+        return "stats";
+    }
+
     /** Quizデータを1件挿入 */
     @PostMapping("/insert")
     public String insert(@Validated QuizForm quizForm, BindingResult bindingResult,
@@ -66,15 +181,68 @@ public class QuizController {
             return "redirect:/quiz";
         } else {
             // エラーがある場合は一覧表示処理を呼び出す。
-            return showList(quizForm, model);
+            return renderList(quizForm, null, false, model);
+        }
+    }
+
+    /** ファイル（CSV／JSON）からQuizデータを一括登録 */
+    @PostMapping("/import")
+    public String importQuizzes(@RequestParam("file") MultipartFile file,
+                                RedirectAttributes redirectAttributes) throws IOException {
+        // ファイル形式の判定（拡張子が「.json」の場合のみJSON）
+        QuizImportService.Format format = StringUtils.endsWithIgnoreCase(file.getOriginalFilename(), ".json")
+                ? QuizImportService.Format.JSON : QuizImportService.Format.CSV;
+        QuizImportResult result;
+        try (InputStream input = file.getInputStream()) {
+            result = quizImportService.importQuizzes(input, format);
+        }
+        // 結果をフラッシュスコープに格納してリダイレクト
+        redirectAttributes.addFlashAttribute("complete", messageSource.getMessage("complete.import.msg",
+                new Object[] {result.getInserted(), result.getFailed()}, Locale.getDefault()));
+        List<String> errors = result.getAllErrors();
+        if (!errors.isEmpty()) {
+            redirectAttributes.addFlashAttribute("importErrors",
+                    new ArrayList<>(errors.subList(0, Math.min(errors.size(), MAX_IMPORT_ERRORS))));
+        }
+        return "redirect:/quiz";
+    }
+
+    /** 全Quizデータをファイル（CSV／NDJSON、gzip圧縮可）として出力する */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> export(@RequestParam(defaultValue = "csv") String format,
+                                                        @RequestParam(defaultValue = "false") boolean gzip) {
+        QuizExportService.Format exportFormat = "ndjson".equalsIgnoreCase(format)
+                ? QuizExportService.Format.NDJSON : QuizExportService.Format.CSV;
+        String filename = exportFormat == QuizExportService.Format.NDJSON ? "quiz.ndjson" : "quiz.csv";
+        MediaType contentType = exportFormat == QuizExportService.Format.NDJSON
+                ? MediaType.parseMediaType("application/x-ndjson;charset=UTF-8")
+                : MediaType.parseMediaType("text/csv;charset=UTF-8");
+        if (gzip) {
+            filename += ".gz";
+            contentType = MediaType.parseMediaType("application/gzip");
         }
+        // DBから読み込みながらレスポンスに直接書き込む
+        StreamingResponseBody body = output -> {
+            OutputStream out = gzip ? new GZIPOutputStream(output, 65536) : output;
+            quizExportService.exportQuizzes(out, exportFormat);
+            if (out instanceof GZIPOutputStream) {
+                ((GZIPOutputStream) out).finish();
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(contentType)
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(filename).build().toString())
+                .body(body);
     }
 
-    /** クイズデータを1件取得し、フォーム内に表示する */
+    /** クイズデータを1件取得し、フォーム内に表示する（クイズが変更されていなければ、DBから取得せず304を返却） */
     @GetMapping("/{id}")
-    public String showUpdate(QuizForm quizForm, @PathVariable Integer id, Model model) {
-        // Quizを取得（Optionalでラップ）
-        Optional<Quiz> quizOpt = quizService.selectOneById(id);
+    public String showUpdate(QuizForm quizForm, @PathVariable Integer id, ServletWebRequest webRequest, Model model) {
+        if (ConditionalRequests.isNotModified(webRequest, quizVersionTracker.quizETag(id), quizVersionTracker.quizLastModified(id))) {
+            return null;
+        }
+        // Quizを取得（Optionalでラップ）。版数を更新に使用し、更新直後にも表示するためプライマリから取得する
+        Optional<Quiz> quizOpt = quizService.selectOneForUpdate(id);
         // QuizFormへの詰め直し
         Optional<QuizForm> quizFormOpt = quizOpt.map(t -> makeQuizForm(t));
         // QuizFormがnullでなければ中身を取り出す
@@ -103,8 +271,13 @@ public class QuizController {
         // 入力チェック
         if (!bindingResult.hasErrors()) {
             // 更新処理、フラッシュスコープの使用、リダイレクト（個々の編集ページ）
-            quizService.updateQuiz(quiz);
-            redirectAttributes.addFlashAttribute("complete", messageSource.getMessage("complete.update.msg", new String[] {}, Locale.getDefault()));
+            try {
+                String msgKey = quizService.updateQuiz(quiz) ? "complete.update.msg" : "complete.update.unchanged.msg";
+                redirectAttributes.addFlashAttribute("complete", messageSource.getMessage(msgKey, new String[] {}, Locale.getDefault()));
+            } catch (OptimisticLockingFailureException e) {
+                // 他の更新と競合した場合は、最新の内容を表示する
+                redirectAttributes.addFlashAttribute("conflict", messageSource.getMessage("update.conflict.msg", new String[] {}, Locale.getDefault()));
+            }
             // 更新画面を表示する
             return "redirect:/quiz/" + quiz.getId();
         } else {
@@ -122,6 +295,7 @@ public class QuizController {
         quiz.setQuestion(quizForm.getQuestion());
         quiz.setAnswer(quizForm.getAnswer());
         quiz.setAuthor(quizForm.getAuthor());
+        quiz.setVersion(quizForm.getVersion());
 
         return quiz;
     }
@@ -133,24 +307,67 @@ public class QuizController {
         quizForm.setQuestion(quiz.getQuestion());
         quizForm.setAnswer(quiz.getAnswer());
         quizForm.setAuthor(quiz.getAuthor());
+        quizForm.setVersion(quiz.getVersion());
 
         return quizForm;
     }
 
     /** idをkeyにしてデータを削除する */
     @PostMapping("/delete")
-    public String delete(@RequestParam("id") String id, Model model,
+    public String delete(@RequestParam("id") Integer id, Model model,
                          RedirectAttributes redirectAttributes) {
         // クイズを1件削除してリダイレクト
-        quizService.deleteQuizById(Integer.parseInt(id));
+        quizService.deleteQuizById(id);
         redirectAttributes.addFlashAttribute("delcomplete", messageSource.getMessage("complete.delete.msg", new String[] {}, Locale.getDefault()));
 
         return "redirect:/quiz";
     }
 
+    /** 選択したクイズの解答・作成者を一括変更（未指定の項目は変更しない） */
+    @PostMapping("/bulk/update")
+    public String bulkUpdate(@RequestParam(name = "ids", required = false) List<Integer> ids,
+                             @RequestParam(required = false) Boolean answer,
+                             @RequestParam(required = false) String author,
+                             RedirectAttributes redirectAttributes) {
+        if (ids == null || ids.isEmpty()) {
+            redirectAttributes.addFlashAttribute("msg", messageSource.getMessage("bulk.no.target.msg", new String[] {}, Locale.getDefault()));
+            return "redirect:/quiz";
+        }
+        QuizBulkResult result = quizService.updateQuizzes(ids, answer, StringUtils.hasText(author) ? author.trim() : null);
+        redirectAttributes.addFlashAttribute("delcomplete", messageSource.getMessage("complete.bulk.update.msg",
+                new Object[] {result.getRequested(), result.getAffected()}, Locale.getDefault()));
+        return "redirect:/quiz";
+    }
+
+    /** 選択したクイズを一括削除 */
+    @PostMapping("/bulk/delete")
+    public String bulkDelete(@RequestParam(name = "ids", required = false) List<Integer> ids,
+                             RedirectAttributes redirectAttributes) {
+        if (ids == null || ids.isEmpty()) {
+            redirectAttributes.addFlashAttribute("msg", messageSource.getMessage("bulk.no.target.msg", new String[] {}, Locale.getDefault()));
+            return "redirect:/quiz";
+        }
+        QuizBulkResult result = quizService.deleteQuizzesByIds(ids);
+        redirectAttributes.addFlashAttribute("delcomplete", messageSource.getMessage("complete.bulk.delete.msg",
+                new Object[] {result.getRequested(), result.getAffected()}, Locale.getDefault()));
+        return "redirect:/quiz";
+    }
+
+    /** 作成者のクイズを一括削除 */
+    @PostMapping("/bulk/delete-by-author")
+    public String bulkDeleteByAuthor(@RequestParam String author, RedirectAttributes redirectAttributes) {
+        QuizBulkResult result = quizService.deleteQuizzesByAuthor(author.trim());
+        redirectAttributes.addFlashAttribute("delcomplete", messageSource.getMessage("complete.bulk.delete.author.msg",
+                new Object[] {author.trim(), result.getAffected()}, Locale.getDefault()));
+        return "redirect:/quiz";
+    }
+
     /** Quizデータをランダムで1件取得し、画面に表示する */
     @GetMapping("/play")
-    public String showQuiz(QuizForm quizForm, Model model) {
+    public String showQuiz(QuizForm quizForm, @SessionAttribute(name = PLAYER_ATTRIBUTE, required = false) String player,
+                           Model model) {
+        // 前回入力したプレイヤー名を表示する
+        model.addAttribute("player", player);
         // Quizを取得（Optionalでラップ）
         Optional<Quiz> quizOpt = quizService.selectOneRandomQuiz();
         // 値があるか判定
@@ -170,13 +387,46 @@ public class QuizController {
 
     /** クイズの正解／不正解を判定 */
     @PostMapping("/check")
-    public String checkQuiz(QuizForm quizForm, @RequestParam Boolean answer, Model model) {
-        if (quizService.checkQuiz(quizForm.getId(), answer)) {
+    public String checkQuiz(QuizForm quizForm, @RequestParam Boolean answer,
+                            @RequestParam(required = false) String player, HttpServletRequest request, Model model) {
+        // プレイヤー名は次の出題でも使用するためセッションに保持する（未入力の場合はスコアを記録せず、セッションも作成しない）
+        String name = QuizLeaderboard.normalize(player);
+        if (name != null) {
+            request.getSession().setAttribute(PLAYER_ATTRIBUTE, name);
+        } else if (player != null && request.getSession(false) != null) {
+            // 未入力で送信した場合は保持しているプレイヤー名を消去する
+            request.getSession(false).removeAttribute(PLAYER_ATTRIBUTE);
+        }
+        if (quizService.checkQuiz(quizForm.getId(), answer, name)) {
             model.addAttribute("msg", messageSource.getMessage("correct.msg", new String[] {}, Locale.getDefault()));
         } else {
             model.addAttribute("msg", messageSource.getMessage("incorrect.msg", new String[] {}, Locale.getDefault()));
         }
+        quizService.selectPlayerScore(name).ifPresent(score -> model.addAttribute("score", score));
 
         return "answer";
     }
+
+    /** プレイヤーのスコアのランキングを表示する（指定したプレイヤー、未指定の場合は自分の順位も表示する） */
+    @GetMapping("/leaderboard")
+    public String leaderboard(@RequestParam(required = false) String player,
+                              @SessionAttribute(name = PLAYER_ATTRIBUTE, required = false) String sessionPlayer,
+                              @RequestParam(defaultValue = "0") int page, Model model) {
+        page = Math.max(page, 0);
+        // 次のページの有無を判定するため1件多く取得する
+        List<QuizPlayerScore> scores = quizService.selectLeaderboard(page, pageSize + 1);
+        if (scores.size() > pageSize) {
+            model.addAttribute("nextPage", page + 1);
+            scores = scores.subList(0, pageSize);
+        }
+        if (page > 0) {
+            model.addAttribute("prevPage", page - 1);
+        }
+        model.addAttribute("list", scores);
+        String name = QuizLeaderboard.normalize(player != null ? player : sessionPlayer);
+        model.addAttribute("player", name);
+        quizService.selectPlayerScore(name).ifPresent(score -> model.addAttribute("score", score));
+        model.addAttribute("noListMsg", messageSource.getMessage("no.leaderboard.msg", new String[] {}, Locale.getDefault()));
+        return "leaderboard";
+    }
 }
\ No newline at end of file
@@ -0,0 +1,87 @@
+package com.example.quiz.controller;
+
+import com.example.quiz.form.QuizForm;
+import com.example.quiz.service.QuizAnswerStats;
+import com.example.quiz.service.QuizPlaySession;
+import com.example.quiz.service.QuizService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.MessageSource;
+import org.springframework.stereotype.Controller;
+import org.springframework.ui.Model;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+
+import java.util.Locale;
+
+/**
+ * プレイセッション用コントローラ。
+ * 1ラウンド分のクイズを1回のクエリで取得してセッションに保持し、出題・判定ではDBにアクセスしません。
+ */
+@Controller
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@RequestMapping("/quiz/session")
+public class QuizPlaySessionController {
+
+    /** DI対象 */
+    @Autowired
+    QuizService quizService;
+    /** プレイセッション（セッションスコープ） */
+    @Autowired
+    QuizPlaySession quizPlaySession;
+    /** 解答の統計 */
+    @Autowired
+    QuizAnswerStats quizAnswerStats;
+    /** メッセージ管理 */
+    @Autowired
+    private MessageSource messageSource;
+    /** 1ラウンドの出題数 */
+    @Value("${quiz.session.batch-size:10}")
+    private int batchSize;
+
+    /** セッションの次のクイズを表示する（出題し終えている場合は新しいラウンドを開始する） */
+    @GetMapping("/play")
+    public String showQuiz(Model model) {
+        if (!quizPlaySession.hasNext()) {
+            quizPlaySession.start(quizService.selectRandomQuizzes(batchSize));
+        }
+        if (!quizPlaySession.hasNext()) {
+            model.addAttribute("msg", messageSource.getMessage("no.quiz.msg", new String[] {}, Locale.getDefault()));
+            return "session-play";
+        }
+        QuizForm quizForm = new QuizForm();
+        quizForm.setId(quizPlaySession.currentId());
+        quizForm.setQuestion(quizPlaySession.currentQuestion());
+        model.addAttribute("quizForm", quizForm);
+        model.addAttribute("progress", messageSource.getMessage("session.progress.msg",
+                new Object[] {quizPlaySession.getAnsweredCount() + 1, quizPlaySession.getTotalCount()}, Locale.getDefault()));
+
+        return "session-play";
+    }
+
+    /** セッションに保持した解答でクイズの正解／不正解を判定 */
+    @PostMapping("/check")
+    public String checkQuiz(QuizForm quizForm, @RequestParam Boolean answer, Model model) {
+        Boolean correct = quizPlaySession.check(quizForm.getId(), answer);
+        if (correct != null) {
+            // セッションで判定した解答も統計に記録する
+            quizAnswerStats.record(quizForm.getId(), correct);
+        } else {
+            // 出題中のクイズ以外への解答は、成績に含めずDBの解答で判定する
+            correct = quizService.checkQuiz(quizForm.getId(), answer);
+        }
+        if (correct) {
+            model.addAttribute("msg", messageSource.getMessage("correct.msg", new String[] {}, Locale.getDefault()));
+        } else {
+            model.addAttribute("msg", messageSource.getMessage("incorrect.msg", new String[] {}, Locale.getDefault()));
+        }
+        model.addAttribute("score", messageSource.getMessage("session.score.msg",
+                new Object[] {quizPlaySession.getAnsweredCount(), quizPlaySession.getCorrectCount()}, Locale.getDefault()));
+        model.addAttribute("finished", !quizPlaySession.hasNext());
+
+        return "session-answer";
+    }
+}
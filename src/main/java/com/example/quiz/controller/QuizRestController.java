@@ -0,0 +1,264 @@
+package com.example.quiz.controller;
+
+import com.example.quiz.entity.Quiz;
+import com.example.quiz.entity.QuizPlayerScore;
+import com.example.quiz.entity.QuizStats;
+import com.example.quiz.form.QuizBulkForm;
+import com.example.quiz.form.QuizCheckForm;
+import com.example.quiz.form.QuizForm;
+import com.example.quiz.service.QuizBulkResult;
+import com.example.quiz.service.QuizImportResult;
+import com.example.quiz.service.QuizImportService;
+import com.example.quiz.service.QuizLeaderboard;
+import com.example.quiz.service.QuizSearchResult;
+import com.example.quiz.service.QuizService;
+import com.example.quiz.service.QuizVersionTracker;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.StringUtils;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * QuizのREST API（JSON）。
+ * 画面（QuizController）と同じQuizServiceの処理を、描画やリダイレクトなしで1リクエストずつ提供します。
+ * 出題用（random・random-batch）の応答には解答を含めません。
+ */
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@RequestMapping(path = "/api/quizzes", produces = MediaType.APPLICATION_JSON_VALUE)
+public class QuizRestController {
+    /** 1回に取得・処理できる件数の上限 */
+    private static final int MAX_SIZE = 1000;
+
+    /** DI対象 */
+    @Autowired
+    QuizService quizService;
+    /** DI対象 */
+    @Autowired
+    QuizImportService quizImportService;
+    /** 一覧・クイズごとの版数（ETag用） */
+    @Autowired
+    QuizVersionTracker quizVersionTracker;
+    /** 一覧の1ページあたりの件数 */
+    @Value("${quiz.list.page-size:20}")
+    private int pageSize;
+    /** 1ラウンドの出題数 */
+    @Value("${quiz.session.batch-size:10}")
+    private int batchSize;
+
+    /** クイズをidの昇順に1ページ分取得する（nextは次のページのafter。最後のページはnull） */
+    @GetMapping
+    public ResponseEntity<QuizPage> list(@RequestParam(required = false) Integer after,
+                                         @RequestParam(required = false) Integer size, ServletWebRequest webRequest) {
+        if (ConditionalRequests.isNotModified(webRequest, quizVersionTracker.catalogueETag(), quizVersionTracker.catalogueLastModified())) {
+            return null;
+        }
+        int limit = limit(size, pageSize);
+        // 次ページの有無判定のため1件多く取得する
+        List<Quiz> quizzes = quizService.selectPage(after, limit + 1);
+        Integer next = null;
+        if (quizzes.size() > limit) {
+            quizzes = quizzes.subList(0, limit);
+            next = quizzes.get(limit - 1).getId();
+        }
+        return ResponseEntity.ok(new QuizPage(quizzes, next));
+    }
+
+    /** クイズを1件取得する（版数を更新に使用するためプライマリから取得） */
+    @GetMapping("/{id}")
+    public ResponseEntity<Quiz> get(@PathVariable Integer id, ServletWebRequest webRequest) {
+        if (ConditionalRequests.isNotModified(webRequest, quizVersionTracker.quizETag(id), quizVersionTracker.quizLastModified(id))) {
+            return null;
+        }
+        return ResponseEntity.of(quizService.selectOneForUpdate(id));
+    }
+
+    /** クイズをランダムで1件出題する（クイズがない場合は204） */
+    @GetMapping("/random")
+    public ResponseEntity<QuizQuestion> random() {
+        return quizService.selectOneRandomQuiz()
+                .map(quiz -> ResponseEntity.ok(new QuizQuestion(quiz)))
+                .orElseGet(() -> ResponseEntity.noContent().build());
+    }
+
+    /** クイズをランダムで指定件数（重複なし）出題する */
+    @GetMapping("/random-batch")
+    public List<QuizQuestion> randomBatch(@RequestParam(required = false) Integer size) {
+        return quizService.selectRandomQuizzes(limit(size, batchSize)).stream()
+                .map(QuizQuestion::new).collect(Collectors.toList());
+    }
+
+    /** クイズの正解／不正解を判定する */
+    @PostMapping("/{id}/check")
+    public QuizCheckResult check(@PathVariable Integer id, @RequestBody QuizCheckForm form) {
+        return new QuizCheckResult(id, quizService.checkQuiz(id, form.getAnswer(), form.getPlayer()));
+    }
+
+    /**
+     * 複数のクイズの正解／不正解をまとめて判定する（指定した順に返却）。
+     * 1回のリクエスト内で同じプレイヤー・同じクイズの解答が重複する場合、スコアの加算は最初の解答のみです
+     * （リクエストをまたいだ重複は除かないため、1件ずつの解答チェックと同様に、送り直すたびに加算される）
+     */
+    @PostMapping("/check")
+    public ResponseEntity<List<QuizCheckResult>> checkAll(@RequestBody List<QuizCheckForm> forms) {
+        if (forms.size() > MAX_SIZE) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).build();
+        }
+        List<QuizCheckResult> results = new ArrayList<>(forms.size());
+        // プレイヤー名（正規化後）と改行とidの組
+        Set<String> scored = new HashSet<>();
+        for (QuizCheckForm form : forms) {
+            String player = QuizLeaderboard.normalize(form.getPlayer());
+            if (player != null && !scored.add(player + '\n' + form.getId())) {
+                player = null;
+            }
+            results.add(new QuizCheckResult(form.getId(), quizService.checkQuiz(form.getId(), form.getAnswer(), player)));
+        }
+        return ResponseEntity.ok(results);
+    }
+
+    /** クイズの内容・作成者を検索する */
+    @GetMapping("/search")
+    public QuizSearchResult search(@RequestParam(defaultValue = "") String q, @RequestParam(defaultValue = "0") int page) {
+        return quizService.searchQuizzes(q, Math.max(page, 0), pageSize);
+    }
+
+    /** 解答の統計を難易度順（order=hard：難しい順、easy：易しい順）に取得する */
+    @GetMapping("/stats")
+    public List<QuizStats> stats(@RequestParam(defaultValue = "hard") String order, @RequestParam(defaultValue = "0") int page) {
+        return quizService.selectStats(!"easy".equals(order), Math.max(page, 0), pageSize);
+    }
+
+    /** プレイヤーのスコアをランキング順に取得する */
+    @GetMapping("/leaderboard")
+    public List<QuizPlayerScore> leaderboard(@RequestParam(defaultValue = "0") int page) {
+        return quizService.selectLeaderboard(Math.max(page, 0), pageSize);
+    }
+
+    /** プレイヤーのスコア・順位を取得する（記録がない場合は404） */
+    @GetMapping("/leaderboard/{player}")
+    public ResponseEntity<QuizPlayerScore> playerScore(@PathVariable String player) {
+        return ResponseEntity.of(quizService.selectPlayerScore(player));
+    }
+
+    /** クイズを1件登録する（201、Locationに登録したクイズのURL） */
+    @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<Quiz> insert(@Validated @RequestBody QuizForm form) {
+        Quiz quiz = new Quiz(null, form.getQuestion(), form.getAnswer(), form.getAuthor());
+        quizService.insertQuiz(quiz);
+        return ResponseEntity.created(ServletUriComponentsBuilder.fromCurrentRequest()
+                .path("/{id}").buildAndExpand(quiz.getId()).toUri()).body(quiz);
+    }
+
+    /** クイズ（JSONの配列）を一括登録する（読み込みながらチャンクごとに登録） */
+    @PostMapping(path = "/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public QuizImportResult insertAll(InputStream body) throws IOException {
+        return quizImportService.importQuizzes(body, QuizImportService.Format.JSON);
+    }
+
+    /** クイズを更新する（versionを指定した場合、他の更新と競合していれば409） */
+    @PutMapping(path = "/{id}", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<QuizUpdateResult> update(@PathVariable Integer id, @Validated @RequestBody QuizForm form) {
+        Quiz quiz = new Quiz(id, form.getQuestion(), form.getAnswer(), form.getAuthor(), form.getVersion());
+        try {
+            boolean updated = quizService.updateQuiz(quiz);
+            return ResponseEntity.ok(new QuizUpdateResult(updated, quiz.getVersion()));
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+    }
+
+    /** クイズを削除する */
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> delete(@PathVariable Integer id) {
+        quizService.deleteQuizById(id);
+        return ResponseEntity.noContent().build();
+    }
+
+    /** 指定したクイズの解答・作成者を一括変更する（nullの項目は変更しない） */
+    @PostMapping(path = "/batch/update", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public QuizBulkResult updateAll(@RequestBody QuizBulkForm form) {
+        return quizService.updateQuizzes(form.getIds(), form.getAnswer(),
+                StringUtils.hasText(form.getAuthor()) ? form.getAuthor().trim() : null);
+    }
+
+    /** 指定したクイズを一括削除する */
+    @PostMapping(path = "/batch/delete", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public QuizBulkResult deleteAll(@RequestBody QuizBulkForm form) {
+        return quizService.deleteQuizzesByIds(form.getIds());
+    }
+
+    /** 指定件数（未指定の場合は既定値）を1～上限に収める */
+    private static int limit(Integer size, int defaultSize) {
+        return Math.min(Math.max(size == null ? defaultSize : size, 1), MAX_SIZE);
+    }
+
+    /** 1ページ分のクイズ */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class QuizPage {
+        /** クイズ（idの昇順） */
+        private List<Quiz> items;
+        /** 次のページのafter（最後のページはnull） */
+        private Integer next;
+    }
+
+    /** 出題するクイズ（解答を含めない） */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class QuizQuestion {
+        /** 識別ID */
+        private Integer id;
+        /** クイズの内容 */
+        private String question;
+        /** 作成者 */
+        private String author;
+
+        QuizQuestion(Quiz quiz) {
+            this(quiz.getId(), quiz.getQuestion(), quiz.getAuthor());
+        }
+    }
+
+    /** 解答チェックの結果 */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class QuizCheckResult {
+        /** 識別ID */
+        private Integer id;
+        /** 正解の場合はtrue */
+        private boolean correct;
+    }
+
+    /** 更新の結果 */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class QuizUpdateResult {
+        /** 値が変わらず更新しなかった場合はfalse */
+        private boolean updated;
+        /** 更新後の版数（更新しなかった場合は指定した版数） */
+        private Integer version;
+    }
+}
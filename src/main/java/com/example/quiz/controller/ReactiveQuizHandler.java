@@ -0,0 +1,63 @@
+package com.example.quiz.controller;
+
+import com.example.quiz.entity.Quiz;
+import com.example.quiz.form.QuizForm;
+import com.example.quiz.service.ReactiveQuizService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.MessageSource;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Mono;
+
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Quizハンドラ（WebFluxによるノンブロッキング版の /quiz/play・/quiz/check）。
+ * 出題の方式・スナップショット・ランキングは使用せず、CRUD画面もないため、専用の画面（reactive-play・reactive-answer）を表示します。
+ */
+public class ReactiveQuizHandler {
+    /** DI対象 */
+    @Autowired
+    ReactiveQuizService reactiveQuizService;
+    /** メッセージ管理 */
+    @Autowired
+    private MessageSource messageSource;
+
+    /** Quizデータをランダムで1件取得し、画面に表示する */
+    public Mono<ServerResponse> showQuiz(ServerRequest request) {
+        return reactiveQuizService.selectOneRandomQuiz()
+                .flatMap(quiz -> ServerResponse.ok().render("reactive-play", Map.of("quizForm", makeQuizForm(quiz))))
+                .switchIfEmpty(Mono.defer(() -> ServerResponse.ok().render("reactive-play",
+                        Map.of("msg", messageSource.getMessage("no.quiz.msg", new String[] {}, Locale.getDefault())))));
+    }
+
+    /** クイズの正解／不正解を判定 */
+    public Mono<ServerResponse> checkQuiz(ServerRequest request) {
+        return request.formData()
+                .flatMap(form -> reactiveQuizService.checkQuiz(parseId(form), Boolean.valueOf(form.getFirst("answer"))))
+                .flatMap(correct -> ServerResponse.ok().render("reactive-answer", Map.of("msg",
+                        messageSource.getMessage(correct ? "correct.msg" : "incorrect.msg", new String[] {}, Locale.getDefault()))));
+    }
+
+    /** フォームからidを取り出す（数値でない場合はnull） */
+    private static Integer parseId(MultiValueMap<String, String> form) {
+        try {
+            return Integer.valueOf(form.getFirst("id"));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /** QuizからQuizFormに詰め直す */
+    private QuizForm makeQuizForm(Quiz quiz) {
+        QuizForm quizForm = new QuizForm();
+        quizForm.setId(quiz.getId());
+        quizForm.setQuestion(quiz.getQuestion());
+        quizForm.setAnswer(quiz.getAnswer());
+        quizForm.setAuthor(quiz.getAuthor());
+
+        return quizForm;
+    }
+}
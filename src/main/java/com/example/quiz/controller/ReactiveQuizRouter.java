@@ -0,0 +1,41 @@
+package com.example.quiz.controller;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+import static org.springframework.web.reactive.function.server.RequestPredicates.GET;
+import static org.springframework.web.reactive.function.server.RequestPredicates.POST;
+
+/**
+ * WebFluxのルーティング設定。
+ * spring.main.web-application-type=reactive（reactiveプロファイル）で起動した場合のみ有効になり、
+ * 通常起動時はQuizController（Spring MVC）が同じURLを処理します。
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveQuizRouter {
+
+    /** ハンドラ */
+    @Bean
+    public ReactiveQuizHandler reactiveQuizHandler() {
+        return new ReactiveQuizHandler();
+    }
+
+    /** /quiz/play・/quiz/check のルーティング */
+    @Bean
+    public RouterFunction<ServerResponse> reactiveQuizRoutes(ReactiveQuizHandler reactiveQuizHandler) {
+        return RouterFunctions.route(GET("/quiz/play"), reactiveQuizHandler::showQuiz)
+                .andRoute(POST("/quiz/check"), reactiveQuizHandler::checkQuiz);
+    }
+
+    /** Tomcatではなくイベントループ型のNettyで起動する */
+    @Bean
+    public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+        return new NettyReactiveWebServerFactory();
+    }
+}
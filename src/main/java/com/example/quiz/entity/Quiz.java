@@ -4,11 +4,14 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.relational.core.mapping.Table;
 
 /** quizテーブル用：Entity */
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
+@Table("quiz")
 public class Quiz {
     /** 識別ID */
     @Id
@@ -19,4 +22,12 @@ public class Quiz {
     private Boolean answer;
     /** 作成者 */
     private String author;
+    /** 版数（楽観的排他制御用。更新のたびに1加算） */
+    @Version
+    private Integer version;
+
+    /** 版数を指定しないコンストラクタ */
+    public Quiz(Integer id, String question, Boolean answer, String author) {
+        this(id, question, answer, author, null);
+    }
 }
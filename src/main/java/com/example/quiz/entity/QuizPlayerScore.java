@@ -0,0 +1,18 @@
+package com.example.quiz.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/** quiz_player_scoreテーブル用：プレイヤーごとのスコア（正解数） */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class QuizPlayerScore {
+    /** プレイヤー名 */
+    private String player;
+    /** スコア（正解数） */
+    private long score;
+    /** 順位（1始まり。同じスコアは同じ順位。表示用） */
+    private long rank;
+}
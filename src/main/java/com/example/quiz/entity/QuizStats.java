@@ -0,0 +1,25 @@
+package com.example.quiz.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/** quiz_statsテーブル用：クイズごとの解答数・正解数 */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class QuizStats {
+    /** クイズの識別ID */
+    private Integer quizId;
+    /** クイズの内容（一覧表示用） */
+    private String question;
+    /** 解答数 */
+    private long attempts;
+    /** 正解数 */
+    private long correct;
+
+    /** 正解率（%） */
+    public double getCorrectRate() {
+        return attempts == 0 ? 0 : correct * 100.0 / attempts;
+    }
+}
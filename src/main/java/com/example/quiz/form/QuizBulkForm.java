@@ -0,0 +1,20 @@
+package com.example.quiz.form;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/** 一括変更・一括削除用Form（REST API） */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class QuizBulkForm {
+    /** 対象のクイズの識別ID */
+    private List<Integer> ids;
+    /** 変更後の解答（nullの場合は変更しない。一括削除では未使用） */
+    private Boolean answer;
+    /** 変更後の作成者（nullの場合は変更しない。一括削除では未使用） */
+    private String author;
+}
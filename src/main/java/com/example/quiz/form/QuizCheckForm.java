@@ -0,0 +1,18 @@
+package com.example.quiz.form;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/** 解答チェック用Form（REST API） */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class QuizCheckForm {
+    /** 識別ID（1件のチェックではパスで指定） */
+    private Integer id;
+    /** 解答 */
+    private Boolean answer;
+    /** プレイヤー名（指定した場合、正解するとスコアに加算） */
+    private String player;
+}
@@ -23,4 +23,11 @@ public class QuizForm {
     private String author;
     /** 「登録」or「変更」判定用 */
     private Boolean newQuiz;
+    /** 編集開始時の版数 */
+    private Integer version;
+
+    /** 版数を指定しないコンストラクタ */
+    public QuizForm(Integer id, String question, Boolean answer, String author, Boolean newQuiz) {
+        this(id, question, answer, author, newQuiz, null);
+    }
 }
@@ -0,0 +1,16 @@
+package com.example.quiz.repository;
+
+import com.example.quiz.entity.QuizPlayerScore;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/** quiz_player_scoreテーブル：Repository */
+public interface QuizPlayerScoreRepository {
+
+    /** スコアを既存の値に加算します（行がなければ登録。JDBCのバッチ更新を使用） */
+    void addAll(List<QuizPlayerScore> deltas);
+
+    /** スコアを1件ずつ読み込みます（順位は含まない。トランザクション内ではfetchSize件ずつ取得） */
+    void forEach(int fetchSize, Consumer<QuizPlayerScore> action);
+}
@@ -0,0 +1,42 @@
+package com.example.quiz.repository;
+
+import com.example.quiz.entity.QuizPlayerScore;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.List;
+import java.util.function.Consumer;
+
+/** quiz_player_scoreテーブル：Repositoryの実装 */
+@Repository
+public class QuizPlayerScoreRepositoryImpl implements QuizPlayerScoreRepository {
+
+    /** JDBC */
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void addAll(List<QuizPlayerScore> deltas) {
+        jdbcTemplate.batchUpdate("INSERT INTO quiz_player_score (player, score) VALUES (?, ?)"
+                        + " ON CONFLICT (player) DO UPDATE SET score = quiz_player_score.score + EXCLUDED.score",
+                deltas, deltas.size(), (ps, delta) -> {
+                    ps.setString(1, delta.getPlayer());
+                    ps.setLong(2, delta.getScore());
+                });
+    }
+
+    @Override
+    public void forEach(int fetchSize, Consumer<QuizPlayerScore> action) {
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement("SELECT player, score FROM quiz_player_score",
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(fetchSize);
+            return ps;
+        }, rs -> {
+            action.accept(new QuizPlayerScore(rs.getString(1), rs.getLong(2), 0));
+        });
+    }
+}
@@ -1,8 +1,78 @@
 package com.example.quiz.repository;
 
 import com.example.quiz.entity.Quiz;
+import org.springframework.data.jdbc.repository.query.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+import java.util.Optional;
 
 /** Quizテーブル：RepositoryImpl */
-public interface QuizRepository extends CrudRepository<Quiz, Integer> {
+public interface QuizRepository extends CrudRepository<Quiz, Integer>, QuizRepositoryCustom {
+
+    /** 1件の抽選で生成する乱数のidの数 */
+    int RANDOM_PROBES = 32;
+
+    /**
+     * 全クイズから一様に1件取得します。
+     * id の最小値～最大値の範囲で乱数のidを生成し、そのidのクイズが存在すれば選びます（欠番に当たった場合は次の乱数で選び直す）。
+     * 存在するidはいずれも同じ確率で当たるため、欠番があっても一様です。MIN/MAX と検索はいずれも主キーのインデックスで解決されます。
+     * 欠番が多く RANDOM_PROBES 回とも当たらなかった場合のみ、全件を走査して選びます。
+     */
+    default Optional<Quiz> findOneRandom() {
+        List<Quiz> quizzes = findByRandomProbes(RANDOM_PROBES, 1);
+        if (quizzes.isEmpty()) {
+            quizzes = findRandomByScan(1);
+        }
+        return quizzes.stream().findFirst();
+    }
+
+    /**
+     * id の最小値～最大値の範囲で乱数のidを指定数生成し、存在するidのクイズを生成した順に指定件数まで取得します（重複なし）。
+     * 欠番に当たった乱数は捨てるため、存在するクイズはいずれも同じ確率で選ばれます（件数に満たない場合がある）。
+     */
+    @Query("SELECT q.* FROM quiz q JOIN ("
+            + "SELECT c.id, MIN(c.n) AS n FROM (SELECT MIN(id) AS lo, MAX(id) AS hi FROM quiz) b,"
+            + " LATERAL (SELECT n, CAST(FLOOR(RANDOM() * (b.hi - b.lo + 1)) AS INTEGER) + b.lo AS id"
+            + " FROM generate_series(1, :probes) n) c GROUP BY c.id) p ON q.id = p.id"
+            + " ORDER BY p.n LIMIT :limit")
+    List<Quiz> findByRandomProbes(@Param("probes") int probes, @Param("limit") int limit);
+
+    /** 全件を走査して、一様に指定件数（重複なし）取得します（件数に比例した時間がかかる） */
+    @Query("SELECT * FROM quiz ORDER BY RANDOM() LIMIT :limit")
+    List<Quiz> findRandomByScan(@Param("limit") int limit);
+
+    /**
+     * 全クイズから一様に指定件数（重複なし）取得します。取得順は乱数の生成順のため、順番もランダムです。
+     * findOneRandom と同じ方法で、指定件数の4倍＋RANDOM_PROBES 個の乱数のidを1回のクエリで検索します（件数に依存せず指定件数分の時間で取得）。
+     * 欠番が多い場合や登録件数が指定件数に満たない場合など、指定件数に届かなかった場合のみ全件を走査して選びます。
+     */
+    default List<Quiz> findRandomBatch(int limit) {
+        List<Quiz> quizzes = findByRandomProbes(limit * 4 + RANDOM_PROBES, limit);
+        if (quizzes.size() < limit) {
+            quizzes = findRandomByScan(limit);
+        }
+        return quizzes;
+    }
+
+    /** 指定したidより大きいidを持つクイズを、idの昇順で指定件数まで取得します（キーセットページング） */
+    @Query("SELECT * FROM quiz WHERE id > :afterId ORDER BY id LIMIT :limit")
+    List<Quiz> findPageAfter(@Param("afterId") int afterId, @Param("limit") int limit);
+
+    /** 指定したidより大きいクイズのidのみを、昇順で指定件数まで取得します（キーセットページング） */
+    @Query("SELECT id FROM quiz WHERE id > :afterId ORDER BY id LIMIT :limit")
+    List<Integer> findIdsAfter(@Param("afterId") int afterId, @Param("limit") int limit);
+
+    /** 登録用のidを指定件数、シーケンスから1回のクエリで採番します */
+    @Query("SELECT CAST(nextval('quiz_id_seq') AS INTEGER) FROM generate_series(1, :count)")
+    List<Integer> allocateIds(@Param("count") int count);
+
+    /** idをキーに、クイズの解答のみを取得します。存在しない場合はnullを返却します */
+    @Query("SELECT answer FROM quiz WHERE id = :id")
+    Boolean findAnswerById(@Param("id") int id);
+
+    /** idをキーに、クイズの版数のみを取得します。存在しない場合はnullを返却します */
+    @Query("SELECT version FROM quiz WHERE id = :id")
+    Integer findVersionById(@Param("id") int id);
 }
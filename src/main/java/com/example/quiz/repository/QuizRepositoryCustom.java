@@ -0,0 +1,37 @@
+package com.example.quiz.repository;
+
+import com.example.quiz.entity.Quiz;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/** Quizテーブル：JDBCを直接使用する処理 */
+public interface QuizRepositoryCustom {
+
+    /** クイズをまとめて登録します（JDBCのバッチ更新を使用） */
+    int batchInsert(List<Quiz> quizzes);
+
+    /** idを指定したクイズをまとめて登録します（JDBCのバッチ更新を使用） */
+    int batchInsertWithIds(List<Quiz> quizzes);
+
+    /**
+     * クイズをidの昇順に1件ずつ読み込みます（前方向のみのカーソルでfetchSize件ずつ取得）。
+     * PostgreSQLではトランザクション内で呼び出した場合のみカーソルが使用されます。
+     */
+    void forEachQuiz(int fetchSize, Consumer<Quiz> action);
+
+    /** 指定したidのクイズを1文で削除し、削除したidを返却します */
+    List<Integer> deleteByIds(List<Integer> ids);
+
+    /** 作成者のクイズをidの昇順に最大limit件、1文で削除し、削除したidを返却します */
+    List<Integer> deleteByAuthor(String author, int limit);
+
+    /**
+     * クイズの内容・解答・作成者のうちnullでない項目のみを、版数が一致し値が変わる場合に限り1文で更新します（版数は1加算）。
+     * 版数がnullの場合は一致を確認しません。更新後の版数を返却し、更新しなかった場合はnullを返却します。
+     */
+    Integer updateIfChanged(Quiz quiz);
+
+    /** 指定したidのクイズの解答・作成者（nullの項目は変更しない）を、値が変わるもののみ1文で更新し、更新したidを返却します */
+    List<Integer> updateAnswerAndAuthor(List<Integer> ids, Boolean answer, String author);
+}
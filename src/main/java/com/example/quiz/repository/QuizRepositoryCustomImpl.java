@@ -0,0 +1,129 @@
+package com.example.quiz.repository;
+
+import com.example.quiz.entity.Quiz;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+
+/** Quizテーブル：JDBCを直接使用する処理の実装 */
+public class QuizRepositoryCustomImpl implements QuizRepositoryCustom {
+
+    /** JDBC */
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Override
+    public int batchInsert(List<Quiz> quizzes) {
+        jdbcTemplate.batchUpdate("INSERT INTO quiz (question, answer, author) VALUES (?, ?, ?)",
+                quizzes, quizzes.size(), (ps, quiz) -> {
+                    ps.setString(1, quiz.getQuestion());
+                    ps.setBoolean(2, quiz.getAnswer());
+                    ps.setString(3, quiz.getAuthor());
+                });
+        return quizzes.size();
+    }
+
+    @Override
+    public int batchInsertWithIds(List<Quiz> quizzes) {
+        jdbcTemplate.batchUpdate("INSERT INTO quiz (id, question, answer, author) VALUES (?, ?, ?, ?)",
+                quizzes, quizzes.size(), (ps, quiz) -> {
+                    ps.setInt(1, quiz.getId());
+                    ps.setString(2, quiz.getQuestion());
+                    ps.setBoolean(3, quiz.getAnswer());
+                    ps.setString(4, quiz.getAuthor());
+                });
+        return quizzes.size();
+    }
+
+    @Override
+    public void forEachQuiz(int fetchSize, Consumer<Quiz> action) {
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement("SELECT id, question, answer, author FROM quiz ORDER BY id",
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(fetchSize);
+            return ps;
+        }, rs -> {
+            action.accept(new Quiz(rs.getInt(1), rs.getString(2), rs.getBoolean(3), rs.getString(4)));
+        });
+    }
+
+    @Override
+    public List<Integer> deleteByIds(List<Integer> ids) {
+        // 件数によらず同じSQLになるよう、INではなく配列で指定する
+        return jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement("DELETE FROM quiz WHERE id = ANY(?) RETURNING id");
+            ps.setArray(1, con.createArrayOf("integer", ids.toArray()));
+            return ps;
+        }, (rs, rowNum) -> rs.getInt(1));
+    }
+
+    @Override
+    public List<Integer> deleteByAuthor(String author, int limit) {
+        return jdbcTemplate.query("DELETE FROM quiz WHERE id IN"
+                        + " (SELECT id FROM quiz WHERE author = ? ORDER BY id LIMIT ?) RETURNING id",
+                (rs, rowNum) -> rs.getInt(1), author, limit);
+    }
+
+    @Override
+    public Integer updateIfChanged(Quiz quiz) {
+        // 指定された項目のみをSET句に含め、値が変わらない場合は行を書き換えない
+        List<String> columns = new ArrayList<>();
+        List<Object> values = new ArrayList<>();
+        if (quiz.getQuestion() != null) {
+            columns.add("question");
+            values.add(quiz.getQuestion());
+        }
+        if (quiz.getAnswer() != null) {
+            columns.add("answer");
+            values.add(quiz.getAnswer());
+        }
+        if (quiz.getAuthor() != null) {
+            columns.add("author");
+            values.add(quiz.getAuthor());
+        }
+        if (columns.isEmpty()) {
+            return null;
+        }
+        String placeholders = String.join(", ", Collections.nCopies(columns.size(), "?"));
+        StringBuilder sql = new StringBuilder("UPDATE quiz SET ");
+        columns.forEach(column -> sql.append(column).append(" = ?, "));
+        sql.append("version = version + 1 WHERE id = ?");
+        if (quiz.getVersion() != null) {
+            sql.append(" AND version = ?");
+        }
+        sql.append(" AND ROW(").append(String.join(", ", columns)).append(") IS DISTINCT FROM ROW(").append(placeholders).append(")");
+        sql.append(" RETURNING version");
+
+        List<Object> args = new ArrayList<>(values);
+        args.add(quiz.getId());
+        if (quiz.getVersion() != null) {
+            args.add(quiz.getVersion());
+        }
+        args.addAll(values);
+        List<Integer> versions = jdbcTemplate.query(sql.toString(), (rs, rowNum) -> rs.getInt(1), args.toArray());
+        return versions.isEmpty() ? null : versions.get(0);
+    }
+
+    @Override
+    public List<Integer> updateAnswerAndAuthor(List<Integer> ids, Boolean answer, String author) {
+        return jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement("UPDATE quiz"
+                    + " SET answer = COALESCE(?, answer), author = COALESCE(?, author), version = version + 1"
+                    + " WHERE id = ANY(?) AND (answer IS DISTINCT FROM COALESCE(?, answer) OR author IS DISTINCT FROM COALESCE(?, author))"
+                    + " RETURNING id");
+            ps.setObject(1, answer, Types.BOOLEAN);
+            ps.setObject(2, author, Types.VARCHAR);
+            ps.setArray(3, con.createArrayOf("integer", ids.toArray()));
+            ps.setObject(4, answer, Types.BOOLEAN);
+            ps.setObject(5, author, Types.VARCHAR);
+            return ps;
+        }, (rs, rowNum) -> rs.getInt(1));
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.quiz.repository;
+
+import com.example.quiz.entity.QuizStats;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/** quiz_statsテーブル：Repository */
+public interface QuizStatsRepository {
+
+    /** 解答数・正解数を既存の値に加算します（行がなければ登録。JDBCのバッチ更新を使用） */
+    void addAll(List<QuizStats> deltas);
+
+    /** 統計を1件ずつ読み込みます（クイズの内容は含まない。トランザクション内ではfetchSize件ずつ取得） */
+    void forEach(int fetchSize, Consumer<QuizStats> action);
+
+    /**
+     * 解答されたクイズの統計を難易度順に取得します（存在しないクイズは除く）。
+     * 難易度は、解答数が少ないクイズの偏りを抑えるため (正解数 + 1) / (解答数 + 2) で比較します。
+     */
+    List<QuizStats> findByDifficulty(boolean hardestFirst, int offset, int limit);
+}
@@ -0,0 +1,55 @@
+package com.example.quiz.repository;
+
+import com.example.quiz.entity.QuizStats;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.List;
+import java.util.function.Consumer;
+
+/** quiz_statsテーブル：Repositoryの実装 */
+@Repository
+public class QuizStatsRepositoryImpl implements QuizStatsRepository {
+
+    /** JDBC */
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void addAll(List<QuizStats> deltas) {
+        jdbcTemplate.batchUpdate("INSERT INTO quiz_stats (quiz_id, attempts, correct) VALUES (?, ?, ?)"
+                        + " ON CONFLICT (quiz_id) DO UPDATE SET attempts = quiz_stats.attempts + EXCLUDED.attempts,"
+                        + " correct = quiz_stats.correct + EXCLUDED.correct",
+                deltas, deltas.size(), (ps, delta) -> {
+                    ps.setInt(1, delta.getQuizId());
+                    ps.setLong(2, delta.getAttempts());
+                    ps.setLong(3, delta.getCorrect());
+                });
+    }
+
+    @Override
+    public void forEach(int fetchSize, Consumer<QuizStats> action) {
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement("SELECT quiz_id, attempts, correct FROM quiz_stats",
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(fetchSize);
+            return ps;
+        }, rs -> {
+            action.accept(new QuizStats(rs.getInt(1), null, rs.getLong(2), rs.getLong(3)));
+        });
+    }
+
+    @Override
+    public List<QuizStats> findByDifficulty(boolean hardestFirst, int offset, int limit) {
+        String direction = hardestFirst ? "ASC" : "DESC";
+        return jdbcTemplate.query("SELECT s.quiz_id, q.question, s.attempts, s.correct"
+                        + " FROM quiz_stats s JOIN quiz q ON q.id = s.quiz_id WHERE s.attempts > 0"
+                        + " ORDER BY (s.correct + 1.0) / (s.attempts + 2) " + direction + ", s.attempts DESC, s.quiz_id"
+                        + " OFFSET ? LIMIT ?",
+                (rs, rowNum) -> new QuizStats(rs.getInt(1), rs.getString(2), rs.getLong(3), rs.getLong(4)),
+                offset, limit);
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.quiz.repository;
+
+import com.example.quiz.entity.Quiz;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import org.springframework.data.repository.query.Param;
+import reactor.core.publisher.Mono;
+
+/** Quizテーブル：RepositoryImpl（R2DBCによるノンブロッキング版） */
+public interface ReactiveQuizRepository extends R2dbcRepository<Quiz, Integer> {
+
+    /** 全クイズから一様に1件取得します（QuizRepository#findOneRandomと同じ方法） */
+    default Mono<Quiz> findOneRandom() {
+        return findByRandomProbes(QuizRepository.RANDOM_PROBES).switchIfEmpty(Mono.defer(this::findOneByScan));
+    }
+
+    /** 乱数のidを指定数生成し、最初に存在したidのクイズを取得します（QuizRepository#findByRandomProbes） */
+    @Query("SELECT q.* FROM quiz q JOIN ("
+            + "SELECT c.id, MIN(c.n) AS n FROM (SELECT MIN(id) AS lo, MAX(id) AS hi FROM quiz) b,"
+            + " LATERAL (SELECT n, CAST(FLOOR(RANDOM() * (b.hi - b.lo + 1)) AS INTEGER) + b.lo AS id"
+            + " FROM generate_series(1, :probes) n) c GROUP BY c.id) p ON q.id = p.id"
+            + " ORDER BY p.n LIMIT 1")
+    Mono<Quiz> findByRandomProbes(@Param("probes") int probes);
+
+    /** 全件を走査して一様に1件取得します */
+    @Query("SELECT * FROM quiz ORDER BY RANDOM() LIMIT 1")
+    Mono<Quiz> findOneByScan();
+
+    /** idをキーに、クイズの解答のみを取得します */
+    @Query("SELECT answer FROM quiz WHERE id = :id")
+    Mono<Boolean> findAnswerById(@Param("id") int id);
+}
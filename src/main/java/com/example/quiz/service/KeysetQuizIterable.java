@@ -0,0 +1,68 @@
+package com.example.quiz.service;
+
+import com.example.quiz.entity.Quiz;
+import com.example.quiz.repository.QuizRepository;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * クイズ情報をidの昇順に、指定件数ずつ取得しながら順に返却するIterable。
+ * 保持するのは常に1チャンク分だけなので、件数に関わらずメモリ使用量は一定です。
+ */
+public class KeysetQuizIterable implements Iterable<Quiz> {
+    /** 先頭を表すカーソル */
+    static final int FIRST = Integer.MIN_VALUE;
+
+    /** Repository */
+    private final QuizRepository quizRepository;
+    /** 1回に取得する件数 */
+    private final int chunkSize;
+    /** 先頭のチャンク（空判定のために先読みする） */
+    private final List<Quiz> firstChunk;
+
+    KeysetQuizIterable(QuizRepository quizRepository, int chunkSize) {
+        this.quizRepository = quizRepository;
+        this.chunkSize = chunkSize;
+        this.firstChunk = quizRepository.findPageAfter(FIRST, chunkSize);
+    }
+
+    /** クイズが1件もないか判定します */
+    public boolean isEmpty() {
+        return firstChunk.isEmpty();
+    }
+
+    @Override
+    public Iterator<Quiz> iterator() {
+        return new Iterator<>() {
+            /** 現在のチャンク */
+            private List<Quiz> chunk = firstChunk;
+            /** チャンク内の位置 */
+            private int index = 0;
+
+            @Override
+            public boolean hasNext() {
+                if (index < chunk.size()) {
+                    return true;
+                }
+                // 最後のチャンクが件数に満たなければ終端
+                if (chunk.size() < chunkSize) {
+                    return false;
+                }
+                // 最後に返却したidの次から取得する
+                chunk = quizRepository.findPageAfter(chunk.get(chunk.size() - 1).getId(), chunkSize);
+                index = 0;
+                return !chunk.isEmpty();
+            }
+
+            @Override
+            public Quiz next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return chunk.get(index++);
+            }
+        };
+    }
+}
@@ -0,0 +1,147 @@
+package com.example.quiz.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * クイズのid→解答を保持する固定サイズのキャッシュ。
+ * 1スロットにidと解答と有効フラグを1つのlongとして詰めて格納するため、
+ * 参照・登録ともにオブジェクトを生成せず、ロックも使用しません。
+ * スロットはidの下位ビットで決まり、同じスロットに別のidを登録すると古い方は追い出されます。
+ */
+@Component
+public class QuizAnswerCache {
+    /** 有効フラグ */
+    private static final long PRESENT = 1L;
+    /** 解答（○）フラグ */
+    private static final long ANSWER = 1L << 1;
+
+    /** スロット（0は空） */
+    private final AtomicLongArray slots;
+    /** スロット位置算出用のマスク */
+    private final int mask;
+    /** 無効化のたびに進む世代番号 */
+    private final AtomicLong generation = new AtomicLong();
+
+    /** ヒット数 */
+    private final LongAdder hits = new LongAdder();
+    /** ミス数 */
+    private final LongAdder misses = new LongAdder();
+    /** 追い出し数 */
+    private final LongAdder evictions = new LongAdder();
+    /** 無効化数 */
+    private final LongAdder invalidations = new LongAdder();
+
+    public QuizAnswerCache(@Value("${quiz.answer-cache.capacity:262144}") int capacity) {
+        // 2のべき乗に切り上げる
+        int size = Integer.highestOneBit(Math.max(1, capacity - 1)) << 1;
+        this.slots = new AtomicLongArray(size);
+        this.mask = size - 1;
+    }
+
+    /** idに対応する解答を返却します。キャッシュされていない場合はnullを返却します */
+    public Boolean get(int id) {
+        long entry = slots.get(id & mask);
+        if (entry != 0 && idOf(entry) == id) {
+            hits.increment();
+            return (entry & ANSWER) != 0;
+        }
+        misses.increment();
+        return null;
+    }
+
+    /** DBから値を読み込む前に取得する世代番号です。putに渡します */
+    public long stamp() {
+        return generation.get();
+    }
+
+    /**
+     * 解答を登録します。stamp取得後に無効化が行われていた場合は、
+     * 読み込んだ値が古い可能性があるため登録を取り消します。
+     */
+    public void put(int id, boolean answer, long stamp) {
+        int slot = id & mask;
+        long entry = ((long) id << 2) | (answer ? ANSWER : 0) | PRESENT;
+        long previous = slots.getAndSet(slot, entry);
+        if (previous != 0 && idOf(previous) != id) {
+            evictions.increment();
+        }
+        if (generation.get() != stamp) {
+            slots.compareAndSet(slot, entry, 0);
+        }
+    }
+
+    /** idに対応する解答を無効化します */
+    public void invalidate(int id) {
+        generation.incrementAndGet();
+        int slot = id & mask;
+        long entry = slots.get(slot);
+        if (entry != 0 && idOf(entry) == id && slots.compareAndSet(slot, entry, 0)) {
+            invalidations.increment();
+        }
+    }
+
+    /** すべての解答を無効化します */
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        for (int i = 0; i < slots.length(); i++) {
+            if (slots.getAndSet(i, 0) != 0) {
+                invalidations.increment();
+            }
+        }
+    }
+
+    /**
+     * クイズの変更を反映します。トランザクション中に読み込んだ未コミットの値が
+     * 残らないよう、コミット・ロールバックのどちらの場合も無効化します。
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMPLETION, fallbackExecution = true)
+    public void onQuizChanged(QuizChangedEvent event) {
+        if (event.getType() == QuizChangedEvent.Type.RESYNC) {
+            invalidateAll();
+            return;
+        }
+        // 登録（INSERT・BULK）は既存の解答に影響しない
+        if (event.getType() != QuizChangedEvent.Type.INSERT && event.getType() != QuizChangedEvent.Type.BULK) {
+            for (int id : event.getIds()) {
+                invalidate(id);
+            }
+        }
+    }
+
+    /** ヒット数 */
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    /** ミス数 */
+    public long missCount() {
+        return misses.sum();
+    }
+
+    /** 追い出し数 */
+    public long evictionCount() {
+        return evictions.sum();
+    }
+
+    /** 無効化数 */
+    public long invalidationCount() {
+        return invalidations.sum();
+    }
+
+    /** スロット数 */
+    public int capacity() {
+        return slots.length();
+    }
+
+    /** エントリからidを取り出す */
+    private static int idOf(long entry) {
+        return (int) (entry >> 2);
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.quiz.service;
+
+import com.example.quiz.entity.QuizStats;
+import com.example.quiz.repository.QuizStatsRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * クイズごとの解答数・正解数の集計。
+ * 解答の記録はメモリ上のカウンタ（LongAdder）に加算するのみでDBにはアクセスせず、
+ * 前回の書き込み以降の増分を一定間隔でまとめてquiz_statsテーブルに加算します。
+ */
+@Slf4j
+@Component
+public class QuizAnswerStats {
+
+    /** 書き込み */
+    @Autowired
+    QuizStatsRepository quizStatsRepository;
+    /** 出題するクイズの選び方 */
+    @Autowired
+    QuizSelectionStrategy quizSelectionStrategy;
+    /** 1回のバッチ更新（1トランザクション）の件数 */
+    @Value("${quiz.stats.chunk-size:1000}")
+    int chunkSize;
+    private final TransactionTemplate transactionTemplate;
+
+    /** id → 起動後の解答数・正解数 */
+    private final Map<Integer, Counts> counts = new ConcurrentHashMap<>();
+
+    public QuizAnswerStats(PlatformTransactionManager transactionManager) {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /** 解答を記録し、出題するクイズの選び方に反映します（DBアクセスなし） */
+    public void record(int id, boolean correct) {
+        quizSelectionStrategy.onAnswered(id, correct);
+        Counts c = counts.get(id);
+        if (c == null) {
+            c = counts.computeIfAbsent(id, key -> new Counts());
+        }
+        // 書き込み時は正解数を先に読むため、解答数を先に加算する（正解数が解答数を超えない）
+        c.attempts.increment();
+        if (correct) {
+            c.correct.increment();
+        }
+    }
+
+    /** 前回の書き込み以降の増分をDBに加算します（失敗した分は次回に再度加算） */
+    @Scheduled(fixedDelayString = "${quiz.stats.flush-interval-ms:10000}", initialDelayString = "${quiz.stats.flush-interval-ms:10000}")
+    public synchronized void flush() {
+        List<Counts> pending = new ArrayList<>();
+        List<QuizStats> deltas = new ArrayList<>();
+        for (Map.Entry<Integer, Counts> entry : counts.entrySet()) {
+            Counts c = entry.getValue();
+            long correct = c.correct.sum();
+            long attempts = c.attempts.sum();
+            if (attempts != c.flushedAttempts) {
+                pending.add(c);
+                deltas.add(new QuizStats(entry.getKey(), null, attempts - c.flushedAttempts, correct - c.flushedCorrect));
+            }
+        }
+        for (int from = 0; from < deltas.size(); from += chunkSize) {
+            int to = Math.min(from + chunkSize, deltas.size());
+            List<QuizStats> chunk = deltas.subList(from, to);
+            try {
+                transactionTemplate.executeWithoutResult(status -> quizStatsRepository.addAll(chunk));
+            } catch (RuntimeException e) {
+                log.warn("解答の統計を書き込めませんでした（{}件は次回に書き込みます）：{}", deltas.size() - from, e.getMessage());
+                return;
+            }
+            for (int i = from; i < to; i++) {
+                Counts c = pending.get(i);
+                c.flushedAttempts += deltas.get(i).getAttempts();
+                c.flushedCorrect += deltas.get(i).getCorrect();
+            }
+        }
+    }
+
+    /** 終了時に未書き込みの増分を書き込みます */
+    @PreDestroy
+    public void close() {
+        flush();
+    }
+
+    /** 1クイズ分のカウンタ */
+    private static class Counts {
+        /** 解答数 */
+        final LongAdder attempts = new LongAdder();
+        /** 正解数 */
+        final LongAdder correct = new LongAdder();
+        /** 書き込み済みの解答数（flushでのみ使用） */
+        long flushedAttempts;
+        /** 書き込み済みの正解数（flushでのみ使用） */
+        long flushedCorrect;
+    }
+}
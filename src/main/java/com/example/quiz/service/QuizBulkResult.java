@@ -0,0 +1,14 @@
+package com.example.quiz.service;
+
+import lombok.Data;
+
+/** クイズ一括更新・一括削除の結果 */
+@Data
+public class QuizBulkResult {
+    /** 指定された件数（重複を除く。作成者指定の削除は0） */
+    private int requested;
+    /** 更新・削除した件数 */
+    private int affected;
+    /** 実行したチャンク（1文・1トランザクション）の数 */
+    private int chunks;
+}
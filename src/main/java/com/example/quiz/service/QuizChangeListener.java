@@ -0,0 +1,256 @@
+package com.example.quiz.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 他のインスタンスでのクイズの変更を受信する（PostgreSQLのLISTEN）。
+ * 専用の接続（接続プールとは別）で待ち受け、最初の通知から quiz.cluster.coalesce-window の間に受信した通知を
+ * 種類ごとにまとめて（idの重複を除いて）、QuizChangedEvent（remote）として1回ずつ発行します。
+ * 解答キャッシュ・検索用の索引などは、自インスタンスの変更と同じ処理で反映します。
+ * <p>
+ * 接続が切れた場合は再接続し、その間の通知を取りこぼした可能性があるためRESYNCを発行します（各キャッシュを読み込み直す）。
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "quiz.cluster.enabled", havingValue = "true")
+public class QuizChangeListener implements SmartLifecycle {
+
+    /** 接続先（spring.datasource.*） */
+    @Autowired
+    DataSourceProperties dataSourceProperties;
+    /** 送信側（自分が送った通知を除くため） */
+    @Autowired
+    QuizChangeNotifier quizChangeNotifier;
+    /** 受信した変更の発行 */
+    @Autowired
+    ApplicationEventPublisher eventPublisher;
+    /** 通知をまとめる時間 */
+    @Value("${quiz.cluster.coalesce-window:50ms}")
+    Duration coalesceWindow;
+    /** 通知がない場合に接続を確認する間隔 */
+    @Value("${quiz.cluster.poll-interval:10s}")
+    Duration pollInterval;
+    /** 接続できなかった場合の再接続までの間隔 */
+    @Value("${quiz.cluster.retry-interval:5s}")
+    Duration retryInterval;
+
+    /** 受信した通知の件数 */
+    private final AtomicLong received = new AtomicLong();
+    /** RESYNCを発行した回数 */
+    private final AtomicLong resyncs = new AtomicLong();
+    /** 待ち受け用の接続 */
+    private volatile Connection connection;
+    private volatile Thread thread;
+    private volatile boolean running;
+
+    /** コンテキストの起動時（各キャッシュの作成前）に待ち受けを開始します */
+    @Override
+    public void start() {
+        running = true;
+        thread = new Thread(this::run, "quiz-change-listener");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        closeConnection();
+        Thread current = thread;
+        if (current != null) {
+            current.interrupt();
+            try {
+                current.join(retryInterval.toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /** 待ち受けの接続のアプリケーション名（pg_stat_activity.application_name） */
+    public String applicationName() {
+        return "quiz-listener-" + quizChangeNotifier.nodeId;
+    }
+
+    /** 受信した通知の件数 */
+    public long receivedCount() {
+        return received.get();
+    }
+
+    /** RESYNCを発行した回数 */
+    public long resyncCount() {
+        return resyncs.get();
+    }
+
+    private void run() {
+        boolean connectedBefore = false;
+        while (running) {
+            try {
+                if (connection == null) {
+                    connect();
+                    if (connectedBefore) {
+                        resync();
+                    }
+                    connectedBefore = true;
+                }
+                receive();
+            } catch (SQLException e) {
+                if (!running) {
+                    break;
+                }
+                log.warn("変更通知の待ち受けに失敗しました（{}ms後に再接続します）：{}", retryInterval.toMillis(), e.getMessage());
+                closeConnection();
+                try {
+                    Thread.sleep(retryInterval.toMillis());
+                } catch (InterruptedException interrupted) {
+                    break;
+                }
+            } catch (RuntimeException e) {
+                // 反映の失敗で待ち受けを止めない
+                log.warn("受信した変更を反映できませんでした：{}", e.getMessage());
+            }
+        }
+        closeConnection();
+    }
+
+    /** 専用の接続を作成してLISTENします */
+    private void connect() throws SQLException {
+        Properties properties = new Properties();
+        if (dataSourceProperties.determineUsername() != null) {
+            properties.setProperty("user", dataSourceProperties.determineUsername());
+        }
+        if (dataSourceProperties.determinePassword() != null) {
+            properties.setProperty("password", dataSourceProperties.determinePassword());
+        }
+        properties.setProperty("ApplicationName", applicationName());
+        Connection created = DriverManager.getConnection(dataSourceProperties.determineUrl(), properties);
+        try (Statement statement = created.createStatement()) {
+            statement.execute("LISTEN " + QuizChangeNotifier.CHANNEL);
+        } catch (SQLException e) {
+            created.close();
+            throw e;
+        }
+        connection = created;
+        log.info("変更通知の待ち受けを開始しました（{}）", applicationName());
+    }
+
+    /** 通知を待ち、まとめて反映します */
+    private void receive() throws SQLException {
+        PGConnection pg = connection.unwrap(PGConnection.class);
+        PGNotification[] notifications = pg.getNotifications((int) pollInterval.toMillis());
+        if (notifications == null || notifications.length == 0) {
+            // 通知がなければ接続が生きているか確認する
+            if (!connection.isValid((int) Math.max(1, retryInterval.toSeconds()))) {
+                throw new SQLException("接続が切れています");
+            }
+            return;
+        }
+        Batch batch = new Batch();
+        batch.addAll(notifications);
+        long deadline = System.nanoTime() + coalesceWindow.toNanos();
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > 0) {
+            PGNotification[] more = pg.getNotifications((int) Math.max(1, remaining / 1_000_000));
+            if (more != null) {
+                batch.addAll(more);
+            }
+        }
+        batch.publish();
+    }
+
+    /** 取りこぼした可能性のある変更を、各キャッシュで読み込み直します */
+    private void resync() {
+        resyncs.incrementAndGet();
+        log.info("再接続したため、キャッシュを読み込み直します");
+        eventPublisher.publishEvent(new QuizChangedEvent(QuizChangedEvent.Type.RESYNC, new ArrayList<>(), true));
+    }
+
+    private void closeConnection() {
+        Connection current = connection;
+        connection = null;
+        if (current != null) {
+            try {
+                current.close();
+            } catch (SQLException e) {
+                log.debug("接続を閉じられませんでした", e);
+            }
+        }
+    }
+
+    /** まとめて反映する通知（種類ごとのid） */
+    private class Batch {
+        private final Map<QuizChangedEvent.Type, Set<Integer>> ids = new EnumMap<>(QuizChangedEvent.Type.class);
+
+        void addAll(PGNotification[] notifications) {
+            for (PGNotification notification : notifications) {
+                add(notification.getParameter());
+            }
+        }
+
+        /** 「送信元:種類id,id,…」を取り込みます（自分が送った通知と、形式の異なる通知は除く） */
+        void add(String payload) {
+            int colon = payload.indexOf(':');
+            if (colon < 0 || colon + 1 >= payload.length() || payload.startsWith(quizChangeNotifier.nodeId + ":")) {
+                return;
+            }
+            QuizChangedEvent.Type type = typeOf(payload.charAt(colon + 1));
+            if (type == null) {
+                return;
+            }
+            received.incrementAndGet();
+            Set<Integer> target = ids.computeIfAbsent(type, key -> new LinkedHashSet<>());
+            int from = colon + 2;
+            while (from < payload.length()) {
+                int comma = payload.indexOf(',', from);
+                int to = comma < 0 ? payload.length() : comma;
+                try {
+                    target.add(Integer.parseInt(payload, from, to, 10));
+                } catch (NumberFormatException e) {
+                    log.debug("通知のidが不正です：{}", payload);
+                }
+                from = to + 1;
+            }
+        }
+
+        /** 登録・更新・削除・一括登録の順に発行します */
+        void publish() {
+            ids.forEach((type, set) -> eventPublisher.publishEvent(new QuizChangedEvent(type, new ArrayList<>(set), true)));
+        }
+
+        private QuizChangedEvent.Type typeOf(char c) {
+            for (QuizChangedEvent.Type type : QuizChangedEvent.Type.values()) {
+                if (type.name().charAt(0) == c && type != QuizChangedEvent.Type.RESYNC) {
+                    return type;
+                }
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.quiz.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * クイズの変更を他のインスタンスに通知する（PostgreSQLのNOTIFY）。
+ * 変更と同じトランザクションでNOTIFYを送るため、コミットされた変更のみが通知されます（ロールバックした場合は破棄）。
+ * 通知の内容は「送信元:種類id,id,…」の文字列で、idが多い場合は分割して送ります。
+ */
+@Component
+@ConditionalOnProperty(name = "quiz.cluster.enabled", havingValue = "true")
+public class QuizChangeNotifier {
+    /** 通知のチャンネル */
+    static final String CHANNEL = "quiz_changed";
+    /** 1回の通知に含めるidの上限（PostgreSQLの通知の上限は8000バイト） */
+    static final int MAX_IDS = 600;
+
+    /** SQLの実行 */
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+    /** このインスタンスの識別子（自分が送った通知を受信時に除く） */
+    final String nodeId = Long.toString(ThreadLocalRandom.current().nextLong() & Long.MAX_VALUE, 36);
+
+    /** コミット直前に、変更と同じトランザクションで通知します（受信した変更は送り返さない） */
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onQuizChanged(QuizChangedEvent event) {
+        if (event.isRemote() || event.getType() == QuizChangedEvent.Type.RESYNC) {
+            return;
+        }
+        if (event.getIds().isEmpty() && event.getType() != QuizChangedEvent.Type.BULK) {
+            return;
+        }
+        for (String payload : encode(nodeId, event)) {
+            jdbcTemplate.query("SELECT pg_notify(?, ?)", (RowCallbackHandler) rs -> { }, CHANNEL, payload);
+        }
+    }
+
+    /** 通知の内容に変換します（idが多い場合は分割） */
+    static List<String> encode(String nodeId, QuizChangedEvent event) {
+        String prefix = nodeId + ":" + event.getType().name().charAt(0);
+        List<String> payloads = new ArrayList<>();
+        List<Integer> ids = event.getIds();
+        int from = 0;
+        do {
+            StringBuilder payload = new StringBuilder(prefix);
+            int to = Math.min(from + MAX_IDS, ids.size());
+            for (int i = from; i < to; i++) {
+                if (i > from) {
+                    payload.append(',');
+                }
+                payload.append(ids.get(i));
+            }
+            payloads.add(payload.toString());
+            from = to;
+        } while (from < ids.size());
+        return payloads;
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.quiz.service;
+
+import lombok.Getter;
+
+import java.util.List;
+
+/** クイズの登録・更新・削除を通知するイベント */
+@Getter
+public class QuizChangedEvent {
+    /** 変更の種類（BULK：一括登録。RESYNC：他のインスタンスの変更を取りこぼした可能性があり、すべて読み込み直す。いずれもidは空） */
+    public enum Type { INSERT, UPDATE, DELETE, BULK, RESYNC }
+
+    /** 変更の種類 */
+    private final Type type;
+    /** 変更されたクイズのid（一括更新・一括削除の場合は複数） */
+    private final List<Integer> ids;
+    /** 他のインスタンスでの変更（LISTEN/NOTIFYで受信したもの）の場合はtrue */
+    private final boolean remote;
+
+    /** 1件の変更 */
+    public QuizChangedEvent(Type type, Integer id) {
+        this(type, id == null ? List.of() : List.of(id));
+    }
+
+    /** 複数件の変更 */
+    public QuizChangedEvent(Type type, List<Integer> ids) {
+        this(type, ids, false);
+    }
+
+    /** 複数件の変更（他のインスタンスでの変更かどうかを指定） */
+    public QuizChangedEvent(Type type, List<Integer> ids, boolean remote) {
+        this.type = type;
+        this.ids = List.copyOf(ids);
+        this.remote = remote;
+    }
+}
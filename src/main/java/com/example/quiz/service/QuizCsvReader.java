@@ -0,0 +1,102 @@
+package com.example.quiz.service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * CSVを1レコードずつ読み込むリーダー（RFC 4180形式）。
+ * ダブルクォートで囲まれた項目内のカンマ・改行・「""」に対応します。
+ */
+class QuizCsvReader implements Closeable {
+    /** 入力 */
+    private final Reader reader;
+    /** 読み込みバッファ */
+    private final char[] buffer = new char[8192];
+    /** バッファ内の位置 */
+    private int position;
+    /** バッファ内の文字数 */
+    private int limit;
+    /** 現在の行番号 */
+    private int lineNumber = 1;
+    /** 直前に読み込んだレコードの開始行番号 */
+    private int recordLineNumber;
+
+    QuizCsvReader(Reader reader) {
+        this.reader = reader;
+    }
+
+    /** 次のレコードを読み込みます。終端に達した場合はnullを返却します */
+    List<String> readRecord() throws IOException {
+        int c = read();
+        if (c == -1) {
+            return null;
+        }
+        // 先頭のBOMは読み飛ばす
+        if (c == '\uFEFF' && lineNumber == 1) {
+            c = read();
+        }
+        recordLineNumber = lineNumber;
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        while (true) {
+            if (quoted) {
+                if (c == -1) {
+                    // 閉じられていないクォートは終端までを項目とする
+                    fields.add(field.toString());
+                    return fields;
+                }
+                if (c == '"') {
+                    c = read();
+                    if (c != '"') {
+                        quoted = false;
+                        continue;
+                    }
+                } else if (c == '\n') {
+                    lineNumber++;
+                }
+                field.append((char) c);
+            } else if (c == -1 || c == '\n') {
+                fields.add(field.toString());
+                if (c == '\n') {
+                    lineNumber++;
+                }
+                return fields;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '"' && field.length() == 0) {
+                quoted = true;
+            } else if (c != '\r') {
+                field.append((char) c);
+            }
+            c = read();
+        }
+    }
+
+    /** 直前に読み込んだレコードの開始行番号 */
+    int getRecordLineNumber() {
+        return recordLineNumber;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    /** 1文字読み込む */
+    private int read() throws IOException {
+        if (position == limit) {
+            limit = reader.read(buffer, 0, buffer.length);
+            position = 0;
+            if (limit <= 0) {
+                limit = 0;
+                return -1;
+            }
+        }
+        return buffer[position++];
+    }
+}
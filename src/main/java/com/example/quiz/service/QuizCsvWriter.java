@@ -0,0 +1,44 @@
+package com.example.quiz.service;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/** CSVを1レコードずつ書き込むライター（RFC 4180形式） */
+class QuizCsvWriter {
+    /** 出力 */
+    private final Writer writer;
+
+    QuizCsvWriter(Writer writer) {
+        this.writer = writer;
+    }
+
+    /** 1レコードを書き込みます */
+    void writeRecord(String... fields) throws IOException {
+        for (int i = 0; i < fields.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writeField(fields[i]);
+        }
+        writer.write('\n');
+    }
+
+    /** 1項目を書き込む（カンマ・ダブルクォート・改行を含む場合はクォートする） */
+    private void writeField(String field) throws IOException {
+        if (field == null) {
+            return;
+        }
+        boolean quote = false;
+        for (int i = 0; i < field.length() && !quote; i++) {
+            char c = field.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            writer.write(field);
+            return;
+        }
+        writer.write('"');
+        writer.write(field.replace("\"", "\"\""));
+        writer.write('"');
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.quiz.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/** クイズ一括出力：Service */
+public interface QuizExportService {
+
+    /** 出力形式 */
+    enum Format { CSV, NDJSON }
+
+    /**
+     * 全クイズを出力します。
+     * DBから1件ずつ読み込みながら書き込むため、件数に関わらずメモリ使用量は一定です。
+     */
+    void exportQuizzes(OutputStream output, Format format) throws IOException;
+}
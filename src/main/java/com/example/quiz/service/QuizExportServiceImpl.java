@@ -0,0 +1,90 @@
+package com.example.quiz.service;
+
+import com.example.quiz.entity.Quiz;
+import com.example.quiz.repository.QuizRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+@Service
+public class QuizExportServiceImpl implements QuizExportService {
+
+    /** Repository：注入 */
+    @Autowired
+    QuizRepository quizRepository;
+    /** JSON */
+    @Autowired
+    ObjectMapper objectMapper;
+    /** カーソルで1回に取得する件数 */
+    @Value("${quiz.export.fetch-size:1000}")
+    int fetchSize;
+
+    @Override
+    @Transactional(readOnly = true)
+    public void exportQuizzes(OutputStream output, Format format) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+        try {
+            if (format == Format.NDJSON) {
+                writeNdjson(writer);
+            } else {
+                writeCsv(writer);
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.flush();
+    }
+
+    /** CSV（ヘッダー付き）で出力する */
+    private void writeCsv(Writer writer) throws IOException {
+        QuizCsvWriter csv = new QuizCsvWriter(writer);
+        csv.writeRecord("id", "question", "answer", "author");
+        quizRepository.forEachQuiz(fetchSize, quiz -> {
+            try {
+                csv.writeRecord(String.valueOf(quiz.getId()), quiz.getQuestion(),
+                        String.valueOf(quiz.getAnswer()), quiz.getAuthor());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    /** NDJSON（1行1クイズ）で出力する */
+    private void writeNdjson(Writer writer) throws IOException {
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(writer);
+        // 出力先のWriterは呼び出し元で閉じる
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        // 区切りは各行末の改行のみとする
+        generator.setRootValueSeparator(null);
+        quizRepository.forEachQuiz(fetchSize, quiz -> {
+            try {
+                writeQuiz(generator, quiz);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        generator.close();
+    }
+
+    /** クイズ1件をJSONの1行として書き込む */
+    private static void writeQuiz(JsonGenerator generator, Quiz quiz) throws IOException {
+        generator.writeStartObject();
+        generator.writeNumberField("id", quiz.getId());
+        generator.writeStringField("question", quiz.getQuestion());
+        generator.writeBooleanField("answer", quiz.getAnswer());
+        generator.writeStringField("author", quiz.getAuthor());
+        generator.writeEndObject();
+        generator.writeRaw('\n');
+    }
+}
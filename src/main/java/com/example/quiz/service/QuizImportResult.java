@@ -0,0 +1,50 @@
+package com.example.quiz.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/** クイズ一括登録の結果 */
+@Data
+public class QuizImportResult {
+    /** 読み込んだ件数 */
+    private int total;
+    /** 登録した件数 */
+    private int inserted;
+    /** エラーの件数 */
+    private int failed;
+    /** チャンクごとの結果 */
+    private List<ChunkResult> chunks = new ArrayList<>();
+    /** 取込自体を中断したエラー */
+    private String fatalError;
+
+    /** チャンク（1回のバッチ登録）ごとの結果 */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ChunkResult {
+        /** チャンク番号（1始まり） */
+        private int index;
+        /** 先頭の行番号 */
+        private int firstLine;
+        /** 末尾の行番号 */
+        private int lastLine;
+        /** 登録した件数 */
+        private int inserted;
+        /** エラーメッセージ */
+        private List<String> errors = new ArrayList<>();
+    }
+
+    /** すべてのエラーメッセージを返却します */
+    public List<String> getAllErrors() {
+        List<String> errors = new ArrayList<>();
+        if (fatalError != null) {
+            errors.add(fatalError);
+        }
+        chunks.forEach(chunk -> errors.addAll(chunk.getErrors()));
+        return errors;
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.quiz.service;
+
+import java.io.InputStream;
+
+/** クイズ一括登録：Service */
+public interface QuizImportService {
+
+    /** 取込ファイルの形式 */
+    enum Format { CSV, JSON }
+
+    /**
+     * クイズを一括で登録します。
+     * 入力は1件ずつ読み込みながら検証し、チャンク単位でバッチ登録します（チャンクごとにコミット）。
+     */
+    QuizImportResult importQuizzes(InputStream input, Format format);
+}
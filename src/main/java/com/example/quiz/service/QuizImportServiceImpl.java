@@ -0,0 +1,220 @@
+package com.example.quiz.service;
+
+import com.example.quiz.entity.Quiz;
+import com.example.quiz.form.QuizForm;
+import com.example.quiz.repository.QuizRepository;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.MessageSource;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.validation.FieldError;
+import org.springframework.validation.Validator;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+@Service
+public class QuizImportServiceImpl implements QuizImportService {
+    /** 1チャンクに保持するエラーメッセージの上限 */
+    private static final int MAX_ERRORS_PER_CHUNK = 100;
+
+    /** Repository：注入 */
+    @Autowired
+    QuizRepository quizRepository;
+    /** チャンクごとのトランザクション */
+    @Autowired
+    TransactionTemplate transactionTemplate;
+    /** 入力チェック（QuizFormと同じ制約を使用） */
+    @Autowired
+    Validator validator;
+    /** JSON */
+    @Autowired
+    ObjectMapper objectMapper;
+    /** メッセージ管理 */
+    @Autowired
+    MessageSource messageSource;
+    /** 変更通知 */
+    @Autowired
+    ApplicationEventPublisher eventPublisher;
+    /** 1回のバッチ登録の件数 */
+    @Value("${quiz.import.chunk-size:1000}")
+    int chunkSize;
+
+    @Override
+    public QuizImportResult importQuizzes(InputStream input, Format format) {
+        QuizImportResult result = new QuizImportResult();
+        ChunkWriter writer = new ChunkWriter(result);
+        try {
+            if (format == Format.JSON) {
+                readJson(input, writer);
+            } else {
+                readCsv(input, writer);
+            }
+        } catch (IOException e) {
+            result.setFatalError(message("import.read.error", e.getMessage()));
+        }
+        writer.flush();
+        if (result.getInserted() > 0) {
+            eventPublisher.publishEvent(new QuizChangedEvent(QuizChangedEvent.Type.BULK, List.of()));
+        }
+        return result;
+    }
+
+    /** CSV（question,answer,author。一括出力したファイルのように先頭にidの列があってもよい。idは使用しない）を読み込む */
+    private void readCsv(InputStream input, ChunkWriter writer) throws IOException {
+        try (QuizCsvReader reader = new QuizCsvReader(
+                new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8)))) {
+            List<String> record;
+            while ((record = reader.readRecord()) != null) {
+                int line = reader.getRecordLineNumber();
+                // 空行は読み飛ばす
+                if (record.size() == 1 && record.get(0).isBlank()) {
+                    continue;
+                }
+                // ヘッダー行は読み飛ばす
+                if (line == 1 && ("question".equalsIgnoreCase(record.get(0).trim())
+                        || "id".equalsIgnoreCase(record.get(0).trim()))) {
+                    continue;
+                }
+                if (record.size() != 3 && record.size() != 4) {
+                    writer.reject(line, message("import.column.error", record.size()));
+                    continue;
+                }
+                // 4項目の場合は先頭のidを読み飛ばす（新しいidで登録する）
+                int first = record.size() - 3;
+                writer.add(line, record.get(first), parseAnswer(record.get(first + 1)), record.get(first + 2));
+            }
+        }
+    }
+
+    /** JSON（オブジェクトの配列）を1件ずつ読み込む */
+    private void readJson(InputStream input, ChunkWriter writer) throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(input)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IOException(message("import.json.error"));
+            }
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                int line = parser.getCurrentLocation().getLineNr();
+                JsonNode node = parser.readValueAsTree();
+                JsonNode answer = node.path("answer");
+                writer.add(line, node.path("question").asText(null),
+                        answer.isBoolean() ? answer.booleanValue() : parseAnswer(answer.asText(null)),
+                        node.path("author").asText(null));
+            }
+        }
+    }
+
+    /** 解答の文字列を変換する（true/false、○/×、1/0）。変換できない場合はnull */
+    private static Boolean parseAnswer(String value) {
+        if (value == null) {
+            return null;
+        }
+        switch (value.trim().toLowerCase(Locale.ROOT)) {
+            case "true": case "○": case "1":
+                return true;
+            case "false": case "×": case "0":
+                return false;
+            default:
+                return null;
+        }
+    }
+
+    /** メッセージを取得する */
+    private String message(String code, Object... args) {
+        return messageSource.getMessage(code, args, Locale.getDefault());
+    }
+
+    /** 検証済みのクイズをチャンク単位でバッチ登録する */
+    private class ChunkWriter {
+        /** 結果 */
+        private final QuizImportResult result;
+        /** 登録待ちのクイズ */
+        private final List<Quiz> pending = new ArrayList<>(chunkSize);
+        /** 現在のチャンク */
+        private QuizImportResult.ChunkResult chunk;
+
+        ChunkWriter(QuizImportResult result) {
+            this.result = result;
+        }
+
+        /** 1件を検証し、登録待ちに追加する */
+        void add(int line, String question, Boolean answer, String author) {
+            QuizForm form = new QuizForm(null, question, answer, author, true);
+            BeanPropertyBindingResult errors = new BeanPropertyBindingResult(form, "quizForm");
+            validator.validate(form, errors);
+            if (errors.hasErrors()) {
+                for (FieldError error : errors.getFieldErrors()) {
+                    reject(line, messageSource.getMessage(error, Locale.getDefault()));
+                }
+                return;
+            }
+            if (answer == null) {
+                reject(line, message("import.answer.error"));
+                return;
+            }
+            chunkAt(line).setLastLine(line);
+            result.setTotal(result.getTotal() + 1);
+            pending.add(new Quiz(null, question, answer, author));
+            if (pending.size() >= chunkSize) {
+                flush();
+            }
+        }
+
+        /** 1件をエラーとして記録する */
+        void reject(int line, String reason) {
+            QuizImportResult.ChunkResult current = chunkAt(line);
+            current.setLastLine(line);
+            if (current.getErrors().size() < MAX_ERRORS_PER_CHUNK) {
+                current.getErrors().add(message("import.row.error", line, reason));
+            }
+            result.setTotal(result.getTotal() + 1);
+            result.setFailed(result.getFailed() + 1);
+        }
+
+        /** 登録待ちのクイズを1トランザクションでバッチ登録する */
+        void flush() {
+            if (chunk == null) {
+                return;
+            }
+            if (!pending.isEmpty()) {
+                try {
+                    int inserted = transactionTemplate.execute(status -> quizRepository.batchInsert(pending));
+                    chunk.setInserted(inserted);
+                    result.setInserted(result.getInserted() + inserted);
+                } catch (DataAccessException e) {
+                    // チャンク全体をエラーとする（ロールバック済み）
+                    chunk.getErrors().add(message("import.chunk.error",
+                            chunk.getFirstLine(), chunk.getLastLine(), e.getMostSpecificCause().getMessage()));
+                    result.setFailed(result.getFailed() + pending.size());
+                }
+                pending.clear();
+            }
+            chunk = null;
+        }
+
+        /** 現在のチャンクを返却する（なければ開始する） */
+        private QuizImportResult.ChunkResult chunkAt(int line) {
+            if (chunk == null) {
+                chunk = new QuizImportResult.ChunkResult();
+                chunk.setIndex(result.getChunks().size() + 1);
+                chunk.setFirstLine(line);
+                result.getChunks().add(chunk);
+            }
+            return chunk;
+        }
+    }
+}
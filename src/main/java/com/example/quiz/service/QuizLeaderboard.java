@@ -0,0 +1,267 @@
+package com.example.quiz.service;
+
+import com.example.quiz.entity.QuizPlayerScore;
+import com.example.quiz.repository.QuizPlayerScoreRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * プレイヤーのスコア（正解数）のランキング。
+ * スコアはメモリ上の順位付きスキップリスト（RankedSkipList）で保持し、順位の付け直し・順位の取得・上位の取得をいずれも O(log n) で行います。
+ * 解答ごとの加算はロックを取らずにプレイヤーごとの未反映の増分（AtomicLong）に加えるのみで、
+ * スキップリストの順位の付け直しは、参照・書き込みの前と quiz.leaderboard.apply-interval-ms（既定：100ミリ秒）ごとに
+ * 書き込みロックを取ってまとめて行います（同じプレイヤーへの同時の加算のみが競合する）。
+ * 解答の判定時にDBにはアクセスせず、前回の書き込み以降の増分を一定間隔でまとめてquiz_player_scoreテーブルに加算します。
+ * 起動完了時にDBのスコアを読み込みます（読み込み前の加算とは合算）。複数インスタンスの場合、他のインスタンスでの加算は再起動まで反映されません。
+ */
+@Slf4j
+@Component
+public class QuizLeaderboard {
+    /** プレイヤー名の長さの上限 */
+    public static final int MAX_PLAYER_LENGTH = 50;
+
+    /** 書き込み */
+    @Autowired
+    QuizPlayerScoreRepository quizPlayerScoreRepository;
+    /** 1回のバッチ更新（1トランザクション）の件数 */
+    @Value("${quiz.leaderboard.chunk-size:1000}")
+    int chunkSize;
+    /** 起動時の読み込みで、カーソルで1回に取得する件数 */
+    @Value("${quiz.leaderboard.fetch-size:1000}")
+    int fetchSize;
+    /** 読み込み用（読み取り専用） */
+    private final TransactionTemplate readTransaction;
+    /** 書き込み用 */
+    private final TransactionTemplate writeTransaction;
+
+    /** プレイヤー名 → スコア */
+    private final Map<String, Player> players = new ConcurrentHashMap<>();
+    /** 未反映の増分があるプレイヤー（増分が0から増えたときに追加） */
+    private final Queue<Player> changed = new ConcurrentLinkedQueue<>();
+    /** スコアの順位 */
+    private final RankedSkipList ranking = new RankedSkipList();
+    /** 前回の書き込み以降にスコアが変わったプレイヤー */
+    private List<Player> dirty = new ArrayList<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public QuizLeaderboard(PlatformTransactionManager transactionManager, MeterRegistry registry) {
+        readTransaction = new TransactionTemplate(transactionManager);
+        readTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        readTransaction.setReadOnly(true);
+        writeTransaction = new TransactionTemplate(transactionManager);
+        Gauge.builder("quiz.leaderboard.players", this, QuizLeaderboard::size)
+                .description("ランキングのプレイヤー数").register(registry);
+    }
+
+    /** 前後の空白を除いたプレイヤー名。空または長すぎる場合はnull（スコアを記録しない） */
+    public static String normalize(String player) {
+        if (player == null) {
+            return null;
+        }
+        String trimmed = player.strip();
+        return trimmed.isEmpty() || trimmed.length() > MAX_PLAYER_LENGTH ? null : trimmed;
+    }
+
+    /** スコアを加算します（DBアクセス・ロックなし。順位はまとめて付け直す） */
+    public void add(String player, long points) {
+        if (points <= 0) {
+            return;
+        }
+        Player p = players.get(player);
+        if (p == null) {
+            p = players.computeIfAbsent(player, Player::new);
+        }
+        if (p.pending.getAndAdd(points) == 0) {
+            changed.add(p);
+        }
+    }
+
+    /** 未反映の増分をまとめて順位に反映します */
+    @Scheduled(fixedDelayString = "${quiz.leaderboard.apply-interval-ms:100}")
+    public void apply() {
+        if (changed.isEmpty()) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            applyLocked();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** プレイヤーのスコア・順位を取得します */
+    public Optional<QuizPlayerScore> find(String player) {
+        apply();
+        lock.readLock().lock();
+        try {
+            Player p = players.get(player);
+            return p == null || !p.ranked ? Optional.empty()
+                    : Optional.of(new QuizPlayerScore(p.name, p.score, ranking.countHigher(p.score) + 1));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** スコアの高い順にoffset件目（0始まり）から最大limit件を取得します */
+    public List<QuizPlayerScore> top(int offset, int limit) {
+        apply();
+        lock.readLock().lock();
+        try {
+            return ranking.range(offset, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** プレイヤー数 */
+    public int size() {
+        apply();
+        lock.readLock().lock();
+        try {
+            return ranking.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** 起動完了時にDBのスコアを読み込みます（書き込み済みの分として合算） */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        try {
+            readTransaction.executeWithoutResult(status -> quizPlayerScoreRepository.forEach(fetchSize, saved -> {
+                lock.writeLock().lock();
+                try {
+                    Player p = players.computeIfAbsent(saved.getPlayer(), Player::new);
+                    addLocked(p, saved.getScore());
+                    p.flushed += saved.getScore();
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            }));
+        } catch (RuntimeException e) {
+            log.warn("ランキングを読み込めませんでした：{}", e.getMessage());
+        }
+    }
+
+    /** 前回の書き込み以降の増分をDBに加算します（失敗した分は次回に再度加算） */
+    @Scheduled(fixedDelayString = "${quiz.leaderboard.flush-interval-ms:10000}", initialDelayString = "${quiz.leaderboard.flush-interval-ms:10000}")
+    public synchronized void flush() {
+        List<Player> pending;
+        List<QuizPlayerScore> deltas = new ArrayList<>();
+        lock.writeLock().lock();
+        try {
+            applyLocked();
+            pending = dirty;
+            dirty = new ArrayList<>();
+            for (Player p : pending) {
+                p.dirty = false;
+                deltas.add(new QuizPlayerScore(p.name, p.score - p.flushed, 0));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        for (int from = 0; from < deltas.size(); from += chunkSize) {
+            int to = Math.min(from + chunkSize, deltas.size());
+            List<QuizPlayerScore> chunk = deltas.subList(from, to);
+            try {
+                writeTransaction.executeWithoutResult(status -> quizPlayerScoreRepository.addAll(chunk));
+            } catch (RuntimeException e) {
+                log.warn("ランキングを書き込めませんでした（{}件は次回に書き込みます）：{}", deltas.size() - from, e.getMessage());
+                lock.writeLock().lock();
+                try {
+                    pending.subList(from, pending.size()).forEach(this::markDirty);
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                return;
+            }
+            lock.writeLock().lock();
+            try {
+                for (int i = from; i < to; i++) {
+                    pending.get(i).flushed += deltas.get(i).getScore();
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    /** 終了時に未書き込みの増分を書き込みます */
+    @PreDestroy
+    public void close() {
+        flush();
+    }
+
+    /** 未反映の増分をスコアに加算し、書き込み対象にします（書き込みロック中に呼び出すこと） */
+    private void applyLocked() {
+        Player p;
+        while ((p = changed.poll()) != null) {
+            // 取り出した後の加算は、増分が0から増えるため再度追加される
+            long points = p.pending.getAndSet(0);
+            if (points != 0) {
+                addLocked(p, points);
+                markDirty(p);
+            }
+        }
+    }
+
+    /** スコアを加算して順位を付け直します（書き込みロック中に呼び出すこと） */
+    private void addLocked(Player p, long points) {
+        if (p.ranked) {
+            ranking.remove(p.name, p.score);
+        }
+        p.score += points;
+        ranking.insert(p.name, p.score);
+        p.ranked = true;
+    }
+
+    /** 書き込み対象にします（書き込みロック中に呼び出すこと） */
+    private void markDirty(Player p) {
+        if (!p.dirty) {
+            p.dirty = true;
+            dirty.add(p);
+        }
+    }
+
+    /** 1プレイヤー分のスコア */
+    private static class Player {
+        final String name;
+        /** 順位に反映していない増分（ロックなしで加算） */
+        final AtomicLong pending = new AtomicLong();
+        /** スコア（以下、書き込みロック中に参照・変更） */
+        long score;
+        /** ランキングに登録済み */
+        boolean ranked;
+        /** 書き込み済みのスコア */
+        long flushed;
+        /** 書き込み対象 */
+        boolean dirty;
+
+        Player(String name) {
+            this.name = name;
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package com.example.quiz.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * QuizServiceの計測。
+ * QuizServiceの各メソッドの処理時間と結果は、QuizMetricsAdvisorがメソッド呼び出しの前後で記録します。
+ * メーターは起動時にすべて登録しておき、記録時はタグの生成やレジストリの検索を行いません（記録ごとのオブジェクト生成なし）。
+ * <ul>
+ * <li>quiz.service（Timer、tag：method）：メソッドごとの処理時間（ヒストグラム付き）</li>
+ * <li>quiz.service.rows（Counter、tag：method）：取得した件数</li>
+ * <li>quiz.answers（Counter、tag：result）：正解／不正解の件数</li>
+ * <li>quiz.answer.cache.*：解答キャッシュのヒット・ミス・追い出し・無効化の件数と容量</li>
+ * </ul>
+ * 接続プールの待ち時間はActuatorが登録するhikaricp.connections.acquireで確認できます。
+ */
+@Component
+public class QuizMetrics {
+
+    /** 計測対象の処理 */
+    public enum Operation {
+        SELECT_ALL("selectAll"),
+        SELECT_PAGE("selectPage"),
+        SELECT_ALL_IN_CHUNKS("selectAllInChunks"),
+        SELECT_ONE_BY_ID("selectOneById"),
+        SELECT_ONE_FOR_UPDATE("selectOneForUpdate"),
+        SELECT_ONE_RANDOM_QUIZ("selectOneRandomQuiz"),
+        SELECT_RANDOM_QUIZZES("selectRandomQuizzes"),
+        SEARCH_QUIZZES("searchQuizzes"),
+        SELECT_STATS("selectStats"),
+        SELECT_LEADERBOARD("selectLeaderboard"),
+        SELECT_PLAYER_SCORE("selectPlayerScore"),
+        CHECK_QUIZ("checkQuiz"),
+        INSERT_QUIZ("insertQuiz"),
+        UPDATE_QUIZ("updateQuiz"),
+        DELETE_QUIZ_BY_ID("deleteQuizById"),
+        UPDATE_QUIZZES("updateQuizzes"),
+        DELETE_QUIZZES_BY_IDS("deleteQuizzesByIds"),
+        DELETE_QUIZZES_BY_AUTHOR("deleteQuizzesByAuthor");
+
+        /** メソッド名から処理への対応 */
+        private static final Map<String, Operation> BY_METHOD_NAME = new HashMap<>();
+
+        static {
+            for (Operation operation : values()) {
+                BY_METHOD_NAME.put(operation.methodName, operation);
+            }
+        }
+
+        /** タグに設定するメソッド名 */
+        private final String methodName;
+
+        Operation(String methodName) {
+            this.methodName = methodName;
+        }
+
+        public String getMethodName() {
+            return methodName;
+        }
+
+        /** メソッド名に対応する処理を返却します（計測対象でない場合はnull） */
+        public static Operation of(String methodName) {
+            return BY_METHOD_NAME.get(methodName);
+        }
+    }
+
+    /** 処理時間（Operationの順） */
+    private final Timer[] timers;
+    /** 取得件数（Operationの順） */
+    private final Counter[] rows;
+    /** 正解数 */
+    private final Counter correct;
+    /** 不正解数 */
+    private final Counter incorrect;
+
+    public QuizMetrics(MeterRegistry registry, QuizAnswerCache quizAnswerCache) {
+        Operation[] operations = Operation.values();
+        timers = new Timer[operations.length];
+        rows = new Counter[operations.length];
+        for (Operation operation : operations) {
+            timers[operation.ordinal()] = Timer.builder("quiz.service")
+                    .description("QuizServiceの処理時間")
+                    .tag("method", operation.getMethodName())
+                    .publishPercentileHistogram()
+                    .minimumExpectedValue(Duration.ofMillis(1))
+                    .maximumExpectedValue(Duration.ofSeconds(10))
+                    .register(registry);
+            rows[operation.ordinal()] = Counter.builder("quiz.service.rows")
+                    .description("QuizServiceで取得したクイズの件数")
+                    .tag("method", operation.getMethodName())
+                    .register(registry);
+        }
+        correct = Counter.builder("quiz.answers").description("解答の判定結果").tag("result", "correct").register(registry);
+        incorrect = Counter.builder("quiz.answers").description("解答の判定結果").tag("result", "incorrect").register(registry);
+
+        FunctionCounter.builder("quiz.answer.cache.hits", quizAnswerCache, QuizAnswerCache::hitCount).register(registry);
+        FunctionCounter.builder("quiz.answer.cache.misses", quizAnswerCache, QuizAnswerCache::missCount).register(registry);
+        FunctionCounter.builder("quiz.answer.cache.evictions", quizAnswerCache, QuizAnswerCache::evictionCount).register(registry);
+        FunctionCounter.builder("quiz.answer.cache.invalidations", quizAnswerCache, QuizAnswerCache::invalidationCount)
+                .register(registry);
+        Gauge.builder("quiz.answer.cache.capacity", quizAnswerCache, QuizAnswerCache::capacity).register(registry);
+    }
+
+    /** 処理の開始時刻を返却します（recordに渡す） */
+    public long start() {
+        return System.nanoTime();
+    }
+
+    /** startで取得した開始時刻からの処理時間を記録します */
+    public void record(Operation operation, long startNanos) {
+        timers[operation.ordinal()].record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /** 取得件数を記録します */
+    public void rows(Operation operation, int count) {
+        rows[operation.ordinal()].increment(count);
+    }
+
+    /** 解答の判定結果を記録します */
+    public void answer(boolean isCorrect) {
+        (isCorrect ? correct : incorrect).increment();
+    }
+
+    /** メソッドの戻り値から、解答の判定結果または取得件数を記録します */
+    public void result(Operation operation, Object value) {
+        switch (operation) {
+            case CHECK_QUIZ:
+                if (value instanceof Boolean) {
+                    answer((Boolean) value);
+                }
+                break;
+            case SELECT_ALL_IN_CHUNKS:
+            case INSERT_QUIZ:
+            case DELETE_QUIZ_BY_ID:
+                // 件数を返却しない（分割取得は呼び出し元での繰り返し時に取得する）
+                break;
+            default:
+                rows(operation, count(value));
+                break;
+        }
+    }
+
+    /** 戻り値の件数（更新の成否は1件または0件） */
+    private static int count(Object value) {
+        if (value instanceof Collection) {
+            return ((Collection<?>) value).size();
+        }
+        if (value instanceof Optional) {
+            return ((Optional<?>) value).isPresent() ? 1 : 0;
+        }
+        if (value instanceof Boolean) {
+            return (Boolean) value ? 1 : 0;
+        }
+        if (value instanceof QuizSearchResult) {
+            return ((QuizSearchResult) value).getQuizzes().size();
+        }
+        if (value instanceof QuizBulkResult) {
+            return ((QuizBulkResult) value).getAffected();
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.quiz.service;
+
+import com.example.quiz.service.QuizMetrics.Operation;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.support.StaticMethodMatcherPointcutAdvisor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.Role;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+
+/**
+ * QuizServiceの各メソッドの処理時間と結果（取得件数・解答の判定結果）をQuizMetricsに記録するAdvisor。
+ * トランザクションより外側で実行するため、処理時間にはトランザクションの開始・コミットも含まれます。
+ * 同じクラス内の呼び出し（checkQuizの引数の省略など）は記録しません。
+ * <p>
+ * トランザクションと同じ自動プロキシ（@EnableTransactionManagement）で適用させるため、基盤のBeanとして登録します。
+ * QuizMetricsは最初の呼び出し時に取得します（プロキシの作成時にメーターを登録しない）。
+ */
+@Component
+@Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+public class QuizMetricsAdvisor extends StaticMethodMatcherPointcutAdvisor implements MethodInterceptor {
+
+    /** 計測 */
+    private final ObjectProvider<QuizMetrics> quizMetricsProvider;
+    /** 最初の呼び出し時に取得した計測 */
+    private volatile QuizMetrics quizMetrics;
+
+    public QuizMetricsAdvisor(ObjectProvider<QuizMetrics> quizMetricsProvider) {
+        this.quizMetricsProvider = quizMetricsProvider;
+        setAdvice(this);
+        setOrder(Ordered.HIGHEST_PRECEDENCE);
+    }
+
+    /** QuizServiceの実装クラスの、計測対象のメソッドのみ */
+    @Override
+    public boolean matches(Method method, Class<?> targetClass) {
+        return QuizService.class.isAssignableFrom(targetClass) && Operation.of(method.getName()) != null;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        Operation operation = Operation.of(invocation.getMethod().getName());
+        QuizMetrics metrics = metrics();
+        long start = metrics.start();
+        try {
+            Object result = invocation.proceed();
+            metrics.result(operation, result);
+            return result;
+        } finally {
+            metrics.record(operation, start);
+        }
+    }
+
+    private QuizMetrics metrics() {
+        QuizMetrics metrics = quizMetrics;
+        if (metrics == null) {
+            metrics = quizMetricsProvider.getObject();
+            quizMetrics = metrics;
+        }
+        return metrics;
+    }
+}
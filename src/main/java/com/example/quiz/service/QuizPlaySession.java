@@ -0,0 +1,92 @@
+package com.example.quiz.service;
+
+import com.example.quiz.entity.Quiz;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.annotation.SessionScope;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * プレイセッション（HTTPセッションごとに1つ）。
+ * 1ラウンド分のクイズを解答ごとまとめて保持し、重複なしで順に出題して、解答の判定もセッション内のコピーで行います。
+ * セッションに保存するため、Quizではなく配列で保持します。
+ */
+@Component
+@SessionScope
+public class QuizPlaySession implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    /** 出題するクイズのid */
+    private int[] ids = new int[0];
+    /** 出題するクイズの内容 */
+    private String[] questions = new String[0];
+    /** 出題するクイズの解答 */
+    private boolean[] answers = new boolean[0];
+    /** 現在出題中のクイズの位置 */
+    private int position;
+    /** 正解数 */
+    private int correctCount;
+
+    /** 新しいラウンドを開始します */
+    public synchronized void start(List<Quiz> quizzes) {
+        int size = quizzes.size();
+        ids = new int[size];
+        questions = new String[size];
+        answers = new boolean[size];
+        for (int i = 0; i < size; i++) {
+            Quiz quiz = quizzes.get(i);
+            ids[i] = quiz.getId();
+            questions[i] = quiz.getQuestion();
+            answers[i] = Boolean.TRUE.equals(quiz.getAnswer());
+        }
+        position = 0;
+        correctCount = 0;
+    }
+
+    /** 出題するクイズが残っているか判定します */
+    public synchronized boolean hasNext() {
+        return position < ids.length;
+    }
+
+    /** 現在出題中のクイズのidを返却します（hasNextがtrueの場合のみ） */
+    public synchronized int currentId() {
+        return ids[position];
+    }
+
+    /** 現在出題中のクイズの内容を返却します（hasNextがtrueの場合のみ） */
+    public synchronized String currentQuestion() {
+        return questions[position];
+    }
+
+    /**
+     * 現在出題中のクイズの正解／不正解を判定し、次のクイズへ進みます。
+     * idが出題中のクイズと一致しない場合（二重送信や古い画面からの送信）はnullを返却します。
+     */
+    public synchronized Boolean check(Integer id, Boolean myAnswer) {
+        if (id == null || !hasNext() || ids[position] != id) {
+            return null;
+        }
+        boolean correct = Boolean.valueOf(answers[position]).equals(myAnswer);
+        if (correct) {
+            correctCount++;
+        }
+        position++;
+        return correct;
+    }
+
+    /** 解答済みの件数を返却します */
+    public synchronized int getAnsweredCount() {
+        return position;
+    }
+
+    /** 正解数を返却します */
+    public synchronized int getCorrectCount() {
+        return correctCount;
+    }
+
+    /** 1ラウンドの件数を返却します */
+    public synchronized int getTotalCount() {
+        return ids.length;
+    }
+}
@@ -0,0 +1,506 @@
+package com.example.quiz.service;
+
+import com.example.quiz.entity.Quiz;
+import com.example.quiz.repository.QuizRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.text.Normalizer;
+import java.util.*;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * クイズの内容・作成者の全文検索用の索引（転置索引）。
+ * 文字単位（1文字）と2文字単位（bigram）をキーに、そのキーを含むクイズのidを昇順に保持します。
+ * 日本語のように単語の区切りがない文章でも、部分一致で検索できます。
+ * <p>
+ * 起動完了時にDBから作成し、以降はQuizChangedEventでコミットされた変更を反映します。
+ * 一致の確認と並び順の決定のため、クイズの内容・作成者も保持します。
+ */
+@Component
+public class QuizSearchIndex {
+    /** 1回の検索で使用する単語数の上限 */
+    private static final int MAX_TERMS = 8;
+    /** 変更の反映を直列化するロックの数（idで分散） */
+    private static final int ID_LOCKS = 64;
+    /** すべてのidのロック */
+    private static final BitSet ALL_IDS = new BitSet(ID_LOCKS);
+
+    static {
+        ALL_IDS.set(0, ID_LOCKS);
+    }
+
+    /** Repository：注入 */
+    @Autowired
+    QuizRepository quizRepository;
+    /** 作成時の全件の読み込み用（読み取り専用。レプリカを指定した場合はレプリカで読み込む） */
+    private final TransactionTemplate readTransaction;
+    /**
+     * 索引に反映する値の読み込み用（コミット後に呼ばれるため新しいトランザクションで読み込む）。
+     * レプリカの遅延で古い値を索引に登録しないよう、読み取り専用にせずプライマリで読み込む
+     */
+    private final TransactionTemplate latestTransaction;
+    /** 作成時にカーソルで1回に取得する件数 */
+    @Value("${quiz.search.fetch-size:1000}")
+    int fetchSize;
+    /** 1回の検索で一致を確認するクイズの上限（新しいものから） */
+    @Value("${quiz.search.max-candidates:2000}")
+    int maxCandidates;
+
+    /** キー → そのキーを含むクイズのid */
+    private final Map<Integer, Postings> postings = new HashMap<>();
+    /** id → 索引に登録したクイズ */
+    private final Map<Integer, Document> documents = new HashMap<>();
+    /** 索引に登録したidの最大値（一括登録の反映用） */
+    private int maxId = KeysetQuizIterable.FIRST;
+    /** 作成中に変更を反映したid（作成時の読み込み結果で上書きしない） */
+    private Set<Integer> touchedWhileBuilding = new HashSet<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    /**
+     * 同じidの変更の読み込み～反映を直列化するロック（idで分散）。
+     * 先に読み込んだ古い値を、後から読み込んだ新しい値より後に反映しないようにします
+     */
+    private final Lock[] idLocks = new Lock[ID_LOCKS];
+    /** 作成完了 */
+    private volatile boolean ready;
+
+    public QuizSearchIndex(PlatformTransactionManager transactionManager) {
+        readTransaction = new TransactionTemplate(transactionManager);
+        readTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        readTransaction.setReadOnly(true);
+        latestTransaction = new TransactionTemplate(transactionManager);
+        latestTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        for (int i = 0; i < ID_LOCKS; i++) {
+            idLocks[i] = new ReentrantLock();
+        }
+    }
+
+    /** 起動完了時に全件を読み込んで索引を作成します */
+    @EventListener(ApplicationReadyEvent.class)
+    public void build() {
+        readTransaction.executeWithoutResult(status -> quizRepository.forEachQuiz(fetchSize, quiz -> {
+            lock.writeLock().lock();
+            try {
+                if (!touchedWhileBuilding.contains(quiz.getId())) {
+                    add(quiz);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }));
+        lock.writeLock().lock();
+        try {
+            touchedWhileBuilding = null;
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** 索引を空にして作成し直します（作成中は検索結果なし） */
+    void rebuild() {
+        lock.writeLock().lock();
+        try {
+            ready = false;
+            postings.clear();
+            documents.clear();
+            maxId = KeysetQuizIterable.FIRST;
+            touchedWhileBuilding = new HashSet<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        build();
+    }
+
+    /** コミットされたクイズの変更を索引に反映します */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onQuizChanged(QuizChangedEvent event) {
+        if (event.getType() == QuizChangedEvent.Type.RESYNC) {
+            // 変更内容が分からないため作成し直す
+            rebuild();
+        } else if (event.getType() == QuizChangedEvent.Type.BULK) {
+            catchUp();
+        } else if (!event.getIds().isEmpty()) {
+            BitSet stripes = new BitSet(ID_LOCKS);
+            event.getIds().forEach(id -> stripes.set(Math.floorMod(id, ID_LOCKS)));
+            lockIds(stripes);
+            try {
+                // 登録・更新は、コミットされた値をまとめて読み込む（同じidの反映が終わってから読み込む）
+                Iterable<Quiz> quizzes = event.getType() == QuizChangedEvent.Type.DELETE
+                        ? List.of()
+                        : latestTransaction.execute(status -> quizRepository.findAllById(event.getIds()));
+                lock.writeLock().lock();
+                try {
+                    for (int id : event.getIds()) {
+                        remove(id);
+                        if (touchedWhileBuilding != null) {
+                            touchedWhileBuilding.add(id);
+                        }
+                    }
+                    quizzes.forEach(this::add);
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            } finally {
+                unlockIds(stripes);
+            }
+        }
+    }
+
+    /** 指定したidのロックを、デッドロックしないよう番号順に取得します */
+    private void lockIds(BitSet stripes) {
+        for (int i = stripes.nextSetBit(0); i >= 0; i = stripes.nextSetBit(i + 1)) {
+            idLocks[i].lock();
+        }
+    }
+
+    private void unlockIds(BitSet stripes) {
+        for (int i = stripes.nextSetBit(0); i >= 0; i = stripes.nextSetBit(i + 1)) {
+            idLocks[i].unlock();
+        }
+    }
+
+    /** 索引に登録したidより大きいidのクイズ（一括登録分）を追加します */
+    private void catchUp() {
+        int after;
+        lock.readLock().lock();
+        try {
+            after = maxId;
+        } finally {
+            lock.readLock().unlock();
+        }
+        List<Quiz> chunk;
+        do {
+            int afterId = after;
+            // 読み込み中に削除・更新されたクイズの古い値を反映しないよう、すべてのidのロックを取得する
+            lockIds(ALL_IDS);
+            try {
+                chunk = latestTransaction.execute(status -> quizRepository.findPageAfter(afterId, fetchSize));
+                lock.writeLock().lock();
+                try {
+                    for (Quiz quiz : chunk) {
+                        if (!documents.containsKey(quiz.getId())) {
+                            add(quiz);
+                        }
+                    }
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            } finally {
+                unlockIds(ALL_IDS);
+            }
+            if (!chunk.isEmpty()) {
+                after = chunk.get(chunk.size() - 1).getId();
+            }
+        } while (chunk.size() == fetchSize);
+    }
+
+    /**
+     * 空白で区切った単語をすべて（内容または作成者に）含むクイズを検索します。
+     * 並び順は、内容に含む単語が多い順 → 内容が短い順 → 新しい順です。
+     */
+    public QuizSearchResult search(String query, int offset, int limit) {
+        QuizSearchResult result = new QuizSearchResult();
+        result.setReady(ready);
+        List<String> terms = terms(query);
+        if (!ready || terms.isEmpty()) {
+            return result;
+        }
+        // 一致したクイズの並び順のキー（昇順に並べると表示順。下位32ビットがid）
+        long[] hits = new long[16];
+        int hitCount = 0;
+        lock.readLock().lock();
+        try {
+            // 全キーの索引を取得（1つでもなければ一致なし）
+            List<Postings> lists = new ArrayList<>();
+            for (int key : keys(terms)) {
+                Postings list = postings.get(key);
+                if (list == null) {
+                    return result;
+                }
+                lists.add(list);
+            }
+            // 件数の少ない索引から順に、他の索引にも含まれるidを新しい順に探す
+            // （他の索引も降順に走査するため、メモリを連続して読み込む）
+            lists.sort(Comparator.comparingInt(list -> list.size));
+            Postings smallest = lists.get(0);
+            int[] cursors = new int[lists.size()];
+            for (int j = 1; j < lists.size(); j++) {
+                cursors[j] = lists.get(j).size - 1;
+            }
+            int examined = 0;
+            candidates:
+            for (int i = smallest.size - 1; i >= 0; i--) {
+                int id = smallest.ids[i];
+                for (int j = 1; j < lists.size(); j++) {
+                    Postings list = lists.get(j);
+                    cursors[j] = list.seek(cursors[j], id);
+                    if (cursors[j] < 0) {
+                        // これより小さいidは含まれない
+                        break candidates;
+                    }
+                    if (list.ids[cursors[j]] != id) {
+                        continue candidates;
+                    }
+                }
+                if (examined++ == maxCandidates) {
+                    result.setTruncated(true);
+                    break;
+                }
+                Document document = documents.get(id);
+                int score = document.score(terms);
+                if (score > 0) {
+                    if (hitCount == hits.length) {
+                        hits = Arrays.copyOf(hits, hitCount * 2);
+                    }
+                    hits[hitCount++] = sortKey(score, document.question.length(), id);
+                }
+            }
+            Arrays.sort(hits, 0, hitCount);
+            for (int i = offset; i < Math.min(hitCount, offset + limit); i++) {
+                result.getQuizzes().add(documents.get(~(int) hits[i]).toQuiz());
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        result.setTotal(hitCount);
+        return result;
+    }
+
+    /** 索引に登録したクイズの件数 */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** 作成が完了しているか判定します */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /** クイズを索引に登録する（書き込みロック中に呼び出す） */
+    void add(Quiz quiz) {
+        Document document = new Document(quiz);
+        documents.put(quiz.getId(), document);
+        for (int key : document.keys()) {
+            postings.computeIfAbsent(key, k -> new Postings()).add(quiz.getId());
+        }
+        maxId = Math.max(maxId, quiz.getId());
+    }
+
+    /** クイズを索引から削除する（書き込みロック中に呼び出す） */
+    void remove(int id) {
+        Document document = documents.remove(id);
+        if (document == null) {
+            return;
+        }
+        for (int key : document.keys()) {
+            Postings list = postings.get(key);
+            if (list != null && list.remove(id) && list.size == 0) {
+                postings.remove(key);
+            }
+        }
+    }
+
+    /** 検索文字列を正規化し、空白で単語に区切る */
+    static List<String> terms(String query) {
+        if (query == null) {
+            return List.of();
+        }
+        LinkedHashSet<String> terms = new LinkedHashSet<>();
+        for (String term : normalize(query).split("\\s+")) {
+            if (!term.isEmpty() && terms.size() < MAX_TERMS) {
+                terms.add(term);
+            }
+        }
+        return new ArrayList<>(terms);
+    }
+
+    /** 単語の検索に使用するキー（1文字の単語は文字、2文字以上はbigram） */
+    private static Set<Integer> keys(List<String> terms) {
+        Set<Integer> keys = new HashSet<>();
+        for (String term : terms) {
+            if (term.length() == 1) {
+                keys.add(unigram(term.charAt(0)));
+            } else {
+                for (int i = 0; i + 1 < term.length(); i++) {
+                    keys.add(bigram(term.charAt(i), term.charAt(i + 1)));
+                }
+            }
+        }
+        return keys;
+    }
+
+    /** 全角・半角と大文字・小文字を区別しないよう正規化する */
+    static String normalize(String text) {
+        return Normalizer.normalize(text, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * 並び順のキー（昇順に並べると、点数の高い順 → 内容が短い順 → 新しい順）。
+     * 上位から点数（反転）16ビット、内容の長さ16ビット、id（反転）32ビットとします。
+     */
+    private static long sortKey(int score, int length, int id) {
+        return (long) (0xFFFF - Math.min(score, 0xFFFF)) << 48
+                | (long) Math.min(length, 0xFFFF) << 32
+                | (~id & 0xFFFFFFFFL);
+    }
+
+    /** 1文字のキー */
+    private static int unigram(char c) {
+        return mix(c << 16);
+    }
+
+    /** 2文字のキー */
+    private static int bigram(char c1, char c2) {
+        return mix(c1 << 16 | c2);
+    }
+
+    /**
+     * 文字コードの近いキー同士がHashMapの同じバケットに集中しないよう、奇数の定数を掛けて分散させる
+     * （奇数の乗算は1対1の変換のため、キーは重複しない）。
+     */
+    private static int mix(int key) {
+        return key * 0x9E3779B1;
+    }
+
+    /** 索引に登録したクイズ */
+    private static final class Document {
+        private final Quiz quiz;
+        /** 正規化した内容（正規化しても変わらない場合は同じインスタンス） */
+        private final String question;
+        /** 正規化した作成者（正規化しても変わらない場合は同じインスタンス） */
+        private final String author;
+
+        Document(Quiz quiz) {
+            this.quiz = new Quiz(quiz.getId(), quiz.getQuestion(), quiz.getAnswer(), quiz.getAuthor());
+            this.question = normalizeOrSame(quiz.getQuestion());
+            this.author = normalizeOrSame(quiz.getAuthor());
+        }
+
+        private static String normalizeOrSame(String text) {
+            if (text == null) {
+                return "";
+            }
+            String normalized = normalize(text);
+            return normalized.equals(text) ? text : normalized;
+        }
+
+        /** 内容・作成者それぞれの1文字・2文字のキー（重複なし） */
+        int[] keys() {
+            Set<Integer> keys = new HashSet<>();
+            addKeys(question, keys);
+            addKeys(author, keys);
+            int[] result = new int[keys.size()];
+            int i = 0;
+            for (int key : keys) {
+                result[i++] = key;
+            }
+            return result;
+        }
+
+        private static void addKeys(String text, Set<Integer> keys) {
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                if (Character.isWhitespace(c)) {
+                    continue;
+                }
+                keys.add(unigram(c));
+                if (i + 1 < text.length() && !Character.isWhitespace(text.charAt(i + 1))) {
+                    keys.add(bigram(c, text.charAt(i + 1)));
+                }
+            }
+        }
+
+        /** 全単語を含む場合は内容で一致した単語を2点、作成者のみで一致した単語を1点とした合計。含まない単語があれば0 */
+        int score(List<String> terms) {
+            int score = 0;
+            for (String term : terms) {
+                if (question.contains(term)) {
+                    score += 2;
+                } else if (author.contains(term)) {
+                    score += 1;
+                } else {
+                    return 0;
+                }
+            }
+            return score;
+        }
+
+        Quiz toQuiz() {
+            return new Quiz(quiz.getId(), quiz.getQuestion(), quiz.getAnswer(), quiz.getAuthor());
+        }
+    }
+
+    /** 昇順のidの配列 */
+    private static final class Postings {
+        int[] ids = new int[4];
+        int size;
+
+        void add(int id) {
+            if (size > 0 && ids[size - 1] >= id) {
+                // 昇順でない追加（更新・一括登録の反映）は挿入位置を探す
+                int index = Arrays.binarySearch(ids, 0, size, id);
+                if (index >= 0) {
+                    return;
+                }
+                insertAt(-index - 1, id);
+            } else {
+                insertAt(size, id);
+            }
+        }
+
+        private void insertAt(int index, int id) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            System.arraycopy(ids, index, ids, index + 1, size - index);
+            ids[index] = id;
+            size++;
+        }
+
+        boolean remove(int id) {
+            int index = Arrays.binarySearch(ids, 0, size, id);
+            if (index < 0) {
+                return false;
+            }
+            System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+            size--;
+            return true;
+        }
+
+        /**
+         * from以前（降順の走査で未読）の範囲で、id以下の最大値の位置を返却する（なければ-1）。
+         * fromから指数的に間隔を広げて範囲を絞り、その範囲を二分探索します。
+         */
+        int seek(int from, int id) {
+            if (from < 0 || ids[from] <= id) {
+                return from;
+            }
+            int step = 1;
+            while (from - step >= 0 && ids[from - step] > id) {
+                step <<= 1;
+            }
+            int low = Math.max(from - step, 0);
+            int high = from - (step >> 1) - 1;
+            // ids[high + 1] > id のため、[low, high]の範囲でid以下の最大値を探す
+            int index = Arrays.binarySearch(ids, low, high + 1, id);
+            return index >= 0 ? index : -index - 2;
+        }
+    }
+}
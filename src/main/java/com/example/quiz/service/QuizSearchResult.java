@@ -0,0 +1,24 @@
+package com.example.quiz.service;
+
+import com.example.quiz.entity.Quiz;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/** クイズ検索の結果（1ページ分） */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class QuizSearchResult {
+    /** 検索結果（関連度の高い順） */
+    private List<Quiz> quizzes = new ArrayList<>();
+    /** 検索条件に一致した件数 */
+    private int total;
+    /** 一致件数が多いため、新しいクイズから上限件数までのみを対象にした場合はtrue */
+    private boolean truncated;
+    /** 索引の作成が完了している場合はtrue（作成中は検索結果なし） */
+    private boolean ready;
+}
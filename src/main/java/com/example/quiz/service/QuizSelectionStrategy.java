@@ -0,0 +1,22 @@
+package com.example.quiz.service;
+
+import com.example.quiz.entity.Quiz;
+
+import java.util.Optional;
+
+/**
+ * 出題するクイズの選び方（quiz.selection.strategy で切り替え）。
+ * <ul>
+ * <li>uniform（既定）：全クイズから一様に選ぶ</li>
+ * <li>weighted：正解率の低いクイズを優先し、最近出題したクイズを除いて選ぶ</li>
+ * </ul>
+ */
+public interface QuizSelectionStrategy {
+
+    /** 出題するクイズを1件選びます */
+    Optional<Quiz> select();
+
+    /** 解答の結果を選び方に反映します */
+    default void onAnswered(int id, boolean correct) {
+    }
+}
@@ -1,7 +1,10 @@
 package com.example.quiz.service;
 
 import com.example.quiz.entity.Quiz;
+import com.example.quiz.entity.QuizPlayerScore;
+import com.example.quiz.entity.QuizStats;
 
+import java.util.List;
 import java.util.Optional;
 
 /** Quizサービス処理：Service */
@@ -10,21 +13,68 @@ public interface QuizService {
     /** クイズ情報を全件取得します */
     Iterable<Quiz> selectAll();
 
+    /** クイズ情報を、afterIdより後ろ（nullの場合は先頭）からidの昇順で指定件数取得します */
+    List<Quiz> selectPage(Integer afterId, int size);
+
+    /** クイズ情報を全件、指定件数ずつ分割して取得しながら順に返却します */
+    KeysetQuizIterable selectAllInChunks(int chunkSize);
+
     /** クイズ情報を、idをキーに1件取得します */
     Optional<Quiz> selectOneById(Integer id);
 
+    /**
+     * 更新するクイズ情報を、idをキーにプライマリから1件取得します。
+     * 更新画面の版数や更新直後の表示など、レプリカの遅延で古い内容を返却してはならない場合に使用します。
+     */
+    Optional<Quiz> selectOneForUpdate(Integer id);
+
     /** クイズ情報をランダムで1件取得します */
     Optional<Quiz> selectOneRandomQuiz();
 
-    /** クイズの正解、不正解を判定します */
+    /** クイズ情報を全クイズから一様に指定件数（重複なし）、ランダムな順番で取得します */
+    List<Quiz> selectRandomQuizzes(int size);
+
+    /** クイズの内容・作成者を検索し、関連度の高い順に指定ページ（0始まり）の分を取得します */
+    QuizSearchResult searchQuizzes(String query, int page, int size);
+
+    /** 解答されたクイズの統計を難易度順（hardestFirst：難しい順、false：易しい順）に取得します */
+    List<QuizStats> selectStats(boolean hardestFirst, int page, int size);
+
+    /** クイズの正解、不正解を判定します（判定結果は統計に記録します） */
     Boolean checkQuiz(Integer id, Boolean myAnswer);
 
-    /** クイズを登録します */
+    /** クイズの正解、不正解を判定し、正解の場合はプレイヤーのスコアに1加算します（playerが空の場合は加算しない） */
+    Boolean checkQuiz(Integer id, Boolean myAnswer, String player);
+
+    /** プレイヤーのスコアを高い順に、指定ページ（0始まり）の分を取得します */
+    List<QuizPlayerScore> selectLeaderboard(int page, int size);
+
+    /** プレイヤーのスコア・順位を取得します */
+    Optional<QuizPlayerScore> selectPlayerScore(String player);
+
+    /**
+     * クイズを登録します（quizにidを設定します）。
+     * 非同期書き込み（quiz.write-behind.enabled=true）の場合は、キューに追加した時点で返却します。
+     */
     void insertQuiz(Quiz quiz);
 
-    /** クイズを更新します */
-    void updateQuiz(Quiz quiz);
+    /**
+     * クイズを更新します（nullの項目は変更しません）。
+     * 版数が指定された場合は、他の更新と競合していればOptimisticLockingFailureExceptionをスローします。
+     * 値が変わらない場合は更新せずfalseを返却し、更新した場合は新しい版数をquizに設定してtrueを返却します。
+     * 非同期書き込みの場合、版数を指定しない更新はキューに追加してtrueを返却します（値が変わるかは書き込み時に判定）。
+     */
+    boolean updateQuiz(Quiz quiz);
 
     /** クイズを削除します */
     void deleteQuizById(Integer id);
+
+    /** 指定したidのクイズを一括で更新します（解答・作成者のうちnullの項目は変更しません） */
+    QuizBulkResult updateQuizzes(List<Integer> ids, Boolean answer, String author);
+
+    /** 指定したidのクイズを一括で削除します */
+    QuizBulkResult deleteQuizzesByIds(List<Integer> ids);
+
+    /** 作成者のクイズを一括で削除します */
+    QuizBulkResult deleteQuizzesByAuthor(String author);
 }
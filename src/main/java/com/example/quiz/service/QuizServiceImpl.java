@@ -1,13 +1,31 @@
 package com.example.quiz.service;
 
 import com.example.quiz.entity.Quiz;
+import com.example.quiz.entity.QuizPlayerScore;
+import com.example.quiz.entity.QuizStats;
 import com.example.quiz.repository.QuizRepository;
+import com.example.quiz.repository.QuizStatsRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.util.*;
+import java.util.stream.Collectors;
 
+/**
+ * クイズの処理。
+ * 参照のみのメソッドは読み取り専用トランザクションで実行します（レプリカを指定した場合はレプリカで処理）。
+ * checkQuizは有効期限のない解答キャッシュに読み込むため、レプリカの遅延で古い解答を保持しないようプライマリで処理します。
+ * selectOneForUpdateも、更新に使用する版数が古くならないようプライマリで処理します。
+ * 起動直後、DBから読み込み直すまでの間は、出題と解答チェックにスナップショット（QuizSnapshot）を使用します。
+ * 非同期書き込み（QuizWriteBehind）を使用する場合、登録と版数を指定しない更新はキューに追加して返却し、
+ * それ以外の更新・削除は、順序が入れ替わらないようキューの書き込みが終わるのを待ってから実行します。
+ */
 @Service
 @Transactional
 public class QuizServiceImpl implements QuizService {
@@ -15,66 +33,278 @@ public class QuizServiceImpl implements QuizService {
     /** Repository：注入 */
     @Autowired
     QuizRepository quizRepository;
+    /** 解答キャッシュ */
+    @Autowired
+    QuizAnswerCache quizAnswerCache;
+    /** 変更通知 */
+    @Autowired
+    ApplicationEventPublisher eventPublisher;
+    /** 検索用の索引 */
+    @Autowired
+    QuizSearchIndex quizSearchIndex;
+    /** 解答の統計 */
+    @Autowired
+    QuizAnswerStats quizAnswerStats;
+    /** プレイヤーのスコアのランキング */
+    @Autowired
+    QuizLeaderboard quizLeaderboard;
+    /** 出題するクイズの選び方 */
+    @Autowired
+    QuizSelectionStrategy quizSelectionStrategy;
+    /** 起動直後に使用するスナップショット */
+    @Autowired
+    QuizSnapshot quizSnapshot;
+    /** 非同期書き込み */
+    @Autowired
+    QuizWriteBehind quizWriteBehind;
+    /** 統計の取得 */
+    @Autowired
+    QuizStatsRepository quizStatsRepository;
+    /** 一括更新・一括削除のチャンクごとのトランザクション */
+    @Autowired
+    TransactionTemplate transactionTemplate;
+    /** 一括更新・一括削除で1文で処理する件数 */
+    @Value("${quiz.bulk.chunk-size:1000}")
+    int bulkChunkSize;
 
     @Override
+    @Transactional(readOnly = true)
     public Iterable<Quiz> selectAll() {
         return quizRepository.findAll();
     }
 
     @Override
+    @Transactional(readOnly = true)
+    public List<Quiz> selectPage(Integer afterId, int size) {
+        return quizRepository.findPageAfter(afterId == null ? KeysetQuizIterable.FIRST : afterId, size);
+    }
+
+    @Override
+    public KeysetQuizIterable selectAllInChunks(int chunkSize) {
+        // 取得は呼び出し元での繰り返し時に行う
+        return new KeysetQuizIterable(quizRepository, chunkSize);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
     public Optional<Quiz> selectOneById(Integer id) {
         return quizRepository.findById(id);
     }
 
     @Override
-    public Optional<Quiz> selectOneRandomQuiz() {
-        // 全件取得
-        List<Quiz> quizList = new ArrayList<>();
-        Iterable<Quiz> quizzes = quizRepository.findAll();
+    public Optional<Quiz> selectOneForUpdate(Integer id) {
+        // 読み取り専用にしない（レプリカに振り分けない）
+        return quizRepository.findById(id);
+    }
 
-        if(!quizzes.iterator().hasNext()) {
-            return Optional.empty();
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<Quiz> selectOneRandomQuiz() {
+        // 起動直後はスナップショットから選ぶ。選び方は quiz.selection.strategy で切り替える
+        Optional<Quiz> quiz = quizSnapshot.randomQuiz();
+        if (quiz.isEmpty()) {
+            quiz = quizSelectionStrategy.select();
         }
-        quizzes.forEach(quizList::add);
+        return quiz;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Quiz> selectRandomQuizzes(int size) {
+        // 1回のクエリで全クイズから一様に取得する（取得順がそのままランダムな出題順になる）
+        return quizRepository.findRandomBatch(size);
+    }
 
-        // 疑似乱数生成
-        int pseudoRandomNum = new Random().ints(1, 0, quizList.size()).sum();
+    @Override
+    @Transactional(readOnly = true)
+    public QuizSearchResult searchQuizzes(String query, int page, int size) {
+        // DBではなく索引で検索する
+        return quizSearchIndex.search(query, Math.max(page, 0) * size, size);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<QuizStats> selectStats(boolean hardestFirst, int page, int size) {
+        return quizStatsRepository.findByDifficulty(hardestFirst, Math.max(page, 0) * size, size);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<QuizPlayerScore> selectLeaderboard(int page, int size) {
+        // DBではなくメモリ上のランキングから取得する
+        return quizLeaderboard.top(Math.max(page, 0) * size, size);
+    }
 
-        return  Optional.of(quizList.get(pseudoRandomNum));
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<QuizPlayerScore> selectPlayerScore(String player) {
+        String name = QuizLeaderboard.normalize(player);
+        return name == null ? Optional.empty() : quizLeaderboard.find(name);
     }
 
     @Override
     public Boolean checkQuiz(Integer id, Boolean myAnswer) {
-        // 正解／不正解判定用変数
-        Boolean check = false;
-
-        // 対象のクイズを取得
-        Optional<Quiz> optQuiz = quizRepository.findById(id);
-
-        // 値存在チェック
-        if (optQuiz.isPresent()) {
-            Quiz quiz = optQuiz.get();
-            // クイズの解答チェック
-            if (quiz.getAnswer().equals(myAnswer)) {
-                check = true;
-            }
+        return checkQuiz(id, myAnswer, null);
+    }
+
+    @Override
+    public Boolean checkQuiz(Integer id, Boolean myAnswer, String player) {
+        boolean correct = checkAnswer(id, myAnswer);
+        String name = QuizLeaderboard.normalize(player);
+        if (correct && name != null) {
+            // スコアはメモリ上で加算し、DBには定期的にまとめて書き込む
+            quizLeaderboard.add(name, 1);
         }
+        return correct;
+    }
 
-        return check;
+    /** クイズの解答チェック（キャッシュにない場合のみDBから取得） */
+    private boolean checkAnswer(Integer id, Boolean myAnswer) {
+        if (id == null) {
+            return false;
+        }
+        // キャッシュから解答を取得
+        Boolean answer = quizAnswerCache.get(id);
+        if (answer == null) {
+            // 起動直後はスナップショットから取得する（キャッシュには登録しない）
+            answer = quizSnapshot.findAnswer(id);
+        }
+        if (answer == null) {
+            // キャッシュにない場合は解答のみをDBから取得してキャッシュする
+            long stamp = quizAnswerCache.stamp();
+            answer = quizRepository.findAnswerById(id);
+            // 値存在チェック
+            if (answer == null) {
+                return false;
+            }
+            quizAnswerCache.put(id, answer, stamp);
+        }
+        // クイズの解答チェック（統計はメモリ上で集計し、DBには定期的にまとめて書き込む）
+        boolean correct = answer.equals(myAnswer);
+        quizAnswerStats.record(id, correct);
+        return correct;
     }
 
     @Override
     public void insertQuiz(Quiz quiz) {
+        if (quizWriteBehind.isEnabled()) {
+            quizWriteBehind.insert(quiz);
+            return;
+        }
         quizRepository.save(quiz);
+        eventPublisher.publishEvent(new QuizChangedEvent(QuizChangedEvent.Type.INSERT, quiz.getId()));
     }
 
     @Override
-    public void updateQuiz(Quiz quiz) {
-        quizRepository.save(quiz);
+    public boolean updateQuiz(Quiz quiz) {
+        if (quizWriteBehind.isEnabled()) {
+            if (quiz.getVersion() == null) {
+                quizWriteBehind.update(quiz);
+                return true;
+            }
+            quizWriteBehind.awaitWritten();
+        }
+        if (quiz.getAnswer() != null) {
+            quizAnswerCache.invalidate(quiz.getId());
+        }
+        // 版数の比較と更新を1文で行う（行ロックは更新中のみ）
+        Integer version = quizRepository.updateIfChanged(quiz);
+        if (version == null) {
+            // 更新しなかった場合のみ、競合か変更なしかを判定する
+            Integer current = quizRepository.findVersionById(quiz.getId());
+            if (current == null || (quiz.getVersion() != null && !quiz.getVersion().equals(current))) {
+                throw new OptimisticLockingFailureException("クイズ（id：" + quiz.getId() + "）は他の更新と競合しました");
+            }
+            return false;
+        }
+        quiz.setVersion(version);
+        eventPublisher.publishEvent(new QuizChangedEvent(QuizChangedEvent.Type.UPDATE, quiz.getId()));
+        return true;
     }
 
     @Override
     public void deleteQuizById(Integer id) {
+        quizWriteBehind.awaitWritten();
+        quizAnswerCache.invalidate(id);
         quizRepository.deleteById(id);
+        eventPublisher.publishEvent(new QuizChangedEvent(QuizChangedEvent.Type.DELETE, id));
+    }
+
+    /*
+     * 一括更新・一括削除：チャンクごとに1文・1トランザクションで実行する。
+     * 呼び出し元のトランザクションがあればそれに参加し、なければチャンクごとにコミットする。
+     */
+
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public QuizBulkResult updateQuizzes(List<Integer> ids, Boolean answer, String author) {
+        QuizBulkResult result = new QuizBulkResult();
+        List<Integer> targets = distinctIds(ids);
+        result.setRequested(targets.size());
+        if (answer == null && author == null) {
+            return result;
+        }
+        quizWriteBehind.awaitWritten();
+        for (int from = 0; from < targets.size(); from += bulkChunkSize) {
+            List<Integer> chunk = targets.subList(from, Math.min(from + bulkChunkSize, targets.size()));
+            List<Integer> updated = transactionTemplate.execute(status -> {
+                chunk.forEach(quizAnswerCache::invalidate);
+                List<Integer> changed = quizRepository.updateAnswerAndAuthor(chunk, answer, author);
+                eventPublisher.publishEvent(new QuizChangedEvent(QuizChangedEvent.Type.UPDATE, changed));
+                return changed;
+            });
+            result.setAffected(result.getAffected() + updated.size());
+            result.setChunks(result.getChunks() + 1);
+        }
+        return result;
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public QuizBulkResult deleteQuizzesByIds(List<Integer> ids) {
+        QuizBulkResult result = new QuizBulkResult();
+        List<Integer> targets = distinctIds(ids);
+        result.setRequested(targets.size());
+        quizWriteBehind.awaitWritten();
+        for (int from = 0; from < targets.size(); from += bulkChunkSize) {
+            List<Integer> chunk = targets.subList(from, Math.min(from + bulkChunkSize, targets.size()));
+            List<Integer> deleted = transactionTemplate.execute(status -> {
+                chunk.forEach(quizAnswerCache::invalidate);
+                List<Integer> removed = quizRepository.deleteByIds(chunk);
+                eventPublisher.publishEvent(new QuizChangedEvent(QuizChangedEvent.Type.DELETE, removed));
+                return removed;
+            });
+            result.setAffected(result.getAffected() + deleted.size());
+            result.setChunks(result.getChunks() + 1);
+        }
+        return result;
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public QuizBulkResult deleteQuizzesByAuthor(String author) {
+        QuizBulkResult result = new QuizBulkResult();
+        quizWriteBehind.awaitWritten();
+        List<Integer> deleted;
+        do {
+            deleted = transactionTemplate.execute(status -> {
+                List<Integer> removed = quizRepository.deleteByAuthor(author, bulkChunkSize);
+                removed.forEach(quizAnswerCache::invalidate);
+                eventPublisher.publishEvent(new QuizChangedEvent(QuizChangedEvent.Type.DELETE, removed));
+                return removed;
+            });
+            result.setAffected(result.getAffected() + deleted.size());
+            result.setChunks(result.getChunks() + 1);
+        } while (deleted.size() == bulkChunkSize);
+        result.setRequested(result.getAffected());
+        return result;
+    }
+
+    /** nullと重複を除いたidのリスト */
+    private static List<Integer> distinctIds(List<Integer> ids) {
+        if (ids == null) {
+            return List.of();
+        }
+        return ids.stream().filter(Objects::nonNull).distinct().collect(Collectors.toList());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,381 @@
+package com.example.quiz.service;
+
+import com.example.quiz.entity.Quiz;
+import com.example.quiz.repository.QuizRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * クイズ一覧のスナップショット（ローカルファイル）。
+ * 終了時と一定間隔で全クイズのid・解答・内容・作成者をファイルに書き出し、
+ * 起動時にそのファイルをメモリマップして、DBから読み込み直すまでの間の出題・解答チェックに使用します。
+ * <p>
+ * ファイルは「ヘッダ（32バイト）→ 内容・作成者（UTF-8）→ idの昇順の索引（1件12バイト：id・解答・内容の位置）」の順で、
+ * idは索引の二分探索で検索します。起動時はヘッダを確認してマップするのみのため、件数によらず一定時間で使用を開始できます。
+ * 起動完了後に別スレッドでプライマリから全件を読み込んで解答キャッシュに登録し、スナップショットを書き直したうえで使用を終了します
+ * （起動完了の処理は待たせず、読み込み直しが終わるまではスナップショットから出題・解答チェックを行う）。
+ * 使用中に更新・削除されたクイズは、スナップショットではなくDBから取得します。
+ */
+@Slf4j
+@Component
+public class QuizSnapshot {
+    /** ファイルの識別子（"QZSN"） */
+    static final int MAGIC = 0x515A534E;
+    /** ファイル形式の版 */
+    static final int FORMAT_VERSION = 1;
+    /** ヘッダの長さ */
+    private static final int HEADER_SIZE = 32;
+    /** 索引の1件の長さ（id・解答・内容の位置） */
+    private static final int ENTRY_SIZE = 12;
+
+    /** Repository：注入 */
+    @Autowired
+    QuizRepository quizRepository;
+    /** 解答キャッシュ */
+    @Autowired
+    QuizAnswerCache quizAnswerCache;
+    /** スナップショットのファイル（空の場合は使用しない） */
+    @Value("${quiz.snapshot.path:}")
+    String path;
+    /** 使用するスナップショットの古さの上限 */
+    @Value("${quiz.snapshot.max-age:1h}")
+    Duration maxAge;
+    /** 起動時の読み込み直しを実行する */
+    @Autowired
+    @Qualifier("applicationTaskExecutor")
+    TaskExecutor taskExecutor;
+    /** 書き出し・読み込み直しでカーソルで1回に取得する件数 */
+    @Value("${quiz.snapshot.fetch-size:1000}")
+    int fetchSize;
+    /** 定期的な書き出し用（読み取り専用。レプリカを指定した場合はレプリカで読み込む） */
+    private final TransactionTemplate readTransaction;
+    /** 起動時の読み込み直し用（解答キャッシュに登録するため、レプリカの遅延の影響を受けないようプライマリで読み込む） */
+    private final TransactionTemplate latestTransaction;
+
+    /** 使用中のスナップショット（使用していない場合はnull） */
+    private volatile Mapped mapped;
+    /** スナップショットの使用中に更新・削除されたクイズのid */
+    private final Set<Integer> changed = ConcurrentHashMap.newKeySet();
+
+    public QuizSnapshot(PlatformTransactionManager transactionManager) {
+        readTransaction = new TransactionTemplate(transactionManager);
+        readTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        readTransaction.setReadOnly(true);
+        latestTransaction = new TransactionTemplate(transactionManager);
+        latestTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /** 起動時にスナップショットをメモリマップします（ない・古い・壊れている場合は使用しない） */
+    @PostConstruct
+    public void open() {
+        if (!isEnabled() || !Files.isRegularFile(Path.of(path))) {
+            return;
+        }
+        long start = System.nanoTime();
+        try (FileChannel channel = FileChannel.open(Path.of(path), StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_SIZE || channel.size() > Integer.MAX_VALUE) {
+                log.warn("スナップショット {} は使用できない大きさです（{}バイト）", path, channel.size());
+                return;
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            Mapped candidate = new Mapped(buffer);
+            Duration age = Duration.ofMillis(System.currentTimeMillis() - candidate.createdAt);
+            if (age.compareTo(maxAge) > 0) {
+                log.info("スナップショット {} は古いため使用しません（{}秒前）", path, age.toSeconds());
+                return;
+            }
+            mapped = candidate;
+            log.info("スナップショット {} を使用します（{}件、{}秒前、{}ms）",
+                    path, candidate.count, age.toSeconds(), (System.nanoTime() - start) / 1_000_000);
+        } catch (IOException | IllegalArgumentException e) {
+            log.warn("スナップショット {} を読み込めませんでした：{}", path, e.getMessage());
+        }
+    }
+
+    /** 起動完了時に、DBからの読み込み直し（reconcileNow）を別スレッドで開始します */
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconcile() {
+        if (mapped == null) {
+            return;
+        }
+        taskExecutor.execute(this::reconcileNow);
+    }
+
+    /** DBから全件を読み込み直して解答キャッシュに登録し、スナップショットの使用を終了します */
+    void reconcileNow() {
+        if (mapped == null) {
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            write(latestTransaction, true);
+            log.info("DBから読み込み直したため、スナップショットの使用を終了します（起動完了から{}ms）", (System.nanoTime() - start) / 1_000_000);
+        } catch (RuntimeException e) {
+            log.warn("スナップショットを書き出せませんでした：{}", e.getMessage());
+        } finally {
+            mapped = null;
+            changed.clear();
+        }
+    }
+
+    /** 一定間隔でスナップショットを書き出します */
+    @Scheduled(fixedDelayString = "${quiz.snapshot.write-interval-ms:600000}", initialDelayString = "${quiz.snapshot.write-interval-ms:600000}")
+    public void scheduledWrite() {
+        if (isEnabled()) {
+            try {
+                write(readTransaction, false);
+            } catch (RuntimeException e) {
+                log.warn("スナップショットを書き出せませんでした：{}", e.getMessage());
+            }
+        }
+    }
+
+    /** 終了時にスナップショットを書き出します */
+    @PreDestroy
+    public void close() {
+        scheduledWrite();
+    }
+
+    /** スナップショットを使用中か判定します */
+    public boolean isServing() {
+        return mapped != null;
+    }
+
+    /** スナップショットの使用中は、idに対応する解答を返却します。使用していない・含まれない場合はnullを返却します */
+    public Boolean findAnswer(int id) {
+        Mapped current = mapped;
+        if (current == null || changed.contains(id)) {
+            return null;
+        }
+        int index = current.indexOf(id);
+        return index < 0 ? null : current.answerAt(index);
+    }
+
+    /** スナップショットの使用中は、ランダムに1件返却します。使用していない場合は空を返却します */
+    public Optional<Quiz> randomQuiz() {
+        Mapped current = mapped;
+        if (current == null || current.count == 0) {
+            return Optional.empty();
+        }
+        for (int attempt = 0; attempt < 3; attempt++) {
+            int index = ThreadLocalRandom.current().nextInt(current.count);
+            if (!changed.contains(current.idAt(index))) {
+                return Optional.of(current.quizAt(index));
+            }
+        }
+        return Optional.empty();
+    }
+
+    /** 使用中のスナップショットと異なる可能性があるクイズを記録します（ロールバックの場合も記録） */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMPLETION, fallbackExecution = true)
+    public void onQuizChanged(QuizChangedEvent event) {
+        if (event.getType() == QuizChangedEvent.Type.RESYNC) {
+            // 変更内容が分からないため使用を終了する
+            mapped = null;
+        } else if (mapped != null && event.getType() != QuizChangedEvent.Type.INSERT && event.getType() != QuizChangedEvent.Type.BULK) {
+            changed.addAll(event.getIds());
+        }
+    }
+
+    /**
+     * 全クイズを読み込んで一時ファイルに書き出し、書き終えてからスナップショットのファイルと置き換えます。
+     * warmCacheがtrueの場合は、読み込んだ解答を解答キャッシュにも登録します（読み込み中に無効化があった場合は以降の登録を中止）。
+     */
+    synchronized void write(TransactionTemplate transaction, boolean warmCache) {
+        long start = System.nanoTime();
+        Path target = Path.of(path).toAbsolutePath();
+        try {
+            Files.createDirectories(target.getParent());
+            Path temp = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+            try {
+                int count = writeTo(temp, transaction, warmCache);
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                log.info("スナップショット {} を書き出しました（{}件、{}ms）", target, count, (System.nanoTime() - start) / 1_000_000);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** ファイルに書き出し、件数を返却します */
+    private int writeTo(Path file, TransactionTemplate transaction, boolean warmCache) throws IOException {
+        // 索引は読み込み順（idの昇順）にメモリに溜め、内容・作成者の後に書き出す
+        Entries entries = new Entries();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            channel.position(HEADER_SIZE);
+            OutputStream stream = Channels.newOutputStream(channel);
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream, 1 << 16));
+            long stamp = quizAnswerCache.stamp();
+            long createdAt = System.currentTimeMillis();
+            transaction.executeWithoutResult(status -> quizRepository.forEachQuiz(fetchSize, quiz -> {
+                try {
+                    entries.add(quiz.getId(), Boolean.TRUE.equals(quiz.getAnswer()), HEADER_SIZE + out.size());
+                    writeString(out, quiz.getQuestion());
+                    writeString(out, quiz.getAuthor());
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                if (warmCache && quizAnswerCache.stamp() == stamp) {
+                    quizAnswerCache.put(quiz.getId(), Boolean.TRUE.equals(quiz.getAnswer()), stamp);
+                }
+            }));
+            long indexOffset = HEADER_SIZE + (long) out.size();
+            for (int i = 0; i < entries.size; i++) {
+                out.writeInt(entries.ids[i]);
+                out.writeInt(entries.answers[i] ? 1 : 0);
+                out.writeInt(entries.offsets[i]);
+            }
+            out.flush();
+            if (indexOffset + (long) entries.size * ENTRY_SIZE > Integer.MAX_VALUE) {
+                throw new IOException("スナップショットが2GBを超えました");
+            }
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC).putInt(FORMAT_VERSION).putLong(createdAt).putInt(entries.size).putInt(0).putLong(indexOffset);
+            header.flip();
+            channel.write(header, 0);
+            channel.force(false);
+        }
+        return entries.size;
+    }
+
+    /** 文字列を長さ（バイト数。nullは-1）とUTF-8で書き出します */
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private boolean isEnabled() {
+        return path != null && !path.isBlank();
+    }
+
+    /** 書き出し中の索引（id・解答・内容の位置） */
+    private static class Entries {
+        int[] ids = new int[1024];
+        boolean[] answers = new boolean[1024];
+        int[] offsets = new int[1024];
+        int size;
+
+        void add(int id, boolean answer, long offset) throws IOException {
+            if (offset > Integer.MAX_VALUE) {
+                throw new IOException("スナップショットが2GBを超えました");
+            }
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                answers = Arrays.copyOf(answers, size * 2);
+                offsets = Arrays.copyOf(offsets, size * 2);
+            }
+            ids[size] = id;
+            answers[size] = answer;
+            offsets[size] = (int) offset;
+            size++;
+        }
+    }
+
+    /** メモリマップしたスナップショット（絶対位置での読み込みのみのため、複数スレッドから参照可能） */
+    private static class Mapped {
+        final ByteBuffer buffer;
+        final long createdAt;
+        final int count;
+        final int indexOffset;
+
+        Mapped(ByteBuffer buffer) {
+            if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != FORMAT_VERSION) {
+                throw new IllegalArgumentException("スナップショットの形式が異なります");
+            }
+            this.buffer = buffer;
+            this.createdAt = buffer.getLong(8);
+            this.count = buffer.getInt(16);
+            long offset = buffer.getLong(24);
+            if (count < 0 || offset < HEADER_SIZE || offset + (long) count * ENTRY_SIZE != buffer.capacity()) {
+                throw new IllegalArgumentException("スナップショットが壊れています");
+            }
+            this.indexOffset = (int) offset;
+        }
+
+        int idAt(int index) {
+            return buffer.getInt(indexOffset + index * ENTRY_SIZE);
+        }
+
+        boolean answerAt(int index) {
+            return buffer.getInt(indexOffset + index * ENTRY_SIZE + 4) != 0;
+        }
+
+        /** idの位置を二分探索します。含まれない場合は負の値を返却します */
+        int indexOf(int id) {
+            int low = 0;
+            int high = count - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                int midId = idAt(mid);
+                if (midId < id) {
+                    low = mid + 1;
+                } else if (midId > id) {
+                    high = mid - 1;
+                } else {
+                    return mid;
+                }
+            }
+            return -1;
+        }
+
+        Quiz quizAt(int index) {
+            int offset = buffer.getInt(indexOffset + index * ENTRY_SIZE + 8);
+            int questionLength = buffer.getInt(offset);
+            String question = readString(offset + 4, questionLength);
+            int authorOffset = offset + 4 + Math.max(questionLength, 0);
+            String author = readString(authorOffset + 4, buffer.getInt(authorOffset));
+            return new Quiz(idAt(index), question, answerAt(index), author);
+        }
+
+        private String readString(int offset, int length) {
+            if (length < 0) {
+                return null;
+            }
+            byte[] bytes = new byte[length];
+            buffer.get(offset, bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.quiz.service;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * クイズ一覧とクイズごとの版数（HTTPのETag・Last-Modified用）。
+ * コミットされた変更（QuizChangedEvent）ごとに一覧の版数を1加算し、変更されたクイズにはその版数と時刻を記録します。
+ * 版数はメモリ上のみで保持し、DBにはアクセスしません。起動のたびに異なる値をETagに含めるため、再起動前のETagとは一致しません。
+ * <p>
+ * 他のインスタンスでの変更は、quiz.cluster.enabled=true の場合のみ（QuizChangeListenerが受信したもの）反映されます。
+ */
+@Component
+public class QuizVersionTracker {
+
+    /** 起動ごと（変更を取りこぼした場合も）に異なる値（ETagの先頭に付ける） */
+    private volatile String epoch = newEpoch();
+    /** 起動時刻（変更を取りこぼした場合はその時刻） */
+    private volatile long startedAt = System.currentTimeMillis();
+    /** 一覧の版数と最終変更時刻 */
+    private volatile Change catalogue = new Change(0, startedAt);
+    /** id → 変更されたクイズの版数と時刻（起動後に変更されたクイズのみ） */
+    private final Map<Integer, Change> quizzes = new ConcurrentHashMap<>();
+
+    /** コミットされた変更を記録します */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public synchronized void onQuizChanged(QuizChangedEvent event) {
+        Change change = new Change(catalogue.version + 1, System.currentTimeMillis());
+        if (event.getType() == QuizChangedEvent.Type.RESYNC) {
+            // どのクイズが変更されたか分からないため、すべてのETagを変える
+            quizzes.clear();
+            epoch = newEpoch();
+            startedAt = change.modifiedAt;
+        }
+        for (int id : event.getIds()) {
+            quizzes.put(id, change);
+        }
+        catalogue = change;
+    }
+
+    /** 一覧のETag（強いETag） */
+    public String catalogueETag() {
+        return "\"" + epoch + "-" + catalogue.version + "\"";
+    }
+
+    /** 一覧の最終変更時刻（起動後に変更がなければ起動時刻） */
+    public long catalogueLastModified() {
+        return catalogue.modifiedAt;
+    }
+
+    /** クイズのETag（強いETag） */
+    public String quizETag(int id) {
+        Change change = quizzes.get(id);
+        return "\"" + epoch + "-" + id + "-" + (change == null ? 0 : change.version) + "\"";
+    }
+
+    /** クイズの最終変更時刻（起動後に変更がなければ起動時刻） */
+    public long quizLastModified(int id) {
+        Change change = quizzes.get(id);
+        return change == null ? startedAt : change.modifiedAt;
+    }
+
+    private static String newEpoch() {
+        return Long.toString(ThreadLocalRandom.current().nextLong() & Long.MAX_VALUE, 36);
+    }
+
+    /** 版数と変更時刻 */
+    private static class Change {
+        final long version;
+        final long modifiedAt;
+
+        Change(long version, long modifiedAt) {
+            this.version = version;
+            this.modifiedAt = modifiedAt;
+        }
+    }
+}
@@ -0,0 +1,346 @@
+package com.example.quiz.service;
+
+import com.example.quiz.entity.Quiz;
+import com.example.quiz.repository.QuizRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * クイズの登録・更新の非同期書き込み（write-behind）。quiz.write-behind.enabled=true の場合のみ使用します。
+ * 登録・更新は上限付きのキューに追加した時点で完了とし、書き込み用のスレッドがキューから最大 quiz.write-behind.batch-size 件ずつ
+ * 取り出して、1トランザクション（コミット1回）で書き込みます。書き込み待ちが多いほど1回にまとめる件数が増えます。
+ * <p>
+ * 永続性：キューに追加した書き込みはコミットされるまでメモリ上にのみあり、プロセスが異常終了した場合は失われます。
+ * 正常終了時は新しい書き込みの受付を止めてからキューを空になるまで書き込みます（受付の確認と追加は停止と排他のため、
+ * 受け付けた書き込みはすべて書き込まれます）。
+ * 書き込みに失敗したまとまりは1件ずつ書き込み直し、それでも失敗したものは記録（quiz.write.behind.writes{result=failed}）して破棄します。
+ * <p>
+ * 背圧：キューが満杯の場合は quiz.write-behind.enqueue-timeout まで待ち、空かなければQuizWriteQueueFullException（503）をスローします。
+ * 登録のidは追加時にシーケンスからまとめて採番するため、追加した時点で確定します。
+ * 書き込みの結果（一覧・検索などへの反映）は、書き込まれるまで他の処理からは見えません。
+ */
+@Slf4j
+@Component
+public class QuizWriteBehind implements SmartLifecycle {
+
+    /** Repository：注入 */
+    @Autowired
+    QuizRepository quizRepository;
+    /** 解答キャッシュ */
+    @Autowired
+    QuizAnswerCache quizAnswerCache;
+    /** 変更通知 */
+    @Autowired
+    ApplicationEventPublisher eventPublisher;
+    /** 使用する場合はtrue */
+    @Value("${quiz.write-behind.enabled:false}")
+    boolean enabled;
+    /** 1回（1トランザクション）に書き込む件数の上限 */
+    @Value("${quiz.write-behind.batch-size:500}")
+    int batchSize;
+    /** キューが満杯の場合に待つ時間 */
+    @Value("${quiz.write-behind.enqueue-timeout:1s}")
+    Duration enqueueTimeout;
+    /** 登録用のidを1回に採番する件数 */
+    @Value("${quiz.write-behind.id-block-size:100}")
+    int idBlockSize;
+    /** 書き込み用（登録・更新を1トランザクションで実行） */
+    private final TransactionTemplate transactionTemplate;
+
+    /** 書き込み待ち */
+    private final BlockingQueue<Write> queue;
+    /** 採番済みで未使用のid */
+    private final Deque<Integer> ids = new ArrayDeque<>();
+    /** 1回に書き込んだ件数 */
+    private final DistributionSummary batchSizes;
+    /** 書き込んだ件数 */
+    private final Counter written;
+    /** 書き込みに失敗して破棄した件数 */
+    private final Counter failed;
+    /** キューが満杯で受け付けなかった件数 */
+    private final Counter rejected;
+    private volatile Thread thread;
+    /** 受付中 */
+    private volatile boolean accepting;
+    /**
+     * 受付の確認とキューへの追加（読み取りロック）と、受付の停止（書き込みロック）を排他にするロック。
+     * 受付を止めた後にキューへ追加されて、書き込まれない（順序待ちの印が完了しない）ことを防ぎます
+     */
+    private final ReadWriteLock acceptLock = new ReentrantReadWriteLock();
+
+    public QuizWriteBehind(PlatformTransactionManager transactionManager, MeterRegistry registry,
+                           @Value("${quiz.write-behind.capacity:10000}") int capacity) {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        queue = new ArrayBlockingQueue<>(capacity);
+        Gauge.builder("quiz.write.behind.queue", queue, BlockingQueue::size)
+                .description("書き込み待ちの件数").register(registry);
+        batchSizes = DistributionSummary.builder("quiz.write.behind.batch.size")
+                .description("1回（1トランザクション）に書き込んだ件数").publishPercentileHistogram()
+                .minimumExpectedValue(1.0).maximumExpectedValue((double) capacity).register(registry);
+        written = Counter.builder("quiz.write.behind.writes").description("非同期で書き込んだ件数")
+                .tag("result", "written").register(registry);
+        failed = Counter.builder("quiz.write.behind.writes").description("非同期で書き込んだ件数")
+                .tag("result", "failed").register(registry);
+        rejected = Counter.builder("quiz.write.behind.writes").description("非同期で書き込んだ件数")
+                .tag("result", "rejected").register(registry);
+    }
+
+    /** 使用する場合はtrue */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /** 登録をキューに追加します（idはこの時点で設定。呼び出し元が後でquizを変更しても影響しないよう複製して追加） */
+    public void insert(Quiz quiz) {
+        quiz.setId(nextId());
+        enqueue(new Write(copyOf(quiz), true));
+    }
+
+    /** 更新（nullの項目は変更しない。版数は確認しない）をキューに追加します */
+    public void update(Quiz quiz) {
+        enqueue(new Write(copyOf(quiz), false));
+    }
+
+    /**
+     * これまでにキューに追加した書き込みがすべて終わるまで待ちます（書き込みの順序を保つため）。
+     * 終了処理中（受付を止めた後）は、書き込みスレッドがキューを空にして終了するまで待ちます。
+     */
+    public void awaitWritten() {
+        Thread writer = thread;
+        if (!enabled || writer == null || Thread.currentThread() == writer) {
+            return;
+        }
+        try {
+            if (accepting) {
+                Write barrier = new Write(null, false);
+                if (enqueueBarrier(barrier)) {
+                    barrier.done.await();
+                    return;
+                }
+            }
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /** 書き込み待ちの件数 */
+    public int pendingCount() {
+        return queue.size();
+    }
+
+    @Override
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        accepting = true;
+        thread = new Thread(this::run, "quiz-write-behind");
+        thread.start();
+    }
+
+    /** 新しい書き込みの受付を止め、キューが空になるまで書き込んでから終了します */
+    @Override
+    public void stop() {
+        // 追加中の書き込みがキューに入り終わるまで待ってから、受付を止める
+        acceptLock.writeLock().lock();
+        try {
+            accepting = false;
+        } finally {
+            acceptLock.writeLock().unlock();
+        }
+        Thread current = thread;
+        if (current != null) {
+            try {
+                current.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            log.info("書き込み待ちのクイズをすべて書き込みました");
+        }
+        thread = null;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return thread != null;
+    }
+
+    /** Webサーバーの停止（処理中のリクエストの完了）後に停止する */
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 2048;
+    }
+
+    /** 受付中であればキューに追加します（受付の停止とは排他。追加した書き込みは停止前に必ず書き込まれる） */
+    private void enqueue(Write write) {
+        acceptLock.readLock().lock();
+        try {
+            if (!accepting) {
+                throw new QuizWriteQueueFullException("書き込みを受け付けていません（終了処理中）");
+            }
+            if (!queue.offer(write, enqueueTimeout.toNanos(), TimeUnit.NANOSECONDS)) {
+                rejected.increment();
+                throw new QuizWriteQueueFullException("書き込み待ちが上限（" + (queue.size() + queue.remainingCapacity()) + "件）に達しています");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new QuizWriteQueueFullException("書き込みの追加が中断されました");
+        } finally {
+            acceptLock.readLock().unlock();
+        }
+    }
+
+    /** 順序待ち用の印を追加します（受付が止まって追加できなかった場合はfalse） */
+    private boolean enqueueBarrier(Write barrier) {
+        try {
+            enqueue(barrier);
+            return true;
+        } catch (QuizWriteQueueFullException e) {
+            if (accepting) {
+                throw e;
+            }
+            return false;
+        }
+    }
+
+    /** 登録用のidをまとめて採番し、1件ずつ払い出します（採番は通常のコミットを伴わない） */
+    private synchronized int nextId() {
+        if (ids.isEmpty()) {
+            ids.addAll(quizRepository.allocateIds(idBlockSize));
+        }
+        return ids.removeFirst();
+    }
+
+    /** キューが空になり、受付が止まるまで書き込みます */
+    private void run() {
+        List<Write> batch = new ArrayList<>(batchSize);
+        while (accepting || !queue.isEmpty()) {
+            try {
+                Write first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                writeBatch(batch);
+            } catch (InterruptedException e) {
+                // 受付を止めてからキューを空にするため、割り込みでは終了しない
+                log.debug("書き込みスレッドへの割り込みを無視しました");
+            } finally {
+                batch.forEach(write -> write.done.countDown());
+                batch.clear();
+            }
+        }
+    }
+
+    /** まとめて1トランザクションで書き込み、失敗した場合は1件ずつ書き込み直します */
+    private void writeBatch(List<Write> batch) {
+        List<Write> writes = new ArrayList<>(batch.size());
+        for (Write write : batch) {
+            if (write.quiz != null) {
+                writes.add(write);
+            }
+        }
+        if (writes.isEmpty()) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> apply(writes));
+            batchSizes.record(writes.size());
+            written.increment(writes.size());
+        } catch (RuntimeException e) {
+            log.warn("{}件の書き込みに失敗したため、1件ずつ書き込み直します：{}", writes.size(), e.getMessage());
+            for (Write write : writes) {
+                try {
+                    transactionTemplate.executeWithoutResult(status -> apply(List.of(write)));
+                    batchSizes.record(1);
+                    written.increment();
+                } catch (RuntimeException single) {
+                    failed.increment();
+                    log.error("クイズ（id：{}）を書き込めなかったため破棄しました：{}", write.quiz.getId(), single.getMessage());
+                }
+            }
+        }
+    }
+
+    /** 登録は連続する分をJDBCのバッチ更新で、更新は1件ずつ、キューに追加した順に実行し、コミット後の通知を発行します */
+    private void apply(List<Write> writes) {
+        List<Quiz> inserts = new ArrayList<>();
+        List<Integer> inserted = new ArrayList<>();
+        List<Integer> updated = new ArrayList<>();
+        for (Write write : writes) {
+            if (write.insert) {
+                inserts.add(write.quiz);
+                continue;
+            }
+            // 登録した直後のクイズの更新もあるため、先に登録しておく
+            insertAll(inserts, inserted);
+            Quiz quiz = write.quiz;
+            if (quiz.getAnswer() != null) {
+                quizAnswerCache.invalidate(quiz.getId());
+            }
+            if (quizRepository.updateIfChanged(quiz) != null) {
+                updated.add(quiz.getId());
+            }
+        }
+        insertAll(inserts, inserted);
+        if (!inserted.isEmpty()) {
+            eventPublisher.publishEvent(new QuizChangedEvent(QuizChangedEvent.Type.INSERT, inserted));
+        }
+        if (!updated.isEmpty()) {
+            eventPublisher.publishEvent(new QuizChangedEvent(QuizChangedEvent.Type.UPDATE, updated));
+        }
+    }
+
+    /** 版数を除いて複製します */
+    private static Quiz copyOf(Quiz quiz) {
+        return new Quiz(quiz.getId(), quiz.getQuestion(), quiz.getAnswer(), quiz.getAuthor());
+    }
+
+    private void insertAll(List<Quiz> inserts, List<Integer> inserted) {
+        if (inserts.isEmpty()) {
+            return;
+        }
+        quizRepository.batchInsertWithIds(inserts);
+        inserts.forEach(quiz -> inserted.add(quiz.getId()));
+        inserts.clear();
+    }
+
+    /** キューに追加した書き込み（quizがnullの場合は、それまでの書き込みの完了を待つための目印） */
+    private static class Write {
+        final Quiz quiz;
+        final boolean insert;
+        /** 書き込み（失敗を含む）の完了 */
+        final CountDownLatch done = new CountDownLatch(1);
+
+        Write(Quiz quiz, boolean insert) {
+            this.quiz = quiz;
+            this.insert = insert;
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.quiz.service;
+
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/** 非同期書き込み（QuizWriteBehind）のキューが満杯、または終了処理中のため、書き込みを受け付けなかった（時間をおいて再実行できる） */
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class QuizWriteQueueFullException extends TransientDataAccessException {
+
+    public QuizWriteQueueFullException(String msg) {
+        super(msg);
+    }
+}
@@ -0,0 +1,169 @@
+package com.example.quiz.service;
+
+import com.example.quiz.entity.QuizPlayerScore;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 順位を求められるスキップリスト（スコアの高い順、同じスコアはプレイヤー名の順）。
+ * 各リンクに飛び越す要素数（span）を持たせることで、追加・削除・順位の取得・指定順位からの取得をいずれも O(log n) で行います。
+ * スレッドセーフではありません（QuizLeaderboardがロックして使用）。
+ */
+class RankedSkipList {
+    /** レベルの上限（2^64件まで分布が偏らない） */
+    private static final int MAX_LEVEL = 32;
+    /** 1つ上のレベルにも追加する確率 */
+    private static final double P = 0.25;
+
+    /** 先頭（要素なし） */
+    private final Node head = new Node(null, 0, MAX_LEVEL);
+    /** 使用中のレベル数 */
+    private int level = 1;
+    /** 要素数 */
+    private int size;
+
+    /** 要素数 */
+    int size() {
+        return size;
+    }
+
+    /** 追加します（同じプレイヤー・スコアが既にないこと） */
+    void insert(String player, long score) {
+        Node[] update = new Node[MAX_LEVEL];
+        // rank[i]：update[i]の位置（先頭を0とする）
+        int[] rank = new int[MAX_LEVEL];
+        Node x = head;
+        for (int i = level - 1; i >= 0; i--) {
+            rank[i] = i == level - 1 ? 0 : rank[i + 1];
+            while (x.next[i] != null && precedes(x.next[i], score, player)) {
+                rank[i] += x.span[i];
+                x = x.next[i];
+            }
+            update[i] = x;
+        }
+        int newLevel = randomLevel();
+        if (newLevel > level) {
+            for (int i = level; i < newLevel; i++) {
+                rank[i] = 0;
+                update[i] = head;
+                head.span[i] = size;
+            }
+            level = newLevel;
+        }
+        Node node = new Node(player, score, newLevel);
+        for (int i = 0; i < newLevel; i++) {
+            node.next[i] = update[i].next[i];
+            update[i].next[i] = node;
+            node.span[i] = update[i].span[i] - (rank[0] - rank[i]);
+            update[i].span[i] = rank[0] - rank[i] + 1;
+        }
+        // 追加したレベルより上のリンクは、追加した要素の分だけ飛び越す要素が増える
+        for (int i = newLevel; i < level; i++) {
+            update[i].span[i]++;
+        }
+        size++;
+    }
+
+    /** 削除します。存在しなかった場合はfalseを返却します */
+    boolean remove(String player, long score) {
+        Node[] update = new Node[MAX_LEVEL];
+        Node x = head;
+        for (int i = level - 1; i >= 0; i--) {
+            while (x.next[i] != null && precedes(x.next[i], score, player)) {
+                x = x.next[i];
+            }
+            update[i] = x;
+        }
+        x = x.next[0];
+        if (x == null || x.score != score || !x.player.equals(player)) {
+            return false;
+        }
+        for (int i = 0; i < level; i++) {
+            if (update[i].next[i] == x) {
+                update[i].span[i] += x.span[i] - 1;
+                update[i].next[i] = x.next[i];
+            } else {
+                update[i].span[i]--;
+            }
+        }
+        while (level > 1 && head.next[level - 1] == null) {
+            level--;
+        }
+        size--;
+        return true;
+    }
+
+    /** スコアが指定値より高い要素の件数（順位 = 件数 + 1） */
+    int countHigher(long score) {
+        int count = 0;
+        Node x = head;
+        for (int i = level - 1; i >= 0; i--) {
+            while (x.next[i] != null && x.next[i].score > score) {
+                count += x.span[i];
+                x = x.next[i];
+            }
+        }
+        return count;
+    }
+
+    /** offset件目（0始まり）から最大limit件を、順位（同じスコアは同じ順位）を付けて取得します */
+    List<QuizPlayerScore> range(int offset, int limit) {
+        List<QuizPlayerScore> result = new ArrayList<>(Math.max(0, Math.min(limit, size - offset)));
+        if (offset < 0 || offset >= size || limit <= 0) {
+            return result;
+        }
+        // offset + 1 番目の要素まで上のレベルから飛び越して進む
+        int traversed = 0;
+        Node x = head;
+        for (int i = level - 1; i >= 0; i--) {
+            while (x.next[i] != null && traversed + x.span[i] <= offset + 1) {
+                traversed += x.span[i];
+                x = x.next[i];
+            }
+        }
+        long rank = countHigher(x.score) + 1;
+        long position = offset + 1;
+        long previous = x.score;
+        for (; x != null && result.size() < limit; x = x.next[0], position++) {
+            if (x.score != previous) {
+                rank = position;
+                previous = x.score;
+            }
+            result.add(new QuizPlayerScore(x.player, x.score, rank));
+        }
+        return result;
+    }
+
+    /** 並び順で(score, player)より前の要素か判定します */
+    private static boolean precedes(Node node, long score, String player) {
+        return node.score > score || (node.score == score && node.player.compareTo(player) < 0);
+    }
+
+    private static int randomLevel() {
+        int newLevel = 1;
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        while (newLevel < MAX_LEVEL && random.nextDouble() < P) {
+            newLevel++;
+        }
+        return newLevel;
+    }
+
+    /** 要素 */
+    private static class Node {
+        final String player;
+        final long score;
+        /** レベルごとの次の要素 */
+        final Node[] next;
+        /** レベルごとの次の要素までに進む件数 */
+        final int[] span;
+
+        Node(String player, long score, int level) {
+            this.player = player;
+            this.score = score;
+            next = new Node[level];
+            span = new int[level];
+        }
+    }
+}
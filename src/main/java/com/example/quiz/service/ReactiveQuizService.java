@@ -0,0 +1,24 @@
+package com.example.quiz.service;
+
+import com.example.quiz.entity.Quiz;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Quizサービス処理：Service（R2DBCによるノンブロッキング版）。
+ * プレイ用の参照処理のみを提供します。登録・更新・削除はQuizServiceで行います。
+ */
+public interface ReactiveQuizService {
+
+    /** クイズ情報を全件取得します */
+    Flux<Quiz> selectAll();
+
+    /** クイズ情報を、idをキーに1件取得します */
+    Mono<Quiz> selectOneById(Integer id);
+
+    /** クイズ情報をランダムで1件取得します */
+    Mono<Quiz> selectOneRandomQuiz();
+
+    /** クイズの正解、不正解を判定します */
+    Mono<Boolean> checkQuiz(Integer id, Boolean myAnswer);
+}
@@ -0,0 +1,67 @@
+package com.example.quiz.service;
+
+import com.example.quiz.entity.Quiz;
+import com.example.quiz.repository.ReactiveQuizRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveQuizServiceImpl implements ReactiveQuizService {
+
+    /** Repository：注入 */
+    @Autowired
+    ReactiveQuizRepository reactiveQuizRepository;
+    /** 解答キャッシュ（QuizServiceと共有） */
+    @Autowired
+    QuizAnswerCache quizAnswerCache;
+    /** 解答の統計（QuizServiceと共有） */
+    @Autowired
+    QuizAnswerStats quizAnswerStats;
+    /** 計測（QuizServiceと共有） */
+    @Autowired
+    QuizMetrics quizMetrics;
+
+    @Override
+    public Flux<Quiz> selectAll() {
+        return reactiveQuizRepository.findAll();
+    }
+
+    @Override
+    public Mono<Quiz> selectOneById(Integer id) {
+        return reactiveQuizRepository.findById(id);
+    }
+
+    @Override
+    public Mono<Quiz> selectOneRandomQuiz() {
+        return reactiveQuizRepository.findOneRandom();
+    }
+
+    @Override
+    public Mono<Boolean> checkQuiz(Integer id, Boolean myAnswer) {
+        return checkAnswer(id, myAnswer).doOnNext(quizMetrics::answer);
+    }
+
+    /** クイズの解答チェック（キャッシュにない場合のみDBから取得） */
+    private Mono<Boolean> checkAnswer(Integer id, Boolean myAnswer) {
+        if (id == null) {
+            return Mono.just(false);
+        }
+        // キャッシュにあればDBにアクセスしない
+        Boolean answer = quizAnswerCache.get(id);
+        if (answer != null) {
+            boolean correct = answer.equals(myAnswer);
+            quizAnswerStats.record(id, correct);
+            return Mono.just(correct);
+        }
+        long stamp = quizAnswerCache.stamp();
+        return reactiveQuizRepository.findAnswerById(id)
+                .doOnNext(dbAnswer -> quizAnswerCache.put(id, dbAnswer, stamp))
+                .map(dbAnswer -> dbAnswer.equals(myAnswer))
+                .doOnNext(correct -> quizAnswerStats.record(id, correct))
+                .defaultIfEmpty(false);
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.quiz.service;
+
+import com.example.quiz.entity.Quiz;
+import com.example.quiz.repository.QuizRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+
+/** 全クイズから一様に選ぶ（乱数の生成とクイズの取得をDB側で行い、欠番に当たった乱数は捨てて選び直す） */
+@Component
+@ConditionalOnProperty(name = "quiz.selection.strategy", havingValue = "uniform", matchIfMissing = true)
+public class UniformQuizSelectionStrategy implements QuizSelectionStrategy {
+
+    /** Repository：注入 */
+    @Autowired
+    QuizRepository quizRepository;
+
+    @Override
+    public Optional<Quiz> select() {
+        return quizRepository.findOneRandom();
+    }
+}
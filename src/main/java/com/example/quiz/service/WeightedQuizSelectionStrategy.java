@@ -0,0 +1,461 @@
+package com.example.quiz.service;
+
+import com.example.quiz.entity.Quiz;
+import com.example.quiz.repository.QuizRepository;
+import com.example.quiz.repository.QuizStatsRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 重み付きでクイズを選ぶ。
+ * 重みは 1 + 重みの倍率 × (不正解数 + 1) / (解答数 + 2) で、正解率の低いクイズや未解答のクイズほど選ばれやすくなります。
+ * 出題したクイズは、その後 quiz.selection.cooldown 回（クイズ数の半分まで）選ばれるまで重みを0にします。
+ * <p>
+ * 重みの累積和をフェニック木（Binary Indexed Tree）で保持し、抽選・重みの変更・クイズの追加はいずれもO(log n)です。
+ * クイズは追加順に位置を割り当てて末尾に追加し（コミット順がidの順と異なっても途中に挿入しない）、
+ * idから位置へはオープンアドレス法の索引で引きます。1件あたり約40～60バイトです。
+ * 起動完了時にidと統計（quiz_stats）を読み込み、作成が終わるまでは一様に選びます。
+ * <p>
+ * 解答の結果は木のロックを取らず、idごとの解答数・正解数の増分としてバッファに加算し（QuizAnswerCacheと同じ1スロット1つのlong）、
+ * quiz.selection.apply-interval-ms（既定：100ミリ秒）ごとにまとめて重みに反映します。
+ * 同じスロットに別のidの増分がある場合や増分が上限に達した場合のみ、ロックを取ってその場で反映します。
+ */
+@Component
+@ConditionalOnProperty(name = "quiz.selection.strategy", havingValue = "weighted")
+public class WeightedQuizSelectionStrategy implements QuizSelectionStrategy {
+    /** 解答の増分のバッファのスロット数（2のべき乗） */
+    private static final int ANSWER_BUFFER_SIZE = 4096;
+    /** 解答の増分の上限（解答数・正解数それぞれ16ビット） */
+    private static final int MAX_PENDING = 0xFFFF;
+
+    /** Repository：注入 */
+    @Autowired
+    QuizRepository quizRepository;
+    /** 統計の読み込み */
+    @Autowired
+    QuizStatsRepository quizStatsRepository;
+    /** 作成時の読み込み用（読み取り専用） */
+    private final TransactionTemplate readTransaction;
+    /** 変更の反映用（レプリカの遅延の影響を受けないようプライマリで読み込む） */
+    private final TransactionTemplate latestTransaction;
+    /** 作成時に1回に読み込む件数 */
+    @Value("${quiz.selection.fetch-size:10000}")
+    int fetchSize;
+    /** 出題後に重みを0にしておく抽選回数 */
+    @Value("${quiz.selection.cooldown:50}")
+    int cooldown;
+    /** 正解率による重みの倍率 */
+    @Value("${quiz.selection.weight-scale:99}")
+    int weightScale;
+
+    /** 位置 → クイズのid（追加順） */
+    private int[] ids = new int[1024];
+    /** 位置 → 現在の重み */
+    private int[] weights = new int[1024];
+    /** 位置 → 解答数 */
+    private int[] attempts = new int[1024];
+    /** 位置 → 正解数 */
+    private int[] corrects = new int[1024];
+    /** 位置 → 削除済み */
+    private boolean[] deleted = new boolean[1024];
+    /** 位置 → 出題直後のため重みを0にしている */
+    private boolean[] cooling = new boolean[1024];
+    /** 重みのフェニック木（1始まり、要素数は配列の長さ） */
+    private long[] tree = new long[1025];
+    /** idの位置の索引：id（オープンアドレス法、要素数は使用中の位置の数の2倍以上） */
+    private int[] indexIds = new int[2048];
+    /** idの位置の索引：位置 + 1（0は空） */
+    private int[] indexSlots = new int[2048];
+    /** 使用中の位置の数（削除済みを含む） */
+    private int size;
+    /** 削除されていないクイズの数 */
+    private int live;
+    /** 重みの合計 */
+    private long total;
+    /** 登録したidの最大値（一括登録の反映用） */
+    private int maxId = KeysetQuizIterable.FIRST;
+    /** 最近出題したクイズのid（古い順のリングバッファ） */
+    private int[] recent = new int[0];
+    private int recentHead;
+    private int recentCount;
+    /** 作成完了 */
+    private volatile boolean ready;
+    /** 重みに反映していない解答の増分（id:32ビット、解答数:16ビット、正解数:16ビット。0は空） */
+    private final AtomicLongArray pendingAnswers = new AtomicLongArray(ANSWER_BUFFER_SIZE);
+
+    public WeightedQuizSelectionStrategy(PlatformTransactionManager transactionManager) {
+        readTransaction = new TransactionTemplate(transactionManager);
+        readTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        readTransaction.setReadOnly(true);
+        latestTransaction = new TransactionTemplate(transactionManager);
+        latestTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /** 起動完了時に全クイズのidと統計を読み込みます */
+    @EventListener(ApplicationReadyEvent.class)
+    public void build() {
+        int after = KeysetQuizIterable.FIRST;
+        List<Integer> chunk;
+        do {
+            int afterId = after;
+            chunk = readTransaction.execute(status -> quizRepository.findIdsAfter(afterId, fetchSize));
+            synchronized (this) {
+                chunk.forEach(this::append);
+            }
+            if (!chunk.isEmpty()) {
+                after = chunk.get(chunk.size() - 1);
+            }
+        } while (chunk.size() == fetchSize);
+        readTransaction.executeWithoutResult(status -> quizStatsRepository.forEach(fetchSize, stats -> {
+            synchronized (this) {
+                int slot = indexOf(stats.getQuizId());
+                if (slot >= 0) {
+                    attempts[slot] = (int) Math.min(stats.getAttempts(), Integer.MAX_VALUE);
+                    corrects[slot] = (int) Math.min(stats.getCorrect(), Integer.MAX_VALUE);
+                }
+            }
+        }));
+        synchronized (this) {
+            recent = new int[Math.max(cooldown, 0)];
+            rebuildTree();
+            ready = true;
+        }
+        // 作成中に登録されたクイズを追加する（作成中の削除は、選んだときに反映する）
+        catchUp();
+    }
+
+    @Override
+    public Optional<Quiz> select() {
+        if (ready) {
+            for (int attempt = 0; attempt < 3; attempt++) {
+                int id = draw();
+                if (id < 0) {
+                    break;
+                }
+                Optional<Quiz> quiz = quizRepository.findById(id);
+                if (quiz.isEmpty()) {
+                    // レプリカに未反映の登録の場合があるため、プライマリで確認する
+                    quiz = latestTransaction.execute(status -> quizRepository.findById(id));
+                }
+                if (quiz.isPresent()) {
+                    return quiz;
+                }
+                // 削除が反映されていなかったクイズは除いて選び直す
+                remove(id);
+            }
+        }
+        return quizRepository.findOneRandom();
+    }
+
+    /** 解答の増分をバッファに加算します（ロックなし。重みへの反映はapplyAnswersで行う） */
+    @Override
+    public void onAnswered(int id, boolean correct) {
+        int buffer = id & (ANSWER_BUFFER_SIZE - 1);
+        long increment = (1L << 16) | (correct ? 1 : 0);
+        while (true) {
+            long entry = pendingAnswers.get(buffer);
+            if (entry == 0) {
+                if (pendingAnswers.compareAndSet(buffer, 0, ((long) id << 32) | increment)) {
+                    return;
+                }
+            } else if (pendingIdOf(entry) == id && pendingAttemptsOf(entry) < MAX_PENDING) {
+                if (pendingAnswers.compareAndSet(buffer, entry, entry + increment)) {
+                    return;
+                }
+            } else {
+                // 別のidの増分がある・上限に達した場合は、スロットの増分と合わせてその場で反映する
+                synchronized (this) {
+                    applyAnswer(pendingAnswers.getAndSet(buffer, 0));
+                    applyAnswer(((long) id << 32) | increment);
+                }
+                return;
+            }
+        }
+    }
+
+    /** バッファの解答の増分をまとめて重みに反映します */
+    @Scheduled(fixedDelayString = "${quiz.selection.apply-interval-ms:100}")
+    public synchronized void applyAnswers() {
+        for (int buffer = 0; buffer < ANSWER_BUFFER_SIZE; buffer++) {
+            if (pendingAnswers.get(buffer) != 0) {
+                applyAnswer(pendingAnswers.getAndSet(buffer, 0));
+            }
+        }
+    }
+
+    /** 1件分の解答の増分を反映します（登録されていないクイズの分は破棄する） */
+    private void applyAnswer(long entry) {
+        if (entry == 0) {
+            return;
+        }
+        int slot = indexOf(pendingIdOf(entry));
+        if (slot < 0) {
+            return;
+        }
+        attempts[slot] = (int) Math.min((long) attempts[slot] + pendingAttemptsOf(entry), Integer.MAX_VALUE);
+        corrects[slot] = (int) Math.min((long) corrects[slot] + (int) (entry & MAX_PENDING), attempts[slot]);
+        setWeight(slot, weightOf(slot));
+    }
+
+    private static int pendingIdOf(long entry) {
+        return (int) (entry >>> 32);
+    }
+
+    private static int pendingAttemptsOf(long entry) {
+        return (int) (entry >>> 16) & MAX_PENDING;
+    }
+
+    /** コミットされたクイズの登録・削除を反映します */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onQuizChanged(QuizChangedEvent event) {
+        if (!ready) {
+            return;
+        }
+        switch (event.getType()) {
+            case INSERT:
+                event.getIds().forEach(this::add);
+                break;
+            case DELETE:
+                event.getIds().forEach(this::remove);
+                break;
+            case BULK:
+            case RESYNC:
+                // 取りこぼした削除は、選んだときに反映する
+                catchUp();
+                break;
+            default:
+                break;
+        }
+    }
+
+    /** 登録したidより大きいidのクイズ（一括登録分）を追加します */
+    private void catchUp() {
+        List<Integer> chunk;
+        do {
+            int afterId;
+            synchronized (this) {
+                afterId = maxId;
+            }
+            chunk = latestTransaction.execute(status -> quizRepository.findIdsAfter(afterId, fetchSize));
+            chunk.forEach(this::add);
+        } while (chunk.size() == fetchSize);
+    }
+
+    /** 重みに従って1件選び、しばらく選ばれないよう重みを0にします。選べない場合は-1を返却します */
+    synchronized int draw() {
+        if (total <= 0) {
+            return -1;
+        }
+        int slot = find(ThreadLocalRandom.current().nextLong(total));
+        int id = ids[slot];
+        int window = Math.min(recent.length, live / 2);
+        // 最近出題したクイズを古い順に戻し、出題したクイズを加える
+        while (recentCount > 0 && recentCount >= window) {
+            int oldest = recent[recentHead];
+            recentHead = (recentHead + 1) % recent.length;
+            recentCount--;
+            int oldestSlot = indexOf(oldest);
+            if (oldestSlot >= 0) {
+                cooling[oldestSlot] = false;
+                setWeight(oldestSlot, weightOf(oldestSlot));
+            }
+        }
+        if (window > 0) {
+            cooling[slot] = true;
+            setWeight(slot, 0);
+            recent[(recentHead + recentCount) % recent.length] = id;
+            recentCount++;
+        }
+        return id;
+    }
+
+    /** クイズを追加します（登録済みの場合は何もしない。idの順によらず末尾に追加するためO(log n)） */
+    synchronized void add(int id) {
+        int slot = indexOf(id);
+        if (slot >= 0) {
+            if (deleted[slot]) {
+                deleted[slot] = false;
+                live++;
+                setWeight(slot, weightOf(slot));
+            }
+            return;
+        }
+        append(id);
+        setWeight(size - 1, weightOf(size - 1));
+    }
+
+    /** クイズを除きます（削除済みが半分を超えたら詰める） */
+    synchronized void remove(int id) {
+        int slot = indexOf(id);
+        if (slot < 0 || deleted[slot]) {
+            return;
+        }
+        deleted[slot] = true;
+        live--;
+        setWeight(slot, 0);
+        if (size - live > live && size > 1024) {
+            compact();
+        }
+    }
+
+    /** 末尾に追加します（木は更新しない） */
+    private void append(int id) {
+        ensureCapacity(size + 1);
+        if ((size + 1) * 2 > indexIds.length) {
+            rebuildIndex(indexIds.length * 2);
+        }
+        putIndex(id, size);
+        ids[size] = id;
+        weights[size] = 0;
+        attempts[size] = 0;
+        corrects[size] = 0;
+        deleted[size] = false;
+        cooling[size] = false;
+        size++;
+        live++;
+        maxId = Math.max(maxId, id);
+    }
+
+    /** 削除済みの位置を詰めて木を作り直します */
+    private void compact() {
+        int to = 0;
+        for (int from = 0; from < size; from++) {
+            if (!deleted[from]) {
+                ids[to] = ids[from];
+                attempts[to] = attempts[from];
+                corrects[to] = corrects[from];
+                cooling[to] = cooling[from];
+                deleted[to] = false;
+                to++;
+            }
+        }
+        Arrays.fill(deleted, to, size, false);
+        Arrays.fill(cooling, to, size, false);
+        size = to;
+        rebuildIndex(indexIds.length);
+        rebuildTree();
+    }
+
+    /** 位置を確保します（足りない場合は2倍に拡張し、木を作り直す） */
+    private void ensureCapacity(int required) {
+        if (required <= ids.length) {
+            return;
+        }
+        int capacity = Math.max(ids.length * 2, required);
+        ids = Arrays.copyOf(ids, capacity);
+        weights = Arrays.copyOf(weights, capacity);
+        attempts = Arrays.copyOf(attempts, capacity);
+        corrects = Arrays.copyOf(corrects, capacity);
+        deleted = Arrays.copyOf(deleted, capacity);
+        cooling = Arrays.copyOf(cooling, capacity);
+        tree = new long[capacity + 1];
+        if (ready) {
+            rebuildTree();
+        }
+    }
+
+    /** 全位置の重みを計算し直し、木をO(n)で作り直します */
+    private void rebuildTree() {
+        Arrays.fill(tree, 0);
+        total = 0;
+        for (int slot = 0; slot < ids.length; slot++) {
+            int weight = slot < size ? weightOf(slot) : 0;
+            weights[slot] = weight;
+            total += weight;
+            int i = slot + 1;
+            tree[i] += weight;
+            int parent = i + (i & -i);
+            if (parent < tree.length) {
+                tree[parent] += tree[i];
+            }
+        }
+    }
+
+    /** 位置の重み（削除済み・出題直後は0） */
+    private int weightOf(int slot) {
+        if (deleted[slot] || cooling[slot]) {
+            return 0;
+        }
+        long incorrect = (long) attempts[slot] - corrects[slot];
+        return (int) (1 + weightScale * (incorrect + 1) / (attempts[slot] + 2L));
+    }
+
+    /** 位置の重みを変更します（O(log n)） */
+    private void setWeight(int slot, int weight) {
+        long delta = weight - weights[slot];
+        if (delta == 0) {
+            return;
+        }
+        weights[slot] = weight;
+        total += delta;
+        for (int i = slot + 1; i < tree.length; i += i & -i) {
+            tree[i] += delta;
+        }
+    }
+
+    /** 先頭からの重みの累積和がrを超える最初の位置（O(log n)） */
+    private int find(long r) {
+        int pos = 0;
+        for (int step = Integer.highestOneBit(tree.length - 1); step > 0; step >>= 1) {
+            int next = pos + step;
+            if (next < tree.length && tree[next] <= r) {
+                pos = next;
+                r -= tree[next];
+            }
+        }
+        return pos;
+    }
+
+    /** idの位置（登録されていない場合は負の値） */
+    private int indexOf(int id) {
+        int mask = indexIds.length - 1;
+        for (int i = hash(id) & mask; indexSlots[i] != 0; i = (i + 1) & mask) {
+            if (indexIds[i] == id) {
+                return indexSlots[i] - 1;
+            }
+        }
+        return -1;
+    }
+
+    /** 索引にidの位置を登録します（登録済みでないこと） */
+    private void putIndex(int id, int slot) {
+        int mask = indexIds.length - 1;
+        int i = hash(id) & mask;
+        while (indexSlots[i] != 0) {
+            i = (i + 1) & mask;
+        }
+        indexIds[i] = id;
+        indexSlots[i] = slot + 1;
+    }
+
+    /** 使用中の位置から索引を作り直します（O(n)） */
+    private void rebuildIndex(int capacity) {
+        indexIds = new int[capacity];
+        indexSlots = new int[capacity];
+        for (int slot = 0; slot < size; slot++) {
+            putIndex(ids[slot], slot);
+        }
+    }
+
+    /** 連続したidが索引上で固まらないよう分散させる */
+    private static int hash(int id) {
+        int h = id * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
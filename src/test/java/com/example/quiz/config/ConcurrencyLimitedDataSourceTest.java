@@ -0,0 +1,133 @@
+package com.example.quiz.config;
+
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/** 同時に使用する接続数の制限を、多数のスレッドから接続を取得して確認する */
+class ConcurrencyLimitedDataSourceTest {
+
+    @Test
+    void limitsConcurrentConnectionsUnderLoad() throws Exception {
+        AtomicInteger inUse = new AtomicInteger();
+        AtomicInteger maxInUse = new AtomicInteger();
+        DataSource target = mock(DataSource.class);
+        when(target.getConnection()).thenAnswer(invocation -> {
+            maxInUse.accumulateAndGet(inUse.incrementAndGet(), Math::max);
+            Connection connection = mock(Connection.class);
+            doAnswer(close -> inUse.decrementAndGet()).when(connection).close();
+            return connection;
+        });
+        ConcurrencyLimitedDataSource dataSource = new ConcurrencyLimitedDataSource(target, 4, 100, Duration.ofSeconds(10));
+
+        // 上限（4）の16倍のスレッドが、接続を取得して5ms使用することを繰り返す
+        ExecutorService executor = Executors.newFixedThreadPool(64);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 64; i++) {
+            futures.add(executor.submit(() -> {
+                for (int j = 0; j < 10; j++) {
+                    try (Connection connection = dataSource.getConnection()) {
+                        Thread.sleep(5);
+                    }
+                }
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        // すべて成功し、同時に使用した接続は上限以下
+        verify(target, times(640)).getConnection();
+        assertEquals(4, maxInUse.get());
+        assertEquals(0, inUse.get());
+        assertEquals(4, dataSource.getAvailable());
+    }
+
+    @Test
+    void rejectsWhenTooManyWaiting() throws Exception {
+        DataSource target = mock(DataSource.class);
+        when(target.getConnection()).thenAnswer(invocation -> mock(Connection.class));
+        ConcurrencyLimitedDataSource dataSource = new ConcurrencyLimitedDataSource(target, 1, 1, Duration.ofSeconds(10));
+
+        Connection held = holdInOtherThread(dataSource);
+        // 1件目の待ち
+        CountDownLatch acquired = new CountDownLatch(1);
+        Thread waiter = new Thread(() -> {
+            try (Connection connection = dataSource.getConnection()) {
+                acquired.countDown();
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        waiter.start();
+        while (dataSource.getWaiting() == 0) {
+            Thread.sleep(1);
+        }
+        // 待ちが上限に達しているため、待たずに失敗する
+        long start = System.nanoTime();
+        assertThrows(DataSourceBusyException.class, dataSource::getConnection);
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(1));
+
+        // 閉じると待っていたリクエストが取得する（2回閉じても1回分のみ返却）
+        held.close();
+        held.close();
+        assertTrue(acquired.await(5, TimeUnit.SECONDS));
+        waiter.join();
+        assertEquals(1, dataSource.getAvailable());
+    }
+
+    @Test
+    void timesOut() throws Exception {
+        DataSource target = mock(DataSource.class);
+        when(target.getConnection()).thenAnswer(invocation -> mock(Connection.class));
+        ConcurrencyLimitedDataSource dataSource = new ConcurrencyLimitedDataSource(target, 1, 10, Duration.ofMillis(50));
+
+        try (Connection held = holdInOtherThread(dataSource)) {
+            assertThrows(DataSourceBusyException.class, dataSource::getConnection);
+        }
+        // 取得に失敗した分は使用中に数えない
+        dataSource.getConnection().close();
+        assertEquals(1, dataSource.getAvailable());
+    }
+
+    @Test
+    void nestedConnectionIsNotCounted() throws Exception {
+        DataSource target = mock(DataSource.class);
+        when(target.getConnection()).thenAnswer(invocation -> mock(Connection.class));
+        ConcurrencyLimitedDataSource dataSource = new ConcurrencyLimitedDataSource(target, 1, 10, Duration.ofMillis(50));
+
+        // 接続を使用中のスレッドは、上限に達していても別の接続を取得できる（コミット後のREQUIRES_NEW等）
+        try (Connection outer = dataSource.getConnection()) {
+            try (Connection inner = dataSource.getConnection()) {
+                assertEquals(0, dataSource.getAvailable());
+            }
+            assertEquals(0, dataSource.getAvailable());
+        }
+        assertEquals(1, dataSource.getAvailable());
+    }
+
+    /** 別のスレッドで取得した接続（このスレッドの接続としては数えない） */
+    private static Connection holdInOtherThread(DataSource dataSource) throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            return executor.submit(() -> dataSource.getConnection()).get();
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.quiz.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/** 2つの組み込みDB（プライマリ・レプリカ）で、レプリカの接続プールのメトリクスとクローズを確認する */
+class DataSourceConfigTest {
+
+    private EmbeddedDatabase primaryDatabase;
+    private EmbeddedDatabase replicaDatabase;
+    private HikariDataSource primary;
+
+    @BeforeEach
+    void setUp() {
+        primaryDatabase = database("primary");
+        replicaDatabase = database("replica");
+        primary = new HikariDataSource();
+        primary.setDriverClassName("org.h2.Driver");
+        primary.setJdbcUrl("jdbc:h2:mem:primary");
+        primary.setUsername("sa");
+        primary.setPassword("");
+    }
+
+    @AfterEach
+    void tearDown() {
+        primary.close();
+        primaryDatabase.shutdown();
+        replicaDatabase.shutdown();
+    }
+
+    /** どのDBに接続したかを返却するテーブルを持つ組み込みDB */
+    private EmbeddedDatabase database(String name) {
+        EmbeddedDatabase database = new EmbeddedDatabaseBuilder().setType(EmbeddedDatabaseType.H2).setName(name).build();
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(database);
+        jdbcTemplate.execute("CREATE TABLE db (name VARCHAR(20))");
+        jdbcTemplate.update("INSERT INTO db VALUES (?)", name);
+        return database;
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void replicaPool() throws Exception {
+        MeterRegistry registry = new SimpleMeterRegistry();
+        ObjectProvider<MeterRegistry> meterRegistry = mock(ObjectProvider.class);
+        doAnswer(invocation -> {
+            invocation.<Consumer<MeterRegistry>>getArgument(0).accept(registry);
+            return null;
+        }).when(meterRegistry).ifAvailable(any());
+        DataSourceConfig config = new DataSourceConfig();
+        DataSource dataSource = config.dataSource(primary, List.of("jdbc:h2:mem:replica"), Duration.ofSeconds(1),
+                Duration.ofSeconds(10), 0, 1000, Duration.ofSeconds(5), meterRegistry);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        TransactionTemplate readOnly = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        readOnly.setReadOnly(true);
+
+        // レプリカの接続プールも、プール名をタグにメトリクスを登録する
+        assertEquals("replica", readOnly.execute(status -> jdbcTemplate.queryForObject("SELECT name FROM db", String.class)));
+        assertNotNull(registry.find("hikaricp.connections").tag("pool", "replica-0").gauge());
+
+        // 終了時にレプリカの接続プールを閉じる（以降はプライマリで処理し、メトリクスも削除される）
+        config.closeReplicas();
+        assertEquals("primary", readOnly.execute(status -> jdbcTemplate.queryForObject("SELECT name FROM db", String.class)));
+        assertNull(registry.find("hikaricp.connections").tag("pool", "replica-0").gauge());
+    }
+}
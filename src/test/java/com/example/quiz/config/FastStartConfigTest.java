@@ -0,0 +1,28 @@
+package com.example.quiz.config;
+
+import com.example.quiz.QuizApplication;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** faststartプロファイルで起動した場合、出題・解答チェックで使用するBeanのみ作成され、/quiz/play が準備されることを確認する */
+@SpringBootTest(classes = QuizApplication.class, webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("faststart")
+class FastStartConfigTest {
+
+    @Autowired
+    private ConfigurableApplicationContext context;
+
+    @Test
+    void playPathWarmedUp() {
+        assertEquals(1, context.getBean(FastStartConfig.class).warmupCount());
+        assertTrue(context.getBeanFactory().containsSingleton("quizController"));
+        assertTrue(context.getBeanFactory().containsSingleton("quizAnswerCache"));
+        // 出題・解答チェックで使用しないBeanは、最初に使用するまで作成しない
+        assertFalse(context.getBeanFactory().containsSingleton("quizRestController"));
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.quiz.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/** 2つの組み込みDB（プライマリ・レプリカ）で、接続の振り分けを確認する */
+class ReplicaRoutingDataSourceTest {
+
+    private EmbeddedDatabase primary;
+    private EmbeddedDatabase replica1;
+    private EmbeddedDatabase replica2;
+
+    @BeforeEach
+    void setUp() {
+        primary = database("primary");
+        replica1 = database("replica1");
+        replica2 = database("replica2");
+    }
+
+    @AfterEach
+    void tearDown() {
+        primary.shutdown();
+        replica1.shutdown();
+        replica2.shutdown();
+    }
+
+    /** どのDBに接続したかを返却するテーブルを持つ組み込みDB */
+    private EmbeddedDatabase database(String name) {
+        EmbeddedDatabase database = new EmbeddedDatabaseBuilder().setType(EmbeddedDatabaseType.H2).setName(name).build();
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(database);
+        jdbcTemplate.execute("CREATE TABLE db (name VARCHAR(20))");
+        jdbcTemplate.update("INSERT INTO db VALUES (?)", name);
+        return database;
+    }
+
+    @Test
+    void routing() {
+        DataSource dataSource = new LazyConnectionDataSourceProxy(
+                new ReplicaRoutingDataSource(primary, List.of(replica1), Duration.ofSeconds(10)));
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        TransactionTemplate readWrite = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        TransactionTemplate readOnly = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        readOnly.setReadOnly(true);
+
+        // 読み取り専用トランザクションはレプリカ
+        assertEquals("replica1", readOnly.execute(status -> jdbcTemplate.queryForObject("SELECT name FROM db", String.class)));
+        // 読み書きするトランザクション・トランザクション外はプライマリ
+        assertEquals("primary", readWrite.execute(status -> jdbcTemplate.queryForObject("SELECT name FROM db", String.class)));
+        assertEquals("primary", jdbcTemplate.queryForObject("SELECT name FROM db", String.class));
+    }
+
+    @Test
+    void leastLoaded() throws SQLException {
+        ReplicaRoutingDataSource dataSource = new ReplicaRoutingDataSource(primary, List.of(replica1, replica2), Duration.ofSeconds(10));
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        try {
+            // 使用中の接続があるレプリカより、接続のないレプリカを選ぶ
+            try (Connection first = dataSource.getConnection()) {
+                String firstName = name(first);
+                for (int i = 0; i < 4; i++) {
+                    try (Connection other = dataSource.getConnection()) {
+                        assertNotEquals(firstName, name(other));
+                    }
+                }
+            }
+        } finally {
+            TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+        }
+    }
+
+    @Test
+    void fallback() throws SQLException {
+        DataSource down = mock(DataSource.class);
+        when(down.getConnection()).thenThrow(new SQLException("接続できません"));
+        ReplicaRoutingDataSource dataSource = new ReplicaRoutingDataSource(primary, List.of(down), Duration.ofSeconds(10));
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        try {
+            // 接続できない場合はプライマリ
+            try (Connection connection = dataSource.getConnection()) {
+                assertEquals("primary", name(connection));
+            }
+            // 再び使用するまではレプリカに接続しない
+            try (Connection connection = dataSource.getConnection()) {
+                assertEquals("primary", name(connection));
+            }
+            verify(down, times(1)).getConnection();
+        } finally {
+            TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+        }
+    }
+
+    private static String name(Connection connection) throws SQLException {
+        try (var statement = connection.createStatement(); var rs = statement.executeQuery("SELECT name FROM db")) {
+            rs.next();
+            return rs.getString(1);
+        }
+    }
+}
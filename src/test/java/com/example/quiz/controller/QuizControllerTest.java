@@ -3,12 +3,20 @@ package com.example.quiz.controller;
 import com.example.quiz.QuizApplication;
 import com.example.quiz.entity.Quiz;
 import com.example.quiz.form.QuizForm;
+import com.example.quiz.service.QuizAnswerStats;
+import com.example.quiz.service.QuizChangedEvent;
+import com.example.quiz.service.QuizLeaderboard;
+import com.example.quiz.service.QuizService;
+import com.example.quiz.service.QuizVersionTracker;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.context.jdbc.Sql;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
@@ -21,12 +29,15 @@ import org.springframework.validation.Validator;
 
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.*;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -43,6 +54,16 @@ class QuizControllerTest {
     private MockMvc mockMvc;
     @Autowired
     private Validator validator;
+    @Autowired
+    QuizAnswerStats quizAnswerStats;
+    @Autowired
+    QuizVersionTracker quizVersionTracker;
+    @Autowired
+    MeterRegistry meterRegistry;
+    @Autowired
+    QuizService quizService;
+    @Autowired
+    QuizLeaderboard quizLeaderboard;
     /** 検証結果を設定するBindingResult */
     private BindingResult bindingResult;
 
@@ -83,6 +104,22 @@ class QuizControllerTest {
         assertEquals(true, resultForm.getNewQuiz());
     }
 
+    @Test
+    void showListPaging() throws Exception {
+        // 指定したidより後ろにデータがない場合
+        this.mockMvc.perform(get("/quiz").param("after", "5")).andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(view().name("crud"))
+                .andExpect(model().attribute("list", empty()))
+                .andExpect(model().attributeDoesNotExist("nextCursor"));
+
+        // すべて表示（チャンク単位で取得）
+        this.mockMvc.perform(get("/quiz").param("all", "true")).andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(view().name("crud"))
+                .andExpect(model().attribute("list", hasItem(hasProperty("id", is(5)))));
+    }
+
     @Test
     void insert() throws Exception {
         // 異常
@@ -129,6 +166,38 @@ class QuizControllerTest {
                 .andExpect(flash().attribute("complete", "登録が完了しました。"));
     }
 
+    @Test
+    void importQuizzes() throws Exception {
+        MockMultipartFile file = new MockMultipartFile("file", "quiz.csv", "text/csv",
+                "テスト1,○,テスト太郎\nテスト2,×,\n".getBytes(StandardCharsets.UTF_8));
+
+        this.mockMvc.perform(multipart("/quiz/import").file(file)).andDo(print())
+                .andExpect(status().isFound())
+                .andExpect(redirectedUrl("/quiz"))
+                .andExpect(flash().attribute("complete", "一括登録が完了しました。（登録：1件、エラー：1件）"))
+                .andExpect(flash().attribute("importErrors", contains("2行目：作成者が未入力です。")));
+    }
+
+    @Test
+    void export() throws Exception {
+        // CSV
+        MvcResult csv = this.mockMvc.perform(get("/quiz/export").param("format", "csv"))
+                .andExpect(request().asyncStarted()).andReturn();
+        this.mockMvc.perform(asyncDispatch(csv)).andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Disposition", "attachment; filename=\"quiz.csv\""))
+                .andExpect(content().string(startsWith("id,question,answer,author\n")))
+                .andExpect(content().string(containsString("5,クイズ１,true,クイズ太郎\n")));
+
+        // NDJSON
+        MvcResult ndjson = this.mockMvc.perform(get("/quiz/export").param("format", "ndjson"))
+                .andExpect(request().asyncStarted()).andReturn();
+        this.mockMvc.perform(asyncDispatch(ndjson)).andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString(
+                        "{\"id\":5,\"question\":\"クイズ１\",\"answer\":true,\"author\":\"クイズ太郎\"}\n")));
+    }
+
     @Test
     void showUpdate() throws Exception {
         // データが取得できた場合
@@ -163,6 +232,55 @@ class QuizControllerTest {
         assertEquals("い", resultForm2.getAuthor());
     }
 
+    @Test
+    void conditionalGet() throws Exception {
+        // 一覧：ETagと一致すれば、DBからの取得もテンプレートの描画も行わず304を返却する
+        String etag = this.mockMvc.perform(get("/quiz"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Cache-Control", "no-cache, private"))
+                .andExpect(header().exists("Last-Modified"))
+                .andReturn().getResponse().getHeader("ETag");
+        long selectPageCount = serviceCallCount("selectPage");
+        MvcResult notModified = this.mockMvc.perform(get("/quiz").header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", etag))
+                .andExpect(content().string("")).andReturn();
+        assertNull(notModified.getModelAndView());
+        assertEquals(selectPageCount, serviceCallCount("selectPage"));
+
+        // クイズ：変更されたクイズのみ再度表示する
+        String quizEtag = this.mockMvc.perform(get("/quiz/5")).andReturn().getResponse().getHeader("ETag");
+        long selectOneCount = serviceCallCount("selectOneForUpdate");
+        this.mockMvc.perform(get("/quiz/5").header("If-None-Match", quizEtag))
+                .andExpect(status().isNotModified());
+        assertEquals(selectOneCount, serviceCallCount("selectOneForUpdate"));
+        quizVersionTracker.onQuizChanged(new QuizChangedEvent(QuizChangedEvent.Type.UPDATE, 6));
+        this.mockMvc.perform(get("/quiz/5").header("If-None-Match", quizEtag))
+                .andExpect(status().isNotModified());
+        quizVersionTracker.onQuizChanged(new QuizChangedEvent(QuizChangedEvent.Type.UPDATE, 5));
+        this.mockMvc.perform(get("/quiz/5").header("If-None-Match", quizEtag))
+                .andExpect(status().isOk())
+                .andExpect(view().name("crud"))
+                .andExpect(header().string("ETag", not(quizEtag)));
+        assertEquals(selectOneCount + 1, serviceCallCount("selectOneForUpdate"));
+
+        // 一覧はいずれかのクイズが変更されると再度表示する
+        this.mockMvc.perform(get("/quiz").header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(view().name("crud"));
+
+        // リダイレクト後のメッセージがある場合は常に表示する
+        String latest = this.mockMvc.perform(get("/quiz")).andReturn().getResponse().getHeader("ETag");
+        this.mockMvc.perform(get("/quiz").header("If-None-Match", latest).flashAttr("complete", "登録が完了しました。"))
+                .andExpect(status().isOk())
+                .andExpect(view().name("crud"));
+    }
+
+    /** QuizServiceのメソッドの呼び出し回数（計測の件数） */
+    private long serviceCallCount(String method) {
+        return meterRegistry.get("quiz.service").tag("method", method).timer().count();
+    }
+
     @Test
     void makeUpdateModel() throws Exception {
         MvcResult result = this.mockMvc.perform(get("/quiz/5")).andReturn();
@@ -222,6 +340,19 @@ class QuizControllerTest {
         assertEquals("クイズ１更新", resultForm2.getQuestion());
         assertEquals(false, resultForm2.getAnswer());
         assertEquals("クイズ太郎更新", resultForm2.getAuthor());
+        assertEquals(1, resultForm2.getVersion());
+
+        // 変更なし
+        params2.add("version", "1");
+        this.mockMvc.perform(post("/quiz/update").params(params2))
+                .andExpect(flash().attribute("complete", "変更された項目がないため、更新しませんでした。"));
+
+        // 古い版数での更新（競合）
+        params2.set("version", "0");
+        params2.set("question", "クイズ１再更新");
+        this.mockMvc.perform(post("/quiz/update").params(params2))
+                .andExpect(redirectedUrl("/quiz/5"))
+                .andExpect(flash().attribute("conflict", "他のユーザーが先に更新または削除したため、更新できませんでした。最新の内容を確認してください。"));
     }
 
     @Test
@@ -273,6 +404,44 @@ class QuizControllerTest {
         assertNotEquals(resultForm.getAuthor(), "クイズ太郎");
     }
 
+    @Test
+    void bulk() throws Exception {
+        // 未選択
+        this.mockMvc.perform(post("/quiz/bulk/update").param("answer", "false"))
+                .andExpect(redirectedUrl("/quiz"))
+                .andExpect(flash().attribute("msg", "一括変更・一括削除するクイズを選択してください。"));
+
+        // 一括変更（空欄の作成者は変更しない）
+        this.mockMvc.perform(post("/quiz/bulk/update").param("ids", "5", "99").param("answer", "false").param("author", ""))
+                .andExpect(redirectedUrl("/quiz"))
+                .andExpect(flash().attribute("delcomplete", "一括変更が完了しました。（対象：2件、変更：1件）"));
+        this.mockMvc.perform(get("/quiz/5"))
+                .andExpect(model().attribute("quizForm", allOf(hasProperty("answer", is(false)), hasProperty("author", is("クイズ太郎")))));
+
+        // 作成者で一括削除
+        this.mockMvc.perform(post("/quiz/bulk/delete-by-author").param("author", "クイズ太郎"))
+                .andExpect(redirectedUrl("/quiz"))
+                .andExpect(flash().attribute("delcomplete", "作成者「クイズ太郎」のクイズを一括削除しました。（削除：1件）"));
+
+        // 一括削除（削除済み）
+        this.mockMvc.perform(post("/quiz/bulk/delete").param("ids", "5"))
+                .andExpect(flash().attribute("delcomplete", "一括削除が完了しました。（対象：1件、削除：0件）"));
+    }
+
+    @Test
+    void search() throws Exception {
+        // 起動時に作成した索引から検索（全角・半角を区別しない）
+        this.mockMvc.perform(get("/quiz/search").param("q", "ｸｲｽﾞ 太郎"))
+                .andExpect(status().isOk())
+                .andExpect(view().name("crud"))
+                .andExpect(model().attribute("list", hasItem(hasProperty("id", is(5)))))
+                .andExpect(model().attributeDoesNotExist("nextPage"));
+        // 一致なし
+        this.mockMvc.perform(get("/quiz/search").param("q", "該当なし"))
+                .andExpect(model().attribute("list", empty()))
+                .andExpect(model().attribute("noListMsg", "検索条件に一致するクイズはありません。"));
+    }
+
     @Test
     @Sql("/test/sql/setval.sql")
     void showQuiz() throws Exception {
@@ -314,4 +483,50 @@ class QuizControllerTest {
                 .andExpect(view().name("answer"))
                 .andExpect(model().attribute("msg", "残念！不正解です！！！"));
     }
-}
\ No newline at end of file
+
+    @Test
+    void stats() throws Exception {
+        // 解答をDBに書き込んでから表示
+        this.mockMvc.perform(post("/quiz/check").param("id", "5").param("answer", "true"));
+        this.mockMvc.perform(post("/quiz/check").param("id", "5").param("answer", "false"));
+        quizAnswerStats.flush();
+
+        this.mockMvc.perform(get("/quiz/stats").param("order", "easy")).andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(view().name("stats"))
+                .andExpect(model().attribute("title", "解答の統計（易しい順）"))
+                .andExpect(model().attribute("list", hasItem(allOf(hasProperty("quizId", is(5)),
+                        hasProperty("question", is("クイズ１")), hasProperty("attempts", greaterThanOrEqualTo(2L))))));
+    }
+
+    @Test
+    void leaderboard() throws Exception {
+        // 正解するとスコアに加算され、プレイヤー名はセッションに保持される
+        MvcResult result = this.mockMvc.perform(post("/quiz/check").param("id", "5").param("answer", "true")
+                        .param("player", " ランキング太郎 ")).andDo(print())
+                .andExpect(view().name("answer"))
+                .andExpect(model().attribute("score", allOf(hasProperty("player", is("ランキング太郎")),
+                        hasProperty("score", greaterThanOrEqualTo(1L)), hasProperty("rank", greaterThanOrEqualTo(1L)))))
+                .andReturn();
+        MockHttpSession session = (MockHttpSession) result.getRequest().getSession(false);
+        assertNotNull(session);
+        this.mockMvc.perform(get("/quiz/play").session(session))
+                .andExpect(model().attribute("player", "ランキング太郎"));
+        // 不正解の場合は加算しない
+        long score = quizService.selectPlayerScore("ランキング太郎").orElseThrow().getScore();
+        this.mockMvc.perform(post("/quiz/check").param("id", "5").param("answer", "false").session(session)
+                .param("player", "ランキング太郎"));
+        assertEquals(score, quizService.selectPlayerScore("ランキング太郎").orElseThrow().getScore());
+        // 未入力の場合は記録しない
+        this.mockMvc.perform(post("/quiz/check").param("id", "5").param("answer", "true"))
+                .andExpect(model().attributeDoesNotExist("score"));
+        // テストのトランザクション内で書き込む（ロールバックされる）
+        quizLeaderboard.flush();
+
+        this.mockMvc.perform(get("/quiz/leaderboard").session(session)).andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(view().name("leaderboard"))
+                .andExpect(model().attribute("list", hasItem(hasProperty("player", is("ランキング太郎")))))
+                .andExpect(model().attribute("score", hasProperty("score", is(score))));
+    }
+}
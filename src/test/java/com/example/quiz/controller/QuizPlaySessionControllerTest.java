@@ -0,0 +1,74 @@
+package com.example.quiz.controller;
+
+import com.example.quiz.QuizApplication;
+import com.example.quiz.entity.Quiz;
+import com.example.quiz.form.QuizForm;
+import com.example.quiz.service.QuizService;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@AutoConfigureMockMvc
+@SpringBootTest(classes = QuizApplication.class)
+@Slf4j
+@Transactional
+class QuizPlaySessionControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    QuizService quizService;
+
+    @Test
+    void playRound() throws Exception {
+        // テストデータ挿入（id:5 と合わせて3件）
+        quizService.insertQuiz(new Quiz(null, "テスト1", false, "テスト太郎"));
+        quizService.insertQuiz(new Quiz(null, "テスト2", true, "テスト太郎"));
+
+        MockHttpSession session = new MockHttpSession();
+        Set<Integer> played = new HashSet<>();
+        for (int i = 1; i <= 3; i++) {
+            MvcResult result = mockMvc.perform(get("/quiz/session/play").session(session))
+                    .andExpect(status().isOk())
+                    .andExpect(view().name("session-play"))
+                    .andExpect(model().attribute("progress", "クイズ（" + i + "問目／全3問）"))
+                    .andReturn();
+            // 再表示しても同じクイズ
+            mockMvc.perform(get("/quiz/session/play").session(session))
+                    .andExpect(model().attribute("progress", "クイズ（" + i + "問目／全3問）"));
+
+            QuizForm quizForm = (QuizForm) result.getModelAndView().getModel().get("quizForm");
+            // 同じラウンドで重複して出題しない
+            assertTrue(played.add(quizForm.getId()));
+            // 判定はセッションの解答で行う（DBから削除しても判定できる）
+            Boolean answer = quizService.selectOneById(quizForm.getId()).get().getAnswer();
+            quizService.deleteQuizById(quizForm.getId());
+            mockMvc.perform(post("/quiz/session/check").session(session)
+                            .param("id", quizForm.getId().toString())
+                            .param("answer", answer.toString()))
+                    .andExpect(status().isOk())
+                    .andExpect(view().name("session-answer"))
+                    .andExpect(model().attribute("msg", "正解です！！！"))
+                    .andExpect(model().attribute("score", i + "問中" + i + "問正解"))
+                    .andExpect(model().attribute("finished", i == 3));
+        }
+
+        // 出題し終えた後は新しいラウンド（全件削除済みのためクイズなし）
+        mockMvc.perform(get("/quiz/session/play").session(session))
+                .andExpect(model().attribute("msg", "問題がありません・・・"));
+    }
+}
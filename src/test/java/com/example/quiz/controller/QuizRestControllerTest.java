@@ -0,0 +1,149 @@
+package com.example.quiz.controller;
+
+import com.example.quiz.QuizApplication;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@AutoConfigureMockMvc
+@SpringBootTest(classes = QuizApplication.class)
+@Slf4j
+@Transactional
+class QuizRestControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void list() throws Exception {
+        this.mockMvc.perform(get("/api/quizzes").param("size", "1000"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("ETag"))
+                .andExpect(header().string("Cache-Control", "no-cache, private"))
+                .andExpect(jsonPath("$.items[?(@.id == 5)].question").value(hasItem("クイズ１")))
+                .andExpect(jsonPath("$.items[?(@.id == 5)].answer").value(hasItem(true)));
+        this.mockMvc.perform(get("/api/quizzes/5"))
+                .andExpect(status().isOk())
+                .andExpect(content().json("{\"id\":5,\"question\":\"クイズ１\",\"answer\":true,\"author\":\"クイズ太郎\"}"));
+        this.mockMvc.perform(get("/api/quizzes/99999"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void play() throws Exception {
+        // 出題には解答を含めない
+        this.mockMvc.perform(get("/api/quizzes/random"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").isNumber())
+                .andExpect(jsonPath("$.answer").doesNotExist());
+        this.mockMvc.perform(get("/api/quizzes/random-batch").param("size", "3"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(lessThanOrEqualTo(3)));
+
+        this.mockMvc.perform(post("/api/quizzes/5/check").contentType(MediaType.APPLICATION_JSON).content("{\"answer\":true}"))
+                .andExpect(status().isOk())
+                .andExpect(content().json("{\"id\":5,\"correct\":true}"));
+        this.mockMvc.perform(post("/api/quizzes/check").contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"id\":5,\"answer\":false},{\"id\":99999,\"answer\":true}]"))
+                .andExpect(status().isOk())
+                .andExpect(content().json("[{\"id\":5,\"correct\":false},{\"id\":99999,\"correct\":false}]"));
+    }
+
+    @Test
+    void checkAllScoresOncePerQuiz() throws Exception {
+        // 同じクイズを繰り返し送っても、スコアは同じプレイヤー・同じクイズにつき1回のみ加算する
+        String player = "一括太郎" + System.nanoTime();
+        this.mockMvc.perform(post("/api/quizzes/check").contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"id\":5,\"answer\":true,\"player\":\"" + player + "\"},"
+                                + "{\"id\":5,\"answer\":true,\"player\":\" " + player + " \"},"
+                                + "{\"id\":5,\"answer\":true,\"player\":\"" + player + "\"}]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].correct").value(contains(true, true, true)));
+        this.mockMvc.perform(get("/api/quizzes/leaderboard/{player}", player))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.score").value(1));
+        // 次のバッチでは再び加算する
+        this.mockMvc.perform(post("/api/quizzes/check").contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"id\":5,\"answer\":true,\"player\":\"" + player + "\"}]"))
+                .andExpect(status().isOk());
+        this.mockMvc.perform(get("/api/quizzes/leaderboard/{player}", player))
+                .andExpect(jsonPath("$.score").value(2));
+    }
+
+    @Test
+    void write() throws Exception {
+        // 登録
+        MvcResult created = this.mockMvc.perform(post("/api/quizzes").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"question\":\"REST APIで登録\",\"answer\":true,\"author\":\"API太郎\"}"))
+                .andExpect(status().isCreated())
+                .andExpect(header().string("Location", containsString("/api/quizzes/")))
+                .andExpect(jsonPath("$.version").value(0)).andReturn();
+        String location = created.getResponse().getHeader("Location");
+        String id = location.substring(location.lastIndexOf('/') + 1);
+        // 入力チェック
+        this.mockMvc.perform(post("/api/quizzes").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"question\":\"\",\"answer\":true,\"author\":\"API太郎\"}"))
+                .andExpect(status().isBadRequest());
+
+        // 更新（版数が一致しない場合は409）
+        this.mockMvc.perform(put("/api/quizzes/" + id).contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"question\":\"REST APIで更新\",\"answer\":false,\"author\":\"API太郎\",\"version\":0}"))
+                .andExpect(status().isOk())
+                .andExpect(content().json("{\"updated\":true,\"version\":1}"));
+        this.mockMvc.perform(put("/api/quizzes/" + id).contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"question\":\"REST APIで更新\",\"answer\":false,\"author\":\"API太郎\",\"version\":1}"))
+                .andExpect(status().isOk())
+                .andExpect(content().json("{\"updated\":false,\"version\":1}"));
+        this.mockMvc.perform(put("/api/quizzes/" + id).contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"question\":\"競合\",\"answer\":false,\"author\":\"API太郎\",\"version\":0}"))
+                .andExpect(status().isConflict());
+
+        // 一括変更・一括削除・一括登録
+        this.mockMvc.perform(post("/api/quizzes/batch/update").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"ids\":[" + id + "],\"answer\":true}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.affected").value(1));
+        this.mockMvc.perform(post("/api/quizzes/batch/delete").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"ids\":[" + id + "]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.affected").value(1));
+        this.mockMvc.perform(post("/api/quizzes/batch").contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"question\":\"一括1\",\"answer\":true,\"author\":\"API太郎\"},"
+                                + "{\"question\":\"一括2\",\"answer\":false,\"author\":\"API太郎\"}]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.inserted").value(2));
+
+        // 削除
+        this.mockMvc.perform(delete("/api/quizzes/5"))
+                .andExpect(status().isNoContent());
+        this.mockMvc.perform(get("/api/quizzes/5"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void playCycle() throws Exception {
+        // 1問の出題・解答：画面とREST APIのどちらも2リクエストだが、REST APIは応答が小さい
+        int html = this.mockMvc.perform(get("/quiz/play")).andReturn().getResponse().getContentAsByteArray().length
+                + this.mockMvc.perform(post("/quiz/check").param("id", "5").param("answer", "true"))
+                        .andReturn().getResponse().getContentAsByteArray().length;
+        int json = this.mockMvc.perform(get("/api/quizzes/random")).andReturn().getResponse().getContentAsByteArray().length
+                + this.mockMvc.perform(post("/api/quizzes/5/check").contentType(MediaType.APPLICATION_JSON).content("{\"answer\":true}"))
+                        .andReturn().getResponse().getContentAsByteArray().length;
+        log.info("1問あたりの応答：画面 {}バイト、REST API {}バイト", html, json);
+        assertTrue(json * 5 < html);
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.quiz.controller;
+
+import com.example.quiz.QuizApplication;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.web.reactive.function.BodyInserters;
+
+import static org.hamcrest.Matchers.*;
+
+/** reactiveプロファイル（WebFlux＋R2DBC）の /quiz/play・/quiz/check */
+@AutoConfigureWebTestClient
+@SpringBootTest(classes = QuizApplication.class)
+@ActiveProfiles("reactive")
+class ReactiveQuizHandlerTest {
+
+    @Autowired
+    WebTestClient webTestClient;
+
+    @Test
+    void showQuiz() {
+        webTestClient.get().uri("/quiz/play").exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.TEXT_HTML)
+                .expectBody(String.class).value(allOf(
+                        containsString("name=\"id\""),
+                        containsString("action=\"/quiz/check\""),
+                        not(containsString("name=\"player\""))));
+    }
+
+    @Test
+    void checkQuiz() {
+        // id=5の解答はtrue
+        webTestClient.post().uri("/quiz/check")
+                .body(BodyInserters.fromFormData("id", "5").with("answer", "true")).exchange()
+                .expectStatus().isOk()
+                .expectBody(String.class).value(allOf(
+                        containsString("正解です！！！"),
+                        containsString("href=\"/quiz/play\""),
+                        // ランキング・CRUD画面はないためリンクしない
+                        not(containsString("href=\"/quiz/leaderboard\"")),
+                        not(containsString("href=\"/quiz\""))));
+        webTestClient.post().uri("/quiz/check")
+                .body(BodyInserters.fromFormData("id", "5").with("answer", "false")).exchange()
+                .expectStatus().isOk()
+                .expectBody(String.class).value(containsString("残念！不正解です！！！"));
+        // idが数値でない・存在しない場合は不正解
+        webTestClient.post().uri("/quiz/check")
+                .body(BodyInserters.fromFormData("id", "abc").with("answer", "true")).exchange()
+                .expectStatus().isOk()
+                .expectBody(String.class).value(containsString("残念！不正解です！！！"));
+        webTestClient.post().uri("/quiz/check")
+                .body(BodyInserters.fromFormData("id", "-1").with("answer", "true")).exchange()
+                .expectStatus().isOk()
+                .expectBody(String.class).value(containsString("残念！不正解です！！！"));
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.quiz.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QuizAnswerCacheTest {
+
+    @Test
+    void getAndPut() {
+        QuizAnswerCache cache = new QuizAnswerCache(16);
+        // 未登録
+        assertNull(cache.get(5));
+        assertEquals(1, cache.missCount());
+
+        // 登録済み
+        cache.put(5, true, cache.stamp());
+        cache.put(6, false, cache.stamp());
+        assertEquals(true, cache.get(5));
+        assertEquals(false, cache.get(6));
+        assertEquals(2, cache.hitCount());
+    }
+
+    @Test
+    void eviction() {
+        QuizAnswerCache cache = new QuizAnswerCache(16);
+        // 同じスロットに別のidを登録すると追い出される
+        cache.put(1, true, cache.stamp());
+        cache.put(1 + cache.capacity(), false, cache.stamp());
+        assertNull(cache.get(1));
+        assertEquals(false, cache.get(1 + cache.capacity()));
+        assertEquals(1, cache.evictionCount());
+    }
+
+    @Test
+    void invalidate() {
+        QuizAnswerCache cache = new QuizAnswerCache(16);
+        cache.put(5, true, cache.stamp());
+        cache.put(6, true, cache.stamp());
+
+        // 1件の無効化
+        cache.onQuizChanged(new QuizChangedEvent(QuizChangedEvent.Type.UPDATE, 5));
+        assertNull(cache.get(5));
+        assertEquals(true, cache.get(6));
+
+        // 全件の無効化
+        cache.invalidateAll();
+        assertNull(cache.get(6));
+        assertEquals(2, cache.invalidationCount());
+    }
+
+    @Test
+    void putAfterInvalidate() {
+        QuizAnswerCache cache = new QuizAnswerCache(16);
+        // DBから読み込む間に無効化された値は登録されない
+        long stamp = cache.stamp();
+        cache.invalidate(5);
+        cache.put(5, true, stamp);
+        assertNull(cache.get(5));
+    }
+}
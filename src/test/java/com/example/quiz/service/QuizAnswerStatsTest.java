@@ -0,0 +1,111 @@
+package com.example.quiz.service;
+
+import com.example.quiz.entity.QuizStats;
+import com.example.quiz.repository.QuizStatsRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+class QuizAnswerStatsTest {
+
+    private QuizAnswerStats stats;
+    /** 書き込まれた増分 */
+    private final List<QuizStats> written = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        QuizStatsRepository quizStatsRepository = mock(QuizStatsRepository.class);
+        doAnswer(invocation -> {
+            List<QuizStats> deltas = invocation.getArgument(0);
+            written.addAll(deltas);
+            return null;
+        }).when(quizStatsRepository).addAll(any());
+        stats = new QuizAnswerStats(mock(PlatformTransactionManager.class));
+        stats.quizStatsRepository = quizStatsRepository;
+        stats.quizSelectionStrategy = Optional::empty;
+        stats.chunkSize = 2;
+    }
+
+    @Test
+    void flush() {
+        stats.record(1, true);
+        stats.record(1, false);
+        stats.record(2, false);
+        stats.record(3, true);
+        stats.flush();
+        // クイズごとの増分をまとめて書き込む（2件ずつ）
+        written.sort(Comparator.comparing(QuizStats::getQuizId));
+        assertEquals(3, written.size());
+        assertEquals(new QuizStats(1, null, 2, 1), written.get(0));
+        assertEquals(new QuizStats(2, null, 1, 0), written.get(1));
+        assertEquals(new QuizStats(3, null, 1, 1), written.get(2));
+
+        // 解答がなければ書き込まない
+        written.clear();
+        stats.flush();
+        assertTrue(written.isEmpty());
+
+        // 前回の書き込み以降の増分のみ書き込む
+        stats.record(1, true);
+        stats.flush();
+        assertEquals(List.of(new QuizStats(1, null, 1, 1)), written);
+    }
+
+    @Test
+    void retry() {
+        QuizStatsRepository failing = mock(QuizStatsRepository.class);
+        doThrow(new DataAccessResourceFailureException("接続できません")).when(failing).addAll(any());
+        QuizStatsRepository working = stats.quizStatsRepository;
+        stats.quizStatsRepository = failing;
+        stats.record(1, true);
+        stats.flush();
+
+        // 書き込めなかった増分は次回に書き込む
+        stats.quizStatsRepository = working;
+        stats.record(1, false);
+        stats.flush();
+        assertEquals(List.of(new QuizStats(1, null, 2, 1)), written);
+    }
+
+    @Test
+    void concurrentRecord() throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int t = 0; t < 8; t++) {
+            executor.execute(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    stats.record(i % 10, i % 2 == 0);
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        stats.flush();
+        // 同時に記録しても件数が失われない
+        assertEquals(80_000, written.stream().mapToLong(QuizStats::getAttempts).sum());
+        assertEquals(40_000, written.stream().mapToLong(QuizStats::getCorrect).sum());
+    }
+
+    @Test
+    void noAnswer() {
+        QuizStatsRepository quizStatsRepository = stats.quizStatsRepository;
+        stats.flush();
+        verify(quizStatsRepository, never()).addAll(any());
+    }
+}
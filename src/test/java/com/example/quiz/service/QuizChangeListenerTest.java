@@ -0,0 +1,91 @@
+package com.example.quiz.service;
+
+import com.example.quiz.QuizApplication;
+import com.example.quiz.entity.Quiz;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** 同じDBを使用する2つのインスタンス（アプリケーションコンテキスト）で、変更が反映されることを確認する */
+class QuizChangeListenerTest {
+
+    private static ConfigurableApplicationContext nodeA;
+    private static ConfigurableApplicationContext nodeB;
+
+    @BeforeAll
+    static void startNodes() {
+        nodeA = startNode();
+        nodeB = startNode();
+    }
+
+    @AfterAll
+    static void stopNodes() {
+        nodeA.close();
+        nodeB.close();
+    }
+
+    @Test
+    void propagate() {
+        QuizService serviceA = nodeA.getBean(QuizService.class);
+        QuizService serviceB = nodeB.getBean(QuizService.class);
+        QuizVersionTracker trackerB = nodeB.getBean(QuizVersionTracker.class);
+        Quiz quiz = new Quiz(null, "別のインスタンスで更新", true, "クラスタ太郎");
+        serviceA.insertQuiz(quiz);
+        try {
+            // Bの解答キャッシュに読み込んでから、Aで更新する
+            assertTrue(serviceB.checkQuiz(quiz.getId(), true));
+            String etag = trackerB.quizETag(quiz.getId());
+            quiz.setAnswer(false);
+            assertTrue(serviceA.updateQuiz(quiz));
+            await(() -> serviceB.checkQuiz(quiz.getId(), false));
+            assertNotEquals(etag, trackerB.quizETag(quiz.getId()));
+            // 自分が送った通知は反映しない
+            assertEquals(0, nodeA.getBean(QuizChangeListener.class).receivedCount());
+        } finally {
+            serviceA.deleteQuizById(quiz.getId());
+        }
+        await(() -> nodeB.getBean(QuizSearchIndex.class).search("別のインスタンス", 0, 10).getTotal() == 0);
+    }
+
+    @Test
+    void resyncOnReconnect() {
+        QuizChangeListener listenerB = nodeB.getBean(QuizChangeListener.class);
+        long resyncs = listenerB.resyncCount();
+        // Bの待ち受けの接続を切断すると、再接続してキャッシュを読み込み直す
+        JdbcTemplate jdbcTemplate = nodeA.getBean(JdbcTemplate.class);
+        List<Boolean> terminated = jdbcTemplate.queryForList(
+                "SELECT pg_terminate_backend(pid) FROM pg_stat_activity WHERE application_name = ?",
+                Boolean.class, listenerB.applicationName());
+        assertEquals(List.of(true), terminated);
+        await(() -> listenerB.resyncCount() == resyncs + 1);
+    }
+
+    private static ConfigurableApplicationContext startNode() {
+        return new SpringApplicationBuilder(QuizApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--quiz.cluster.enabled=true", "--quiz.cluster.retry-interval=200ms", "--quiz.cluster.poll-interval=200ms");
+    }
+
+    /** 条件を満たすまで待つ（最大10秒） */
+    private static void await(BooleanSupplier condition) {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "10秒以内に反映されませんでした");
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                fail(e);
+            }
+        }
+    }
+}
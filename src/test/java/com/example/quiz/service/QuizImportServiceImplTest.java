@@ -0,0 +1,87 @@
+package com.example.quiz.service;
+
+import com.example.quiz.QuizApplication;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(classes = QuizApplication.class)
+@Transactional
+class QuizImportServiceImplTest {
+
+    @Autowired
+    QuizImportService quizImportService;
+    @Autowired
+    QuizExportService quizExportService;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Test
+    void importCsv() {
+        String csv = "question,answer,author\n"
+                + "テスト1,true,テスト太郎\n"
+                + "\"カンマ,と\n改行を含む\",×,テスト太郎\n"
+                + ",true,テスト太郎\n"
+                + "テスト3,maybe,テスト太郎\n";
+        QuizImportResult result = quizImportService.importQuizzes(
+                new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), QuizImportService.Format.CSV);
+
+        assertNull(result.getFatalError());
+        assertEquals(4, result.getTotal());
+        assertEquals(2, result.getInserted());
+        assertEquals(2, result.getFailed());
+        // 改行を含む項目の次のレコードは5行目
+        assertEquals("5行目：クイズの内容が未入力です。", result.getAllErrors().get(0));
+        assertEquals("6行目：解答は true / false（○ / ×）で指定してください。", result.getAllErrors().get(1));
+    }
+
+    @Test
+    void importJson() {
+        String json = "[\n"
+                + "{\"question\":\"テスト1\",\"answer\":true,\"author\":\"テスト太郎\"},\n"
+                + "{\"question\":\"テスト2\",\"answer\":\"false\",\"author\":\"\"}\n"
+                + "]";
+        QuizImportResult result = quizImportService.importQuizzes(
+                new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)), QuizImportService.Format.JSON);
+
+        assertEquals(2, result.getTotal());
+        assertEquals(1, result.getInserted());
+        assertEquals(1, result.getChunks().size());
+        assertEquals("3行目：作成者が未入力です。", result.getAllErrors().get(0));
+
+        // 配列でない場合は中断
+        QuizImportResult error = quizImportService.importQuizzes(
+                new ByteArrayInputStream("{}".getBytes(StandardCharsets.UTF_8)), QuizImportService.Format.JSON);
+        assertEquals("ファイルの読み込みに失敗しました：JSONはクイズの配列で指定してください。", error.getFatalError());
+    }
+
+    @Test
+    void exportThenImportCsv() throws IOException {
+        // 一括出力したCSV（id,question,answer,author）をそのまま一括登録できる
+        ByteArrayOutputStream exported = new ByteArrayOutputStream();
+        quizExportService.exportQuizzes(exported, QuizExportService.Format.CSV);
+        long before = count();
+
+        QuizImportResult result = quizImportService.importQuizzes(
+                new ByteArrayInputStream(exported.toByteArray()), QuizImportService.Format.CSV);
+
+        assertNull(result.getFatalError());
+        assertEquals(before, result.getTotal());
+        assertEquals(before, result.getInserted());
+        assertTrue(result.getAllErrors().isEmpty());
+        assertEquals(before * 2, count());
+    }
+
+    private long count() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM quiz", Long.class);
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.quiz.service;
+
+import com.example.quiz.entity.QuizPlayerScore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class QuizLeaderboardTest {
+
+    private final QuizLeaderboard leaderboard =
+            new QuizLeaderboard(mock(PlatformTransactionManager.class), new SimpleMeterRegistry());
+
+    @Test
+    void concurrentAdd() throws InterruptedException {
+        // 8スレッドが4人のプレイヤーに同時に加算し、その間も順位をまとめて付け直す
+        int threads = 8;
+        int adds = 20_000;
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int offset = t;
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < adds; i++) {
+                    leaderboard.add("プレイヤー" + ((i + offset) % 4), 1);
+                    if (i % 1000 == 0) {
+                        leaderboard.apply();
+                    }
+                }
+            });
+            worker.start();
+            workers.add(worker);
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        // 加算は失われず、参照時には反映済み
+        for (int p = 0; p < 4; p++) {
+            assertEquals(threads * adds / 4, leaderboard.find("プレイヤー" + p).orElseThrow().getScore());
+        }
+        assertEquals(4, leaderboard.size());
+    }
+
+    @Test
+    void ranking() {
+        leaderboard.add("一郎", 3);
+        leaderboard.add("二郎", 5);
+        leaderboard.add("三郎", 3);
+        // 反映前でも参照すると最新の順位（同じスコアは同じ順位）
+        assertEquals(List.of(5L, 3L, 3L), leaderboard.top(0, 10).stream().map(QuizPlayerScore::getScore).collect(Collectors.toList()));
+        assertEquals(2, leaderboard.find("一郎").orElseThrow().getRank());
+        leaderboard.add("一郎", 3);
+        assertEquals(1, leaderboard.find("一郎").orElseThrow().getRank());
+        // 加算していないプレイヤー・0点の加算は記録しない
+        leaderboard.add("四郎", 0);
+        assertEquals(Optional.empty(), leaderboard.find("四郎"));
+        assertEquals(3, leaderboard.size());
+    }
+}
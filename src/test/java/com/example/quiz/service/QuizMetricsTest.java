@@ -0,0 +1,36 @@
+package com.example.quiz.service;
+
+import com.example.quiz.service.QuizMetrics.Operation;
+import io.micrometer.prometheus.PrometheusConfig;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.*;
+
+class QuizMetricsTest {
+
+    @Test
+    void record() {
+        PrometheusMeterRegistry registry = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+        QuizAnswerCache cache = new QuizAnswerCache(16);
+        QuizMetrics metrics = new QuizMetrics(registry, cache);
+
+        metrics.record(Operation.CHECK_QUIZ, metrics.start());
+        metrics.record(Operation.CHECK_QUIZ, metrics.start());
+        metrics.rows(Operation.SELECT_ALL, 3);
+        metrics.answer(true);
+        metrics.answer(false);
+        metrics.answer(false);
+        cache.get(5);
+
+        assertEquals(2, registry.get("quiz.service").tag("method", "checkQuiz").timer().count());
+        assertEquals(3, registry.get("quiz.service.rows").tag("method", "selectAll").counter().count());
+        assertEquals(1, registry.get("quiz.answers").tag("result", "correct").counter().count());
+        assertEquals(2, registry.get("quiz.answers").tag("result", "incorrect").counter().count());
+        assertEquals(1, registry.get("quiz.answer.cache.misses").functionCounter().count());
+        // Prometheus形式で出力される（ヒストグラムのバケット付き）
+        assertThat(registry.scrape(), containsString("quiz_service_seconds_bucket{method=\"checkQuiz\""));
+    }
+}
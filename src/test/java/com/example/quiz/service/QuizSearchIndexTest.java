@@ -0,0 +1,128 @@
+package com.example.quiz.service;
+
+import com.example.quiz.entity.Quiz;
+import com.example.quiz.repository.QuizRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class QuizSearchIndexTest {
+
+    private QuizRepository quizRepository;
+    private QuizSearchIndex index;
+
+    /** 各テストメソッドを実行する前に、3件のクイズで索引を作成する */
+    @BeforeEach
+    void setUp() {
+        quizRepository = mock(QuizRepository.class);
+        List<Quiz> quizzes = List.of(
+                new Quiz(1, "日本の首都は東京である", true, "クイズ太郎"),
+                new Quiz(2, "富士山は日本一高い山である", true, "山田花子"),
+                new Quiz(3, "Javaは1995年に公開された", true, "東京次郎"));
+        doAnswer(invocation -> {
+            Consumer<Quiz> action = invocation.getArgument(1);
+            quizzes.forEach(action);
+            return null;
+        }).when(quizRepository).forEachQuiz(anyInt(), any());
+        index = new QuizSearchIndex(mock(PlatformTransactionManager.class));
+        index.quizRepository = quizRepository;
+        index.fetchSize = 1000;
+        index.maxCandidates = 10000;
+        // 作成前は検索結果なし
+        assertFalse(index.search("東京", 0, 10).isReady());
+        index.build();
+    }
+
+    @Test
+    void search() {
+        // 内容で一致したクイズが、作成者のみで一致したクイズより先
+        QuizSearchResult result = index.search("東京", 0, 10);
+        assertTrue(result.isReady());
+        assertEquals(2, result.getTotal());
+        assertEquals(List.of(1, 3), ids(result));
+
+        // 1文字・複数の単語（すべて含むもの）
+        assertEquals(List.of(1, 2), ids(index.search("日", 0, 10)));
+        assertEquals(List.of(2), ids(index.search("日本 山", 0, 10)));
+        // 全角・半角、大文字・小文字を区別しない
+        assertEquals(List.of(3), ids(index.search("ＪＡＶＡ", 0, 10)));
+        // bigramはすべて含むが連続していない
+        assertEquals(0, index.search("東京山", 0, 10).getTotal());
+        // ページング
+        QuizSearchResult page = index.search("である", 1, 1);
+        assertEquals(2, page.getTotal());
+        assertEquals(List.of(2), ids(page));
+    }
+
+    @Test
+    void onQuizChanged() {
+        // 更新
+        when(quizRepository.findAllById(eq(List.of(1)))).thenReturn(List.of(new Quiz(1, "日本の首都は京都である", false, "クイズ太郎")));
+        index.onQuizChanged(new QuizChangedEvent(QuizChangedEvent.Type.UPDATE, 1));
+        assertEquals(List.of(3), ids(index.search("東京", 0, 10)));
+        assertEquals(List.of(1), ids(index.search("京都", 0, 10)));
+
+        // 削除
+        index.onQuizChanged(new QuizChangedEvent(QuizChangedEvent.Type.DELETE, 3));
+        assertEquals(0, index.search("東京", 0, 10).getTotal());
+        assertEquals(2, index.size());
+
+        // 一括登録：索引にあるidより大きいidのクイズを追加
+        when(quizRepository.findPageAfter(eq(3), anyInt())).thenReturn(List.of(new Quiz(4, "東京タワーは333m", true, "テスト")));
+        index.onQuizChanged(new QuizChangedEvent(QuizChangedEvent.Type.BULK, List.of()));
+        assertEquals(List.of(4), ids(index.search("東京", 0, 10)));
+    }
+
+    @Test
+    void onQuizChangedConcurrently() throws Exception {
+        // 1回目の読み込み（古い値）の途中で、同じidの2回目の変更（新しい値）が届く
+        CountDownLatch reading = new CountDownLatch(1);
+        AtomicInteger reads = new AtomicInteger();
+        when(quizRepository.findAllById(eq(List.of(1)))).thenAnswer(invocation -> {
+            if (reads.incrementAndGet() == 1) {
+                reading.countDown();
+                Thread.sleep(200);
+                return List.of(new Quiz(1, "日本の首都は京都である", true, "クイズ太郎"));
+            }
+            return List.of(new Quiz(1, "日本の首都は大阪である", true, "クイズ太郎"));
+        });
+        Thread first = new Thread(() -> index.onQuizChanged(new QuizChangedEvent(QuizChangedEvent.Type.UPDATE, 1)));
+        first.start();
+        assertTrue(reading.await(5, TimeUnit.SECONDS));
+        index.onQuizChanged(new QuizChangedEvent(QuizChangedEvent.Type.UPDATE, 1));
+        first.join();
+
+        // 後から読み込んだ新しい値が残る（古い値で上書きしない）
+        assertEquals(2, reads.get());
+        assertEquals(List.of(1), ids(index.search("大阪", 0, 10)));
+        assertEquals(0, index.search("京都", 0, 10).getTotal());
+    }
+
+    @Test
+    void truncated() {
+        index.maxCandidates = 1;
+        QuizSearchResult result = index.search("である", 0, 10);
+        assertTrue(result.isTruncated());
+        // 新しいクイズから上限件数まで
+        assertEquals(List.of(2), ids(result));
+    }
+
+    private static List<Integer> ids(QuizSearchResult result) {
+        return result.getQuizzes().stream().map(Quiz::getId).collect(Collectors.toList());
+    }
+}
@@ -2,19 +2,36 @@ package com.example.quiz.service;
 
 import com.example.quiz.QuizApplication;
 import com.example.quiz.entity.Quiz;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 import org.junit.jupiter.api.Test;
+import org.springframework.aop.framework.Advised;
+import org.springframework.aop.framework.ProxyFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.jdbc.repository.query.Query;
 import org.springframework.test.context.jdbc.Sql;
+import org.springframework.transaction.annotation.AnnotationTransactionAttributeSource;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.interceptor.TransactionAttributeSource;
 
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.anyOf;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.hasProperty;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
 import static org.junit.jupiter.api.Assertions.*;
 
 @SpringBootTest(classes = QuizApplication.class)
@@ -25,6 +42,28 @@ class QuizServiceImplTest {
     /** Repository：注入 */
     @Autowired
     QuizService quizService;
+    /** 計測の確認 */
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Test
+    void selectRandomQuizzes() {
+        // テストデータ挿入（id:5 と合わせて4件）
+        for (int i = 1; i <= 3; i++) {
+            quizService.insertQuiz(new Quiz(null, "テスト" + i, i % 2 == 0, "テスト太郎"));
+        }
+
+        // 登録件数より少ない件数：指定件数を重複なしで取得
+        List<Quiz> quizzes1 = quizService.selectRandomQuizzes(2);
+        assertEquals(2, quizzes1.size());
+        assertEquals(2, quizzes1.stream().map(Quiz::getId).distinct().count());
+
+        // 登録件数より多い件数：全件を重複なしで取得
+        List<Quiz> quizzes2 = quizService.selectRandomQuizzes(10);
+        assertEquals(4, quizzes2.size());
+        assertEquals(4, quizzes2.stream().map(Quiz::getId).distinct().count());
+        assertThat(quizzes2, hasItem(hasProperty("id", is(5))));
+    }
 
     @Test
     @Sql("/test/sql/setval.sql")
@@ -52,6 +91,46 @@ class QuizServiceImplTest {
         assertThat(quiz.getAuthor(), anyOf(is("クイズ太郎"), is("テスト太郎")));
     }
 
+    @Test
+    void selectOneRandomQuizWithGap() {
+        // 30件登録し、2～25件目を削除して大きな欠番を作る（残り：id:5 と合わせて7件）
+        List<Integer> ids = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            Quiz quiz = new Quiz(null, "欠番" + i, true, "欠番太郎");
+            quizService.insertQuiz(quiz);
+            ids.add(quiz.getId());
+        }
+        quizService.deleteQuizzesByIds(ids.subList(1, 25));
+        // 欠番の直後のクイズも他と同じ確率で選ぶ
+        Map<Integer, Integer> counts = new HashMap<>();
+        for (int i = 0; i < 2100; i++) {
+            counts.merge(quizService.selectOneRandomQuiz().get().getId(), 1, Integer::sum);
+        }
+        assertEquals(7, counts.size());
+        counts.values().forEach(count -> assertTrue(count > 200 && count < 400, counts.toString()));
+    }
+
+    @Test
+    void selectRandomQuizzesWithGap() {
+        // 30件登録し、2～25件目を削除して大きな欠番を作る（残り：id:5 と合わせて7件）
+        List<Integer> ids = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            Quiz quiz = new Quiz(null, "欠番" + i, true, "欠番太郎");
+            quizService.insertQuiz(quiz);
+            ids.add(quiz.getId());
+        }
+        quizService.deleteQuizzesByIds(ids.subList(1, 25));
+        // 連続したidに偏らず、どのクイズも同じ確率（3/7）で選ぶ
+        Map<Integer, Integer> counts = new HashMap<>();
+        for (int i = 0; i < 700; i++) {
+            List<Quiz> quizzes = quizService.selectRandomQuizzes(3);
+            assertEquals(3, quizzes.stream().map(Quiz::getId).distinct().count());
+            quizzes.forEach(quiz -> counts.merge(quiz.getId(), 1, Integer::sum));
+        }
+        assertEquals(7, counts.size());
+        counts.values().forEach(count -> assertTrue(count > 200 && count < 400, counts.toString()));
+    }
+
     @Test
     void checkQuiz() {
         // 存在しないクイズ
@@ -60,4 +139,149 @@ class QuizServiceImplTest {
         // 存在するクイズ
         assertTrue(quizService.checkQuiz(5, true));
     }
-}
\ No newline at end of file
+
+    @Test
+    void metrics() {
+        Timer timer = meterRegistry.get("quiz.service").tag("method", "selectOneById").timer();
+        Counter rows = meterRegistry.get("quiz.service.rows").tag("method", "selectOneById").counter();
+        Counter correct = meterRegistry.get("quiz.answers").tag("result", "correct").counter();
+        long count = timer.count();
+        double rowCount = rows.count();
+        double correctCount = correct.count();
+
+        // サービスのメソッドを呼び出すだけで、処理時間と結果が記録される
+        quizService.selectOneById(5);
+        quizService.selectOneById(99);
+        quizService.checkQuiz(5, true);
+        assertEquals(count + 2, timer.count());
+        assertEquals(rowCount + 1, rows.count());
+        assertEquals(correctCount + 1, correct.count());
+    }
+
+    @Test
+    void metricsNoAllocationPerCall() {
+        // 計測のAdvisorのみを除いた同じ構成のプロキシと比較し、Advisorによる割り当てのみを求める
+        Advised advised = (Advised) quizService;
+        ProxyFactory factory = new ProxyFactory();
+        factory.setProxyTargetClass(advised.isProxyTargetClass());
+        factory.setTargetSource(advised.getTargetSource());
+        factory.setInterfaces(advised.getProxiedInterfaces());
+        Arrays.stream(advised.getAdvisors())
+                .filter(advisor -> !(advisor instanceof QuizMetricsAdvisor))
+                .forEach(factory::addAdvisor);
+        QuizService unmeasured = (QuizService) factory.getProxy();
+        Timer timer = meterRegistry.get("quiz.service").tag("method", "checkQuiz").timer();
+        long count = timer.count();
+
+        // JITコンパイル後の状態で計測する（解答はキャッシュから取得）
+        checkMany(quizService, 100_000);
+        checkMany(unmeasured, 100_000);
+        long measured = allocatedBytes(() -> checkMany(quizService, 500_000));
+        long baseline = allocatedBytes(() -> checkMany(unmeasured, 500_000));
+
+        // 計測されたのはAdvisorを経由した呼び出しのみ
+        assertEquals(count + 600_000, timer.count());
+        // 50万回呼び出しても、Advisorによる割り当ては呼び出し回数に比例しない一定量に収まる
+        assertThat(measured - baseline, lessThan(64L * 1024));
+    }
+
+    /** 解答チェックを指定回数呼び出す */
+    private static void checkMany(QuizService quizService, int count) {
+        for (int i = 0; i < count; i++) {
+            quizService.checkQuiz(5, (i & 1) == 0);
+        }
+    }
+
+    /** 処理の実行中に現在のスレッドが割り当てたバイト数 */
+    private static long allocatedBytes(Runnable task) {
+        com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long before = threadMXBean.getThreadAllocatedBytes(threadId);
+        task.run();
+        return threadMXBean.getThreadAllocatedBytes(threadId) - before;
+    }
+
+    @Test
+    void selectPage() {
+        // 先頭から取得
+        List<Quiz> page = quizService.selectPage(null, 10);
+        assertThat(page, hasItem(hasProperty("id", is(5))));
+
+        // 指定したidより後ろから取得
+        assertTrue(quizService.selectPage(5, 10).isEmpty());
+    }
+
+    @Test
+    void selectOneForUpdate() throws NoSuchMethodException {
+        assertEquals("クイズ１", quizService.selectOneForUpdate(5).get().getQuestion());
+        assertFalse(quizService.selectOneForUpdate(99).isPresent());
+
+        // 更新用の取得は読み取り専用にしない（レプリカに振り分けない）
+        TransactionAttributeSource source = new AnnotationTransactionAttributeSource();
+        assertTrue(source.getTransactionAttribute(
+                QuizServiceImpl.class.getMethod("selectOneById", Integer.class), QuizServiceImpl.class).isReadOnly());
+        assertFalse(source.getTransactionAttribute(
+                QuizServiceImpl.class.getMethod("selectOneForUpdate", Integer.class), QuizServiceImpl.class).isReadOnly());
+    }
+
+    @Test
+    void updateQuiz() {
+        Quiz quiz = quizService.selectOneById(5).get();
+        int version = quiz.getVersion();
+
+        // 変更なし：更新せず版数も変わらない
+        assertFalse(quizService.updateQuiz(new Quiz(5, "クイズ１", true, "クイズ太郎", version)));
+        assertEquals(version, quizService.selectOneById(5).get().getVersion());
+
+        // 一部の項目のみ更新（nullの項目は変更しない）
+        Quiz partial = new Quiz(5, null, false, null, version);
+        assertTrue(quizService.updateQuiz(partial));
+        assertEquals(version + 1, partial.getVersion());
+        Quiz updated = quizService.selectOneById(5).get();
+        assertEquals("クイズ１", updated.getQuestion());
+        assertFalse(updated.getAnswer());
+        assertFalse(quizService.checkQuiz(5, true));
+
+        // 古い版数での更新は競合
+        assertThrows(OptimisticLockingFailureException.class,
+                () -> quizService.updateQuiz(new Quiz(5, "競合", true, "クイズ太郎", version)));
+        // 存在しないクイズ
+        assertThrows(OptimisticLockingFailureException.class,
+                () -> quizService.updateQuiz(new Quiz(99, "テスト", true, "テスト太郎")));
+    }
+
+    @Test
+    void updateQuizzes() {
+        Quiz quiz = new Quiz(null, "テスト", true, "テスト太郎");
+        quizService.insertQuiz(quiz);
+
+        // nullと重複は除外し、存在しないidは変更件数に含めない
+        QuizBulkResult result = quizService.updateQuizzes(Arrays.asList(5, quiz.getId(), 5, null, 99), false, null);
+        assertEquals(3, result.getRequested());
+        assertEquals(2, result.getAffected());
+        assertFalse(quizService.selectOneById(5).get().getAnswer());
+        assertEquals("クイズ太郎", quizService.selectOneById(5).get().getAuthor());
+        assertFalse(quizService.checkQuiz(quiz.getId(), true));
+
+        // 変更する項目がない
+        assertEquals(0, quizService.updateQuizzes(List.of(5), null, null).getAffected());
+    }
+
+    @Test
+    void deleteQuizzes() {
+        for (int i = 1; i <= 3; i++) {
+            quizService.insertQuiz(new Quiz(null, "テスト" + i, true, "テスト太郎"));
+        }
+
+        // 作成者で削除
+        QuizBulkResult result1 = quizService.deleteQuizzesByAuthor("テスト太郎");
+        assertEquals(3, result1.getAffected());
+        assertTrue(quizService.selectPage(5, 10).isEmpty());
+
+        // idで削除
+        QuizBulkResult result2 = quizService.deleteQuizzesByIds(List.of(5, 99));
+        assertEquals(2, result2.getRequested());
+        assertEquals(1, result2.getAffected());
+        assertFalse(quizService.selectOneById(5).isPresent());
+    }
+}
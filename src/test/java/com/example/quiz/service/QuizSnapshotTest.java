@@ -0,0 +1,183 @@
+package com.example.quiz.service;
+
+import com.example.quiz.entity.Quiz;
+import com.example.quiz.repository.QuizRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+class QuizSnapshotTest {
+
+    @TempDir
+    Path dir;
+    /** DBのクイズ */
+    private final List<Quiz> quizzes = new ArrayList<>();
+    private QuizAnswerCache cache;
+
+    /** 各テストメソッドを実行する前に、3件のクイズでスナップショットを書き出す */
+    @BeforeEach
+    void setUp() {
+        quizzes.add(new Quiz(1, "日本の首都は東京である", true, "クイズ太郎"));
+        quizzes.add(new Quiz(3, "富士山は日本一低い山である", false, null));
+        quizzes.add(new Quiz(7, "", true, "東京次郎"));
+        cache = new QuizAnswerCache(16);
+        newSnapshot().close();
+    }
+
+    @Test
+    void open() {
+        QuizSnapshot snapshot = newSnapshot();
+        snapshot.open();
+        assertTrue(snapshot.isServing());
+        // 解答はidで検索する（含まれないidはnull）
+        assertEquals(true, snapshot.findAnswer(1));
+        assertEquals(false, snapshot.findAnswer(3));
+        assertEquals(true, snapshot.findAnswer(7));
+        assertNull(snapshot.findAnswer(2));
+        assertNull(snapshot.findAnswer(8));
+        // 内容・作成者も復元する
+        List<Quiz> drawn = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            Optional<Quiz> quiz = snapshot.randomQuiz();
+            assertTrue(quiz.isPresent());
+            drawn.add(quiz.get());
+        }
+        assertTrue(drawn.containsAll(quizzes));
+    }
+
+    @Test
+    void changed() {
+        QuizSnapshot snapshot = newSnapshot();
+        snapshot.open();
+        // 更新・削除されたクイズはスナップショットから返却しない
+        snapshot.onQuizChanged(new QuizChangedEvent(QuizChangedEvent.Type.UPDATE, 1));
+        snapshot.onQuizChanged(new QuizChangedEvent(QuizChangedEvent.Type.DELETE, List.of(3, 7)));
+        assertNull(snapshot.findAnswer(1));
+        assertNull(snapshot.findAnswer(3));
+        assertEquals(Optional.empty(), snapshot.randomQuiz());
+    }
+
+    @Test
+    void reconcile() {
+        // 書き出し後にDBで変更されたクイズ
+        quizzes.set(0, new Quiz(1, "日本の首都は東京である", false, "クイズ太郎"));
+        quizzes.add(new Quiz(9, "追加", true, "山田花子"));
+        QuizSnapshot snapshot = newSnapshot();
+        snapshot.open();
+        assertEquals(true, snapshot.findAnswer(1));
+
+        // DBから読み込み直すと、解答キャッシュに登録して使用を終了する
+        snapshot.reconcile();
+        assertFalse(snapshot.isServing());
+        assertNull(snapshot.findAnswer(1));
+        assertEquals(Optional.empty(), snapshot.randomQuiz());
+        assertEquals(false, cache.get(1));
+        assertEquals(true, cache.get(9));
+
+        // 書き直したスナップショットは最新の内容
+        QuizSnapshot next = newSnapshot();
+        next.open();
+        assertEquals(false, next.findAnswer(1));
+        assertEquals(true, next.findAnswer(9));
+    }
+
+    @Test
+    void reconcileInBackground() throws InterruptedException {
+        QuizSnapshot snapshot = newSnapshot();
+        snapshot.open();
+        // DBからの読み込みが終わらない間
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            loading.countDown();
+            assertTrue(release.await(10, TimeUnit.SECONDS));
+            Consumer<Quiz> action = invocation.getArgument(1);
+            quizzes.forEach(action);
+            return null;
+        }).when(snapshot.quizRepository).forEachQuiz(anyInt(), any());
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        snapshot.taskExecutor = executor::execute;
+        try {
+            // 起動完了の処理は読み込み直しを待たずに終わり、最初の出題・解答チェックはスナップショットから返却する
+            long start = System.nanoTime();
+            snapshot.reconcile();
+            assertTrue(loading.await(10, TimeUnit.SECONDS));
+            assertTrue(snapshot.randomQuiz().isPresent());
+            assertEquals(true, snapshot.findAnswer(1));
+            long firstServed = System.nanoTime() - start;
+            assertTrue(firstServed < TimeUnit.SECONDS.toNanos(1), "最初の出題まで" + firstServed / 1_000_000 + "ms");
+            assertTrue(snapshot.isServing());
+
+            // 読み込み直しが終わると使用を終了する
+            release.countDown();
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+            assertFalse(snapshot.isServing());
+            assertEquals(true, cache.get(1));
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void unusable() throws IOException {
+        // 古いスナップショットは使用しない
+        QuizSnapshot snapshot = newSnapshot();
+        snapshot.maxAge = Duration.ofMillis(-1);
+        snapshot.open();
+        assertFalse(snapshot.isServing());
+
+        // 壊れたスナップショットは使用しない
+        Path file = dir.resolve("quiz.snapshot");
+        Files.write(file, new byte[64]);
+        snapshot = newSnapshot();
+        snapshot.open();
+        assertFalse(snapshot.isServing());
+
+        // ファイルを指定しない場合は使用しない
+        snapshot = newSnapshot();
+        snapshot.path = "";
+        snapshot.open();
+        assertFalse(snapshot.isServing());
+        assertNull(snapshot.findAnswer(1));
+    }
+
+    /** DBのクイズを読み込むスナップショット */
+    private QuizSnapshot newSnapshot() {
+        QuizRepository quizRepository = mock(QuizRepository.class);
+        doAnswer(invocation -> {
+            Consumer<Quiz> action = invocation.getArgument(1);
+            quizzes.forEach(action);
+            return null;
+        }).when(quizRepository).forEachQuiz(anyInt(), any());
+        QuizSnapshot snapshot = new QuizSnapshot(mock(PlatformTransactionManager.class));
+        snapshot.quizRepository = quizRepository;
+        snapshot.quizAnswerCache = cache;
+        snapshot.path = dir.resolve("quiz.snapshot").toString();
+        snapshot.maxAge = Duration.ofHours(1);
+        snapshot.fetchSize = 1000;
+        snapshot.taskExecutor = Runnable::run;
+        return snapshot;
+    }
+}
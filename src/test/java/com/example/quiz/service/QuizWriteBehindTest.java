@@ -0,0 +1,217 @@
+package com.example.quiz.service;
+
+import com.example.quiz.entity.Quiz;
+import com.example.quiz.repository.QuizRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class QuizWriteBehindTest {
+
+    private QuizWriteBehind writeBehind;
+    private SimpleMeterRegistry registry;
+    /** 1回ごとに登録したクイズのid */
+    private final List<List<Integer>> batches = new ArrayList<>();
+    /** 登録を止めておく（解除するまで書き込みスレッドを待たせる） */
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final CountDownLatch blocked = new CountDownLatch(1);
+
+    @BeforeEach
+    void setUp() {
+        QuizRepository quizRepository = mock(QuizRepository.class);
+        int[] sequence = {100};
+        when(quizRepository.allocateIds(anyInt())).thenAnswer(invocation -> {
+            List<Integer> ids = new ArrayList<>();
+            for (int i = 0; i < (int) invocation.getArgument(0); i++) {
+                ids.add(sequence[0]++);
+            }
+            return ids;
+        });
+        doAnswer(invocation -> {
+            List<Quiz> quizzes = invocation.getArgument(0);
+            blocked.countDown();
+            release.await(10, TimeUnit.SECONDS);
+            if (quizzes.stream().anyMatch(quiz -> quiz.getQuestion() == null)) {
+                throw new DataIntegrityViolationException("question is null");
+            }
+            batches.add(quizzes.stream().map(Quiz::getId).collect(Collectors.toList()));
+            return quizzes.size();
+        }).when(quizRepository).batchInsertWithIds(any());
+        registry = new SimpleMeterRegistry();
+        writeBehind = new QuizWriteBehind(mock(PlatformTransactionManager.class), registry, 3);
+        writeBehind.quizRepository = quizRepository;
+        writeBehind.quizAnswerCache = mock(QuizAnswerCache.class);
+        writeBehind.eventPublisher = event -> { };
+        writeBehind.enabled = true;
+        writeBehind.batchSize = 10;
+        writeBehind.enqueueTimeout = Duration.ofMillis(10);
+        writeBehind.idBlockSize = 2;
+        writeBehind.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        writeBehind.stop();
+    }
+
+    @Test
+    void groupCommit() throws InterruptedException {
+        Quiz first = quiz("1件目");
+        writeBehind.insert(first);
+        // idは追加した時点で確定する
+        assertEquals(100, first.getId());
+        // 追加した後に変更しても、追加した時点の内容を書き込む
+        first.setQuestion(null);
+        assertTrue(blocked.await(10, TimeUnit.SECONDS));
+        // 書き込み中に追加したものは、次の1回にまとめて書き込む
+        writeBehind.insert(quiz("2件目"));
+        writeBehind.insert(quiz("3件目"));
+        writeBehind.insert(quiz("4件目"));
+        assertEquals(3, writeBehind.pendingCount());
+        release.countDown();
+        writeBehind.awaitWritten();
+        assertEquals(List.of(List.of(100), List.of(101, 102, 103)), batches);
+        assertEquals(0, writeBehind.pendingCount());
+        assertEquals(4.0, registry.get("quiz.write.behind.writes").tag("result", "written").counter().count());
+        assertEquals(2, registry.get("quiz.write.behind.batch.size").summary().count());
+    }
+
+    @Test
+    void backpressure() throws InterruptedException {
+        writeBehind.insert(quiz("書き込み中"));
+        assertTrue(blocked.await(10, TimeUnit.SECONDS));
+        for (int i = 0; i < 3; i++) {
+            writeBehind.insert(quiz("書き込み待ち" + i));
+        }
+        // キューが満杯の場合は待ったうえで受け付けない
+        assertThrows(QuizWriteQueueFullException.class, () -> writeBehind.insert(quiz("満杯")));
+        assertEquals(1.0, registry.get("quiz.write.behind.writes").tag("result", "rejected").counter().count());
+        assertEquals(3.0, registry.get("quiz.write.behind.queue").gauge().value());
+    }
+
+    @Test
+    void drainOnStop() throws InterruptedException {
+        writeBehind.insert(quiz("書き込み中"));
+        assertTrue(blocked.await(10, TimeUnit.SECONDS));
+        writeBehind.insert(quiz("書き込み待ち"));
+        // 終了時は受付を止め、キューが空になるまで書き込む
+        release.countDown();
+        writeBehind.stop();
+        assertFalse(writeBehind.isRunning());
+        assertEquals(List.of(List.of(100), List.of(101)), batches);
+        assertThrows(QuizWriteQueueFullException.class, () -> writeBehind.insert(quiz("終了後")));
+    }
+
+    @Test
+    void awaitWrittenWhileStopping() throws InterruptedException {
+        writeBehind.insert(quiz("書き込み中"));
+        assertTrue(blocked.await(10, TimeUnit.SECONDS));
+        writeBehind.insert(quiz("書き込み待ち"));
+        // 受付を止めて書き込みスレッドの終了を待っている間
+        Thread stopper = new Thread(writeBehind::stop);
+        stopper.start();
+        while (stopper.getState() != Thread.State.WAITING) {
+            assertTrue(stopper.isAlive());
+            Thread.onSpinWait();
+        }
+        // 受付を止めた後も、キューが空になるまで待つ
+        List<List<Integer>> writtenOnReturn = new ArrayList<>();
+        Thread waiter = new Thread(() -> {
+            writeBehind.awaitWritten();
+            writtenOnReturn.addAll(batches);
+        });
+        waiter.start();
+        waiter.join(200);
+        assertTrue(waiter.isAlive());
+        release.countDown();
+        waiter.join(10_000);
+        stopper.join(10_000);
+        assertEquals(List.of(List.of(100), List.of(101)), writtenOnReturn);
+        // 終了後は待たない
+        writeBehind.awaitWritten();
+    }
+
+    @Test
+    void enqueueWhileStopping() throws Exception {
+        release.countDown();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            for (int round = 0; round < 20; round++) {
+                if (round > 0) {
+                    writeBehind.start();
+                }
+                // 複数のスレッドが追加と順序待ちを繰り返している間に終了する
+                List<Integer> accepted = Collections.synchronizedList(new ArrayList<>());
+                AtomicBoolean stopped = new AtomicBoolean();
+                List<Future<?>> futures = new ArrayList<>();
+                for (int i = 0; i < 4; i++) {
+                    futures.add(executor.submit(() -> {
+                        while (!stopped.get()) {
+                            Quiz quiz = quiz("並行");
+                            try {
+                                writeBehind.insert(quiz);
+                                accepted.add(quiz.getId());
+                                writeBehind.awaitWritten();
+                            } catch (QuizWriteQueueFullException e) {
+                                // 満杯（順序待ちの印を含む）・終了処理中は受け付けない
+                            }
+                        }
+                    }));
+                }
+                Thread.sleep(10);
+                writeBehind.stop();
+                stopped.set(true);
+                // 順序待ちは終了後も止まらない
+                for (Future<?> future : futures) {
+                    future.get(10, TimeUnit.SECONDS);
+                }
+                // 受け付けた書き込みは、すべて書き込まれている
+                List<Integer> written = batches.stream().flatMap(List::stream).collect(Collectors.toList());
+                assertTrue(written.containsAll(accepted), "round " + round);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void retryIndividually() {
+        release.countDown();
+        writeBehind.batchSize = 10;
+        writeBehind.insert(quiz("書き込み待ち"));
+        writeBehind.insert(quiz(null));
+        writeBehind.insert(quiz("書き込み待ち"));
+        writeBehind.awaitWritten();
+        // 失敗したまとまりは1件ずつ書き込み直し、失敗したものだけを破棄する
+        List<Integer> written = batches.stream().flatMap(List::stream).sorted().collect(Collectors.toList());
+        assertEquals(List.of(100, 102), written);
+        assertEquals(1.0, registry.get("quiz.write.behind.writes").tag("result", "failed").counter().count());
+    }
+
+    private static Quiz quiz(String question) {
+        return new Quiz(null, question, true, "非同期太郎");
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.quiz.service;
+
+import com.example.quiz.entity.QuizPlayerScore;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RankedSkipListTest {
+
+    @Test
+    void rankAndRange() {
+        RankedSkipList list = new RankedSkipList();
+        list.insert("c", 5);
+        list.insert("a", 10);
+        list.insert("b", 5);
+        list.insert("d", 1);
+        // スコアの高い順、同じスコアは名前の順。同じスコアは同じ順位
+        assertEquals(List.of(new QuizPlayerScore("a", 10, 1), new QuizPlayerScore("b", 5, 2),
+                new QuizPlayerScore("c", 5, 2), new QuizPlayerScore("d", 1, 4)), list.range(0, 10));
+        assertEquals(List.of(new QuizPlayerScore("c", 5, 2), new QuizPlayerScore("d", 1, 4)), list.range(2, 2));
+        assertEquals(List.of(), list.range(4, 10));
+        assertEquals(1, list.countHigher(5));
+
+        assertTrue(list.remove("a", 10));
+        assertFalse(list.remove("a", 10));
+        assertFalse(list.remove("b", 6));
+        assertEquals(List.of(new QuizPlayerScore("b", 5, 1), new QuizPlayerScore("c", 5, 1),
+                new QuizPlayerScore("d", 1, 3)), list.range(0, 10));
+        assertEquals(3, list.size());
+    }
+
+    @Test
+    void matchesSortedList() {
+        // 加算（削除して追加）を繰り返し、ソートしたリストと順位・範囲が一致することを確認する
+        Random random = new Random(1);
+        RankedSkipList list = new RankedSkipList();
+        Map<String, Long> scores = new HashMap<>();
+        for (int i = 0; i < 20000; i++) {
+            String player = "p" + random.nextInt(2000);
+            Long old = scores.get(player);
+            if (old != null) {
+                assertTrue(list.remove(player, old));
+            }
+            long score = (old == null ? 0 : old) + random.nextInt(3);
+            scores.put(player, score);
+            list.insert(player, score);
+        }
+        List<Map.Entry<String, Long>> expected = new ArrayList<>(scores.entrySet());
+        expected.sort(Comparator.<Map.Entry<String, Long>>comparingLong(Map.Entry::getValue).reversed()
+                .thenComparing(Map.Entry::getKey));
+        assertEquals(expected.size(), list.size());
+        for (int offset : new int[] {0, 1, 137, 1000, expected.size() - 1}) {
+            List<QuizPlayerScore> range = list.range(offset, 50);
+            List<String> players = expected.subList(offset, Math.min(offset + 50, expected.size())).stream()
+                    .map(Map.Entry::getKey).collect(Collectors.toList());
+            assertEquals(players, range.stream().map(QuizPlayerScore::getPlayer).collect(Collectors.toList()));
+            for (QuizPlayerScore score : range) {
+                long higher = expected.stream().filter(e -> e.getValue() > score.getScore()).count();
+                assertEquals(higher + 1, score.getRank());
+                assertEquals(higher, list.countHigher(score.getScore()));
+            }
+        }
+    }
+}
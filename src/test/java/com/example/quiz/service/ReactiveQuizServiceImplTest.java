@@ -0,0 +1,56 @@
+package com.example.quiz.service;
+
+import com.example.quiz.QuizApplication;
+import com.example.quiz.entity.Quiz;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** reactiveプロファイル（R2DBC）のService。テストではblock()で結果を待つ */
+@SpringBootTest(classes = QuizApplication.class)
+@ActiveProfiles("reactive")
+class ReactiveQuizServiceImplTest {
+
+    @Autowired
+    ReactiveQuizService reactiveQuizService;
+    @Autowired
+    QuizAnswerCache quizAnswerCache;
+    @Autowired
+    QuizService quizService;
+
+    @Test
+    void select() {
+        Quiz quiz = reactiveQuizService.selectOneById(5).block();
+        assertNotNull(quiz);
+        assertEquals("クイズ１", quiz.getQuestion());
+        assertNull(reactiveQuizService.selectOneById(-1).block());
+
+        assertNotNull(reactiveQuizService.selectOneRandomQuiz().block());
+        assertTrue(reactiveQuizService.selectAll().map(Quiz::getId).collectList().block().contains(5));
+    }
+
+    @Test
+    void checkQuiz() {
+        // DBから取得してキャッシュに登録し、次回はキャッシュで判定する
+        quizAnswerCache.invalidate(5);
+        long misses = quizAnswerCache.missCount();
+        long hits = quizAnswerCache.hitCount();
+        assertEquals(Boolean.TRUE, reactiveQuizService.checkQuiz(5, true).block());
+        assertEquals(misses + 1, quizAnswerCache.missCount());
+        assertEquals(Boolean.FALSE, reactiveQuizService.checkQuiz(5, false).block());
+        assertEquals(hits + 1, quizAnswerCache.hitCount());
+
+        // idが未指定・存在しない場合は不正解
+        assertEquals(Boolean.FALSE, reactiveQuizService.checkQuiz(null, true).block());
+        assertEquals(Boolean.FALSE, reactiveQuizService.checkQuiz(-1, true).block());
+    }
+
+    @Test
+    void jdbcAlongsideR2dbc() {
+        // reactiveプロファイルでも、JDBCのDataSource・Repository（登録・更新などの処理）を使用できる
+        assertEquals("クイズ１", quizService.selectOneById(5).orElseThrow().getQuestion());
+    }
+}
@@ -0,0 +1,234 @@
+package com.example.quiz.service;
+
+import com.example.quiz.entity.Quiz;
+import com.example.quiz.entity.QuizStats;
+import com.example.quiz.repository.QuizRepository;
+import com.example.quiz.repository.QuizStatsRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class WeightedQuizSelectionStrategyTest {
+
+    private QuizRepository quizRepository;
+    private WeightedQuizSelectionStrategy strategy;
+
+    /** 各テストメソッドを実行する前に、id 1～10のクイズ（id:1は10回中10回不正解）で作成する */
+    @BeforeEach
+    void setUp() {
+        quizRepository = mock(QuizRepository.class);
+        List<Integer> ids = new ArrayList<>();
+        for (int id = 1; id <= 10; id++) {
+            ids.add(id);
+        }
+        when(quizRepository.findIdsAfter(eq(KeysetQuizIterable.FIRST), anyInt())).thenReturn(ids);
+        when(quizRepository.findIdsAfter(eq(10), anyInt())).thenReturn(List.of());
+        QuizStatsRepository quizStatsRepository = mock(QuizStatsRepository.class);
+        doAnswer(invocation -> {
+            Consumer<QuizStats> action = invocation.getArgument(1);
+            action.accept(new QuizStats(1, null, 10, 0));
+            return null;
+        }).when(quizStatsRepository).forEach(anyInt(), any());
+        strategy = new WeightedQuizSelectionStrategy(mock(PlatformTransactionManager.class));
+        strategy.quizRepository = quizRepository;
+        strategy.quizStatsRepository = quizStatsRepository;
+        strategy.fetchSize = 1000;
+        strategy.weightScale = 99;
+    }
+
+    @Test
+    void weighted() {
+        strategy.cooldown = 0;
+        strategy.build();
+        // 重み：id 1 は 1 + 99 × 11 / 12 = 91、その他は 1 + 99 × 1 / 2 = 50
+        Map<Integer, Integer> counts = new HashMap<>();
+        for (int i = 0; i < 100_000; i++) {
+            counts.merge(strategy.draw(), 1, Integer::sum);
+        }
+        assertEquals(10, counts.size());
+        double expected = 100_000 * 91.0 / (91 + 50 * 9);
+        assertEquals(expected, counts.get(1), expected * 0.05);
+
+        // 正解が続くと選ばれにくくなる
+        for (int i = 0; i < 100; i++) {
+            strategy.onAnswered(1, true);
+        }
+        strategy.applyAnswers();
+        counts.clear();
+        for (int i = 0; i < 100_000; i++) {
+            counts.merge(strategy.draw(), 1, Integer::sum);
+        }
+        assertTrue(counts.get(1) < counts.get(2));
+    }
+
+    @Test
+    void cooldown() {
+        strategy.cooldown = 3;
+        strategy.build();
+        // 直近3回に出題したクイズは選ばない
+        List<Integer> drawn = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            int id = strategy.draw();
+            int from = Math.max(drawn.size() - 3, 0);
+            assertFalse(drawn.subList(from, drawn.size()).contains(id));
+            drawn.add(id);
+        }
+    }
+
+    @Test
+    void insertAndDelete() {
+        strategy.cooldown = 0;
+        strategy.build();
+        // 削除したクイズは選ばない
+        for (int id = 2; id <= 10; id++) {
+            strategy.onQuizChanged(new QuizChangedEvent(QuizChangedEvent.Type.DELETE, id));
+        }
+        for (int i = 0; i < 100; i++) {
+            assertEquals(1, strategy.draw());
+        }
+        // 登録したクイズは選ぶ（コミット順がidの順と異なる場合も含む）
+        strategy.onQuizChanged(new QuizChangedEvent(QuizChangedEvent.Type.INSERT, 12));
+        strategy.onQuizChanged(new QuizChangedEvent(QuizChangedEvent.Type.INSERT, 11));
+        Map<Integer, Integer> counts = new HashMap<>();
+        for (int i = 0; i < 10_000; i++) {
+            counts.merge(strategy.draw(), 1, Integer::sum);
+        }
+        assertEquals(List.of(1, 11, 12), new ArrayList<>(new TreeMap<>(counts).keySet()));
+    }
+
+    @Test
+    void bufferedAnswers() {
+        strategy.cooldown = 0;
+        strategy.build();
+        // 反映するまでは重みが変わらない（id 2 の重み 50 → 100回不正解で 1 + 99 × 101 / 102 = 99）
+        for (int i = 0; i < 100; i++) {
+            strategy.onAnswered(2, false);
+        }
+        assertEquals(100_000 * 50.0 / (91 + 50 * 9), drawCount(2, 100_000), 100_000 * 0.01);
+        strategy.applyAnswers();
+        assertEquals(100_000 * 99.0 / (91 + 99 + 50 * 8), drawCount(2, 100_000), 100_000 * 0.01);
+
+        // バッファの同じスロットに別のidの増分がある場合は、その場で両方反映する（id 4098 は未登録のため破棄）
+        strategy.onAnswered(3, true);
+        strategy.onAnswered(3 + 4096, true);
+        strategy.onAnswered(3, false);
+        for (int i = 0; i < 100; i++) {
+            strategy.onAnswered(4, true);
+        }
+        strategy.applyAnswers();
+        // id 3：2回中1回正解で 1 + 99 × 2 / 4 = 50（変わらない）、id 4：100回正解で 1 + 99 × 1 / 102 = 1、id 5～10：50
+        double total = 91 + 99 + 50 + 1 + 50 * 6;
+        assertEquals(100_000 * 50 / total, drawCount(3, 100_000), 100_000 * 0.01);
+        assertEquals(100_000 * 1 / total, drawCount(4, 100_000), 100_000 * 0.002);
+    }
+
+    @Test
+    void manyInsertsOutOfOrder() {
+        strategy.cooldown = 0;
+        strategy.build();
+        // コミット順がidの順と逆でも、位置の拡張・索引の作り直し・削除済みの詰め直しを経て正しく選ぶ
+        for (int id = 5000; id > 10; id--) {
+            strategy.add(id);
+        }
+        for (int id = 1; id <= 5000; id++) {
+            if (id % 1000 != 0) {
+                strategy.remove(id);
+            }
+        }
+        strategy.add(777);
+        strategy.add(1000);
+        Map<Integer, Integer> counts = new HashMap<>();
+        for (int i = 0; i < 10_000; i++) {
+            counts.merge(strategy.draw(), 1, Integer::sum);
+        }
+        assertEquals(List.of(777, 1000, 2000, 3000, 4000, 5000), new ArrayList<>(new TreeMap<>(counts).keySet()));
+        // 詰め直した後の位置に解答を反映する
+        strategy.onAnswered(5000, false);
+        strategy.applyAnswers();
+        assertTrue(drawCount(5000, 10_000) > drawCount(4000, 10_000));
+    }
+
+    /** n回抽選して指定したidが選ばれた回数 */
+    private int drawCount(int id, int n) {
+        int count = 0;
+        for (int i = 0; i < n; i++) {
+            if (strategy.draw() == id) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Test
+    void select() {
+        strategy.cooldown = 0;
+        strategy.build();
+        // 削除が反映されていないクイズは除いて選び直す
+        Quiz quiz = new Quiz(3, "クイズ", true, "作成者");
+        when(quizRepository.findById(anyInt())).thenReturn(Optional.empty());
+        when(quizRepository.findById(3)).thenReturn(Optional.of(quiz));
+        when(quizRepository.findOneRandom()).thenReturn(Optional.of(quiz));
+        for (int i = 0; i < 200; i++) {
+            assertEquals(Optional.of(quiz), strategy.select());
+        }
+        for (int i = 0; i < 100; i++) {
+            assertEquals(3, strategy.draw());
+        }
+    }
+
+    @Test
+    void selectNotYetOnReplica() {
+        // 読み取り専用のトランザクション（レプリカ）には、まだ登録が反映されていない
+        AtomicBoolean primary = new AtomicBoolean();
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenAnswer(invocation -> {
+            primary.set(!invocation.<TransactionDefinition>getArgument(0).isReadOnly());
+            return mock(TransactionStatus.class);
+        });
+        WeightedQuizSelectionStrategy replicated = new WeightedQuizSelectionStrategy(transactionManager);
+        replicated.quizRepository = quizRepository;
+        replicated.quizStatsRepository = strategy.quizStatsRepository;
+        replicated.fetchSize = 1000;
+        replicated.weightScale = 99;
+        replicated.cooldown = 0;
+        replicated.build();
+        when(quizRepository.findById(anyInt())).thenAnswer(invocation -> primary.get()
+                ? Optional.of(new Quiz(invocation.getArgument(0), "クイズ", true, "作成者"))
+                : Optional.empty());
+
+        // プライマリで確認して出題し、選択の対象から除かない
+        for (int i = 0; i < 100; i++) {
+            primary.set(false);
+            assertTrue(replicated.select().isPresent());
+        }
+        verify(quizRepository, never()).findOneRandom();
+        Set<Integer> drawn = new HashSet<>();
+        for (int i = 0; i < 1000; i++) {
+            drawn.add(replicated.draw());
+        }
+        assertEquals(10, drawn.size());
+    }
+}